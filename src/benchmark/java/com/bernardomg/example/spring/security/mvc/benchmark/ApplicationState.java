@@ -0,0 +1,114 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.bernardomg.example.spring.security.mvc.Application;
+
+/**
+ * Running application, shared by all the benchmarks in a trial.
+ * <p>
+ * The application uses an in-memory H2 database, created from the Liquibase changelog. So it contains the initial
+ * users.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+    /**
+     * Enables the user cache.
+     */
+    @Param({ "true", "false" })
+    public boolean                         userCache;
+
+    /**
+     * Application context.
+     */
+    private ConfigurableApplicationContext context;
+
+    /**
+     * Default constructor.
+     */
+    public ApplicationState() {
+        super();
+    }
+
+    /**
+     * Returns the bean of the received class.
+     *
+     * @param <T>
+     *            type of the bean
+     * @param type
+     *            class of the bean
+     * @return the bean of the received class
+     */
+    public final <T> T getBean(final Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Returns the application context.
+     *
+     * @return the application context
+     */
+    public final WebApplicationContext getWebApplicationContext() {
+        return (WebApplicationContext) context;
+    }
+
+    /**
+     * Starts the application.
+     */
+    @Setup(Level.Trial)
+    public final void setup() {
+        // Devtools would restart the application
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        // Passed as arguments, so they override the application properties
+        context = new SpringApplicationBuilder(Application.class)
+            .run("--server.port=0", "--spring.devtools.livereload.enabled=false",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1", "--spring.jpa.show-sql=false",
+                "--logging.level.com.bernardomg.example=warn", "--security.user.cache.enabled=" + userCache);
+    }
+
+    /**
+     * Stops the application.
+     */
+    @TearDown(Level.Trial)
+    public final void tearDown() {
+        context.close();
+    }
+
+}
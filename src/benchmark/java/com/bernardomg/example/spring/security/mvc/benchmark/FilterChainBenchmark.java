@@ -0,0 +1,121 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.benchmark;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Benchmarks for requests going through the full security filter chain.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FilterChainBenchmark {
+
+    /**
+     * Mock MVC for the requests.
+     */
+    private MockMvc     mockMvc;
+
+    /**
+     * Authenticated user.
+     */
+    private UserDetails userDetails;
+
+    /**
+     * Default constructor.
+     */
+    public FilterChainBenchmark() {
+        super();
+    }
+
+    /**
+     * Form login, which loads the user and verifies the password.
+     *
+     * @return the request result
+     * @throws Exception
+     *             if the request fails
+     */
+    @Benchmark
+    public final MvcResult login() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.post("/login")
+            .param("username", "admin")
+            .param("password", "1234")
+            .with(csrf()))
+            .andReturn();
+    }
+
+    /**
+     * Request to a secured page, by an authenticated user.
+     *
+     * @return the request result
+     * @throws Exception
+     *             if the request fails
+     */
+    @Benchmark
+    public final MvcResult securedPage() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get("/")
+            .with(user(userDetails)))
+            .andReturn();
+    }
+
+    /**
+     * Creates the mock MVC.
+     *
+     * @param application
+     *            running application
+     */
+    @Setup(Level.Trial)
+    public final void setup(final ApplicationState application) {
+        mockMvc = MockMvcBuilders.webAppContextSetup(application.getWebApplicationContext())
+            .apply(springSecurity())
+            .build();
+        userDetails = application.getBean(UserDetailsService.class)
+            .loadUserByUsername("admin");
+    }
+
+}
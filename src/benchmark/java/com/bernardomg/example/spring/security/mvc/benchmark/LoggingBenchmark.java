@@ -0,0 +1,139 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.benchmark;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.bernardomg.example.spring.security.mvc.Application;
+
+/**
+ * Benchmarks for the request throughput with each logging configuration.
+ * <p>
+ * The default configuration logs the application at debug level to the console, through synchronous loggers which
+ * read the caller location. The production one logs at info level to a file, through asynchronous loggers.
+ * <p>
+ * Logins are measured, as these log the most. The user cache is disabled and the password hashes are cheap, so the
+ * request is not dominated by the hashing.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class LoggingBenchmark {
+
+    /**
+     * Logging configuration file.
+     */
+    @Param({ "log4j2.xml", "log4j2-prod.xml" })
+    public String                          config;
+
+    /**
+     * Application context.
+     */
+    private ConfigurableApplicationContext context;
+
+    /**
+     * Mock MVC for the requests.
+     */
+    private MockMvc                        mockMvc;
+
+    /**
+     * Default constructor.
+     */
+    public LoggingBenchmark() {
+        super();
+    }
+
+    /**
+     * Form login, which loads the user and verifies the password.
+     *
+     * @return the request result
+     * @throws Exception
+     *             if the request fails
+     */
+    @Benchmark
+    public final MvcResult login() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.post("/login")
+            .param("username", "admin")
+            .param("password", "1234")
+            .with(csrf()))
+            .andReturn();
+    }
+
+    /**
+     * Starts the application with the logging configuration.
+     */
+    @Setup(Level.Trial)
+    public final void setup() {
+        // Devtools would restart the application
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        System.setProperty("LOG_PATH", "target/benchmark-logs");
+
+        // Passed as arguments, so they override the application properties
+        context = new SpringApplicationBuilder(Application.class)
+            .run("--server.port=0", "--spring.devtools.livereload.enabled=false",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1", "--spring.jpa.show-sql=false",
+                "--logging.config=classpath:" + config, "--security.user.cache.enabled=false",
+                "--security.password.encoding.bcrypt-strength=4");
+
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+            .apply(springSecurity())
+            .build();
+    }
+
+    /**
+     * Stops the application.
+     */
+    @TearDown(Level.Trial)
+    public final void tearDown() {
+        context.close();
+    }
+
+}
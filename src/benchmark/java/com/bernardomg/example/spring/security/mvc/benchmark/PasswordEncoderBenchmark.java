@@ -0,0 +1,212 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.benchmark;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.bernardomg.example.spring.security.mvc.config.PasswordHashingConfig;
+import com.bernardomg.example.spring.security.mvc.config.SecurityConfig;
+import com.bernardomg.example.spring.security.mvc.security.password.PasswordEncoderFactory;
+import com.bernardomg.example.spring.security.mvc.security.property.PasswordEncodingProperties;
+import com.bernardomg.example.spring.security.mvc.security.property.PasswordHashingProperties;
+
+/**
+ * Benchmarks for verifying passwords.
+ * <p>
+ * The encoder from {@link SecurityConfig} is measured, along BCrypt encoders with several cost factors. Each cost
+ * factor step doubles the time.
+ * <p>
+ * The cost of each supported hash format is measured too. This includes legacy hashes, which are BCrypt hashes without
+ * the format prefix.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PasswordEncoderBenchmark {
+
+    /**
+     * Password to verify.
+     */
+    private static final String PASSWORD = "1111";
+
+    /**
+     * Default constructor.
+     */
+    public PasswordEncoderBenchmark() {
+        super();
+    }
+
+    @Benchmark
+    public final boolean matchesBcrypt(final BcryptState state) {
+        return state.encoder.matches(PASSWORD, state.encoded);
+    }
+
+    @Benchmark
+    public final boolean matchesConfigured(final ConfiguredState state) {
+        return state.encoder.matches(PASSWORD, state.encoded);
+    }
+
+    @Benchmark
+    public final boolean matchesFormat(final FormatState state) {
+        return state.encoder.matches(PASSWORD, state.encoded);
+    }
+
+    /**
+     * BCrypt encoder with a cost factor.
+     */
+    @State(Scope.Benchmark)
+    public static class BcryptState {
+
+        /**
+         * BCrypt cost factor.
+         */
+        @Param({ "4", "8", "10", "12" })
+        public int              strength;
+
+        /**
+         * Encoded password.
+         */
+        private String          encoded;
+
+        /**
+         * Encoder being measured.
+         */
+        private PasswordEncoder encoder;
+
+        /**
+         * Creates the encoder and the encoded password.
+         */
+        @Setup(Level.Trial)
+        public final void setup() {
+            encoder = new BCryptPasswordEncoder(strength);
+            encoded = encoder.encode(PASSWORD);
+        }
+
+    }
+
+    /**
+     * Encoder used by the application, with the default configuration.
+     */
+    @State(Scope.Benchmark)
+    public static class ConfiguredState {
+
+        /**
+         * Encoded password.
+         */
+        private String          encoded;
+
+        /**
+         * Encoder being measured.
+         */
+        private PasswordEncoder encoder;
+
+        /**
+         * Executor for the encoder.
+         */
+        private ExecutorService executor;
+
+        /**
+         * Creates the encoder and the encoded password.
+         */
+        @Setup(Level.Trial)
+        public final void setup() {
+            final PasswordHashingProperties hashingProperties;
+
+            hashingProperties = new PasswordHashingProperties();
+            executor = new PasswordHashingConfig().getPasswordHashingExecutor(hashingProperties);
+            encoder = new SecurityConfig().getPasswordEncoder(new PasswordEncodingProperties(), hashingProperties,
+                executor);
+            encoded = encoder.encode(PASSWORD);
+        }
+
+        /**
+         * Stops the executor.
+         */
+        @TearDown(Level.Trial)
+        public final void tearDown() {
+            executor.shutdown();
+        }
+
+    }
+
+    /**
+     * Delegating encoder, verifying a hash in one of the supported formats.
+     */
+    @State(Scope.Benchmark)
+    public static class FormatState {
+
+        /**
+         * Hash format.
+         */
+        @Param({ "legacy", PasswordEncoderFactory.BCRYPT, PasswordEncoderFactory.ARGON2 })
+        public String           format;
+
+        /**
+         * Encoded password.
+         */
+        private String          encoded;
+
+        /**
+         * Encoder being measured.
+         */
+        private PasswordEncoder encoder;
+
+        /**
+         * Creates the encoder and the encoded password.
+         */
+        @Setup(Level.Trial)
+        public final void setup() {
+            final PasswordEncodingProperties properties;
+
+            properties = new PasswordEncodingProperties();
+            if ("legacy".equals(format)) {
+                encoded = new BCryptPasswordEncoder(properties.getBcryptStrength()).encode(PASSWORD);
+            } else {
+                properties.setEncoder(format);
+                encoded = PasswordEncoderFactory.getPasswordEncoder(properties)
+                    .encode(PASSWORD);
+            }
+            encoder = PasswordEncoderFactory.getPasswordEncoder(properties);
+        }
+
+    }
+
+}
@@ -0,0 +1,155 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.RememberMeServices;
+import org.springframework.security.web.authentication.rememberme.PersistentRememberMeToken;
+import org.springframework.security.web.authentication.rememberme.PersistentTokenRepository;
+
+import jakarta.servlet.http.Cookie;
+
+/**
+ * Benchmarks for the remember-me token validation.
+ * <p>
+ * Each thread has its own token. A successful login replaces the token value, so the cookie from each response is
+ * sent on the next request, as a browser would.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RememberMeBenchmark {
+
+    /**
+     * Remember-me cookie name.
+     */
+    private static final String COOKIE_NAME = "remember-me";
+
+    /**
+     * Current cookie value.
+     */
+    private String              cookie;
+
+    /**
+     * Remember-me services being measured.
+     */
+    private RememberMeServices  services;
+
+    /**
+     * Default constructor.
+     */
+    public RememberMeBenchmark() {
+        super();
+    }
+
+    @Benchmark
+    public final Authentication autoLogin() {
+        final MockHttpServletRequest  request;
+        final MockHttpServletResponse response;
+        final Authentication          authentication;
+
+        request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(COOKIE_NAME, cookie));
+        response = new MockHttpServletResponse();
+
+        authentication = services.autoLogin(request, response);
+
+        cookie = response.getCookie(COOKIE_NAME)
+            .getValue();
+
+        return authentication;
+    }
+
+    /**
+     * Stores a token for the thread.
+     *
+     * @param application
+     *            running application
+     */
+    @Setup(Level.Trial)
+    public final void setup(final ApplicationState application) {
+        final PersistentTokenRepository repository;
+        final String                    series;
+        final String                    token;
+        final MockHttpServletRequest    request;
+        final MockHttpServletResponse   response;
+
+        services = application.getBean(RememberMeServices.class);
+        repository = application.getBean(PersistentTokenRepository.class);
+
+        series = UUID.randomUUID()
+            .toString();
+        token = UUID.randomUUID()
+            .toString();
+        repository.createNewToken(new PersistentRememberMeToken("admin", series, token, new Date()));
+
+        // The first request uses a cookie built by hand
+        request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(COOKIE_NAME, encode(series, token)));
+        response = new MockHttpServletResponse();
+        services.autoLogin(request, response);
+
+        cookie = response.getCookie(COOKIE_NAME)
+            .getValue();
+    }
+
+    /**
+     * Encodes the series and token into a cookie value, as the remember-me services do.
+     *
+     * @param series
+     *            token series
+     * @param token
+     *            token value
+     * @return the cookie value
+     */
+    private final String encode(final String series, final String token) {
+        final String value;
+
+        value = Base64.getEncoder()
+            .encodeToString((series + ":" + token).getBytes(StandardCharsets.UTF_8));
+
+        return value.replace("=", "");
+    }
+
+}
@@ -0,0 +1,183 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.benchmark;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.bernardomg.example.spring.security.mvc.Application;
+
+/**
+ * Benchmarks for the request throughput and latency at high concurrency, running the requests on platform or on
+ * virtual threads.
+ * <p>
+ * Unlike the other benchmarks, the requests are sent through HTTP, so they go through the Tomcat executor. There are
+ * more benchmark threads than Tomcat platform threads, so the requests queue up when using platform threads.
+ * <p>
+ * The requests read the users list from the DB, after logging in once. Keep in mind the in-memory database never
+ * blocks on the network, so it hides most of the gain. For a realistic comparison point the application to a database
+ * server.
+ * <p>
+ * Virtual threads require Java 21, on older JVMs that case fails on setup.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(256)
+public class RequestThreadsBenchmark {
+
+    /**
+     * Pattern to read the CSRF token from the login form.
+     */
+    private static final Pattern           CSRF_PATTERN = Pattern.compile("name=\"_csrf\" value=\"([^\"]+)\"");
+
+    /**
+     * Runs the requests on virtual threads.
+     */
+    @Param({ "false", "true" })
+    public boolean                         virtualThreads;
+
+    /**
+     * Application URL.
+     */
+    private String                         baseUrl;
+
+    /**
+     * HTTP client, keeps the session cookie.
+     */
+    private HttpClient                     client;
+
+    /**
+     * Application context.
+     */
+    private ConfigurableApplicationContext context;
+
+    /**
+     * Request to the users list.
+     */
+    private HttpRequest                    usersRequest;
+
+    /**
+     * Default constructor.
+     */
+    public RequestThreadsBenchmark() {
+        super();
+    }
+
+    /**
+     * Starts the application, and logs in.
+     *
+     * @throws Exception
+     *             if the login fails
+     */
+    @Setup(Level.Trial)
+    public final void setup() throws Exception {
+        final HttpResponse<String> loginPage;
+        final Matcher              csrf;
+        final String               form;
+
+        // Devtools would restart the application
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        // Passed as arguments, so they override the application properties
+        context = new SpringApplicationBuilder(Application.class)
+            .run("--server.port=0", "--spring.devtools.livereload.enabled=false",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1", "--spring.jpa.show-sql=false",
+                "--logging.level.com.bernardomg.example=warn", "--threads.virtual.enabled=" + virtualThreads);
+
+        baseUrl = "http://localhost:" + context.getEnvironment()
+            .getProperty("local.server.port");
+        client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .cookieHandler(new CookieManager())
+            .build();
+
+        // Logs in through the form, the session is kept by the client
+        loginPage = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+            .build(), HttpResponse.BodyHandlers.ofString());
+        csrf = CSRF_PATTERN.matcher(loginPage.body());
+        if (!csrf.find()) {
+            throw new IllegalStateException("Missing CSRF token in the login form");
+        }
+        form = "username=admin&password=1234&_csrf=" + URLEncoder.encode(csrf.group(1), StandardCharsets.UTF_8);
+        client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString(form))
+            .build(), HttpResponse.BodyHandlers.discarding());
+
+        usersRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/users"))
+            .build();
+        if (users() != 200) {
+            throw new IllegalStateException("Login failed, the users list is not accessible");
+        }
+    }
+
+    /**
+     * Stops the application.
+     */
+    @TearDown(Level.Trial)
+    public final void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Request to the users list, which reads the DB.
+     *
+     * @return the response status
+     * @throws Exception
+     *             if the request fails
+     */
+    @Benchmark
+    public final int users() throws Exception {
+        return client.send(usersRequest, HttpResponse.BodyHandlers.discarding())
+            .statusCode();
+    }
+
+}
@@ -0,0 +1,129 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.beans.BeanUtils;
+
+import com.bernardomg.example.spring.security.mvc.domain.user.mapper.UserMapper;
+import com.bernardomg.example.spring.security.mvc.domain.user.model.DtoUserData;
+import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentUser;
+
+/**
+ * Benchmarks for mapping a list of user entities into user data.
+ * <p>
+ * The generated {@link UserMapper} is compared against copying the properties through reflection, which is how the
+ * users were mapped before. Times are given for each user in the list.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class UserMappingBenchmark {
+
+    /**
+     * Number of users in the list.
+     */
+    private static final int     USERS = 10_000;
+
+    /**
+     * Users to map.
+     */
+    private List<PersistentUser> entities;
+
+    /**
+     * Mapper being measured.
+     */
+    private UserMapper           mapper;
+
+    /**
+     * Default constructor.
+     */
+    public UserMappingBenchmark() {
+        super();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(USERS)
+    public final void mapper(final Blackhole blackhole) {
+        for (final PersistentUser entity : entities) {
+            blackhole.consume(mapper.toDto(entity));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(USERS)
+    public final void reflection(final Blackhole blackhole) {
+        DtoUserData user;
+
+        for (final PersistentUser entity : entities) {
+            user = new DtoUserData();
+            BeanUtils.copyProperties(entity, user);
+            blackhole.consume(user);
+        }
+    }
+
+    /**
+     * Creates the mapper and the users.
+     */
+    @Setup(Level.Trial)
+    public final void setup() {
+        PersistentUser entity;
+
+        mapper = Mappers.getMapper(UserMapper.class);
+
+        entities = new ArrayList<>(USERS);
+        for (long i = 0; i < USERS; i++) {
+            entity = new PersistentUser();
+            entity.setId(i);
+            entity.setUsername("user" + i);
+            entity.setName("User " + i);
+            entity.setEmail("user" + i + "@somewhere.com");
+            entity.setPassword("{bcrypt}$2a$04$gV.k/KKIqr3oPySzs..0A.CGn3JqUsRN7mmhDSDJK/jUwJJKqbjFa");
+            entity.setCredentialsExpired(false);
+            entity.setEnabled(true);
+            entity.setExpired(false);
+            entity.setLocked(false);
+            entities.add(entity);
+        }
+    }
+
+}
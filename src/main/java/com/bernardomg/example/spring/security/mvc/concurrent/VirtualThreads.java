@@ -0,0 +1,123 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.concurrent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads.
+ * <p>
+ * The project is compiled for an older Java version than the one which added virtual threads, so these are created
+ * through reflection. When running on a JVM without virtual threads, the methods throw an
+ * {@code IllegalStateException}.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+public final class VirtualThreads {
+
+    /**
+     * Private constructor to avoid initialization.
+     */
+    private VirtualThreads() {
+        super();
+    }
+
+    /**
+     * Checks if the JVM supports virtual threads.
+     *
+     * @return {@code true} if virtual threads are supported, {@code false} otherwise
+     */
+    public static final boolean isSupported() {
+        boolean supported;
+
+        try {
+            newThreadFactory("virtual-check-");
+            supported = true;
+        } catch (final IllegalStateException e) {
+            supported = false;
+        }
+
+        return supported;
+    }
+
+    /**
+     * Returns an executor which runs each task on a new virtual thread.
+     *
+     * @param prefix
+     *            prefix for the thread names
+     * @return an executor using virtual threads
+     * @throws IllegalStateException
+     *             if the JVM doesn't support virtual threads
+     */
+    public static final ExecutorService newThreadPerTaskExecutor(final String prefix) {
+        final ThreadFactory   factory;
+        final ExecutorService executor;
+
+        factory = newThreadFactory(prefix);
+        try {
+            executor = (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                .invoke(null, factory);
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads are not supported by this JVM", e);
+        }
+
+        return executor;
+    }
+
+    /**
+     * Returns a factory for virtual threads. The threads are named with the prefix and a counter.
+     *
+     * @param prefix
+     *            prefix for the thread names
+     * @return a factory for virtual threads
+     * @throws IllegalStateException
+     *             if the JVM doesn't support virtual threads
+     */
+    public static final ThreadFactory newThreadFactory(final String prefix) {
+        final Object        builder;
+        final Object        named;
+        final ThreadFactory factory;
+
+        try {
+            builder = Thread.class.getMethod("ofVirtual")
+                .invoke(null);
+            named = Class.forName("java.lang.Thread$Builder$OfVirtual")
+                .getMethod("name", String.class, long.class)
+                .invoke(builder, prefix, 0L);
+            factory = (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                .getMethod("factory")
+                .invoke(named);
+        } catch (final ReflectiveOperationException e) {
+            // Older JVMs, or preview versions run without enabling the preview
+            throw new IllegalStateException("Virtual threads are not supported by this JVM", e);
+        }
+
+        return factory;
+    }
+
+}
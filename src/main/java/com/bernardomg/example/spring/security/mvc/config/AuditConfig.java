@@ -26,8 +26,16 @@
 
 import org.springframework.boot.actuate.audit.AuditEventRepository;
 import org.springframework.boot.actuate.audit.InMemoryAuditEventRepository;
+import org.springframework.boot.actuate.audit.listener.AuditListener;
+import org.springframework.boot.actuate.security.AuthenticationAuditListener;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.bernardomg.example.spring.security.mvc.security.audit.AsyncJdbcAuditEventRepository;
+import com.bernardomg.example.spring.security.mvc.security.property.AuditProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Audit configuration.
@@ -36,6 +44,7 @@
  *
  */
 @Configuration
+@EnableConfigurationProperties(AuditProperties.class)
 public class AuditConfig {
 
     /**
@@ -46,8 +55,28 @@ public AuditConfig() {
     }
 
     @Bean("auditEventRepository")
-    public AuditEventRepository getAuditEventRepository() {
-        return new InMemoryAuditEventRepository();
+    public AuditEventRepository getAuditEventRepository(final AuditProperties properties,
+            final JdbcTemplate jdbcTemplate, final ObjectMapper objectMapper) {
+        final AuditEventRepository repository;
+
+        if (properties.isPersistent()) {
+            repository = new AsyncJdbcAuditEventRepository(jdbcTemplate, objectMapper, properties.getQueueSize(),
+                properties.getBatchSize(), properties.getFlushInterval());
+        } else {
+            repository = new InMemoryAuditEventRepository();
+        }
+
+        return repository;
+    }
+
+    @Bean("auditListener")
+    public AuditListener getAuditListener(final AuditEventRepository auditEventRepository) {
+        return new AuditListener(auditEventRepository);
+    }
+
+    @Bean("authenticationAuditListener")
+    public AuthenticationAuditListener getAuthenticationAuditListener() {
+        return new AuthenticationAuditListener();
     }
 
 }
@@ -0,0 +1,70 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.bernardomg.example.spring.security.mvc.security.authority.AuthoritiesResolver;
+import com.bernardomg.example.spring.security.mvc.security.authority.PersistentAuthoritiesResolver;
+import com.bernardomg.example.spring.security.mvc.security.authority.RoleGraphAuthoritiesResolver;
+import com.bernardomg.example.spring.security.mvc.security.property.RoleGraphProperties;
+import com.bernardomg.example.spring.security.mvc.security.user.repository.PrivilegeRepository;
+import com.bernardomg.example.spring.security.mvc.security.user.repository.RoleRepository;
+
+/**
+ * Authorities configuration.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Configuration
+@EnableConfigurationProperties(RoleGraphProperties.class)
+public class AuthoritiesConfig {
+
+    public AuthoritiesConfig() {
+        super();
+    }
+
+    @Bean("authoritiesResolver")
+    public AuthoritiesResolver getAuthoritiesResolver(final RoleGraphProperties properties,
+            final RoleRepository roleRepository, final PrivilegeRepository privilegeRepository) {
+        final AuthoritiesResolver          resolver;
+        final RoleGraphAuthoritiesResolver roleGraphResolver;
+
+        if (properties.isEnabled()) {
+            roleGraphResolver = new RoleGraphAuthoritiesResolver(roleRepository, privilegeRepository);
+            // The graph is loaded at startup
+            roleGraphResolver.reload();
+            resolver = roleGraphResolver;
+        } else {
+            resolver = new PersistentAuthoritiesResolver(privilegeRepository);
+        }
+
+        return resolver;
+    }
+
+}
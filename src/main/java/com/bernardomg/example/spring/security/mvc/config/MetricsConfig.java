@@ -0,0 +1,232 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.config;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.audit.AuditEventRepository;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.web.authentication.rememberme.PersistentTokenRepository;
+
+import com.bernardomg.example.spring.security.mvc.security.audit.AsyncJdbcAuditEventRepository;
+import com.bernardomg.example.spring.security.mvc.security.authority.AuthoritiesResolver;
+import com.bernardomg.example.spring.security.mvc.security.authority.RoleGraphAuthoritiesResolver;
+import com.bernardomg.example.spring.security.mvc.security.oauth.CaffeineOAuthUserCache;
+import com.bernardomg.example.spring.security.mvc.security.oauth.CircuitBreakers;
+import com.bernardomg.example.spring.security.mvc.security.oauth.OAuthUserCache;
+import com.bernardomg.example.spring.security.mvc.security.rememberme.ExpiredTokenReaper;
+import com.bernardomg.example.spring.security.mvc.security.rememberme.WriteBehindTokenRepository;
+import com.bernardomg.example.spring.security.mvc.security.throttle.LoginAttemptTracker;
+import com.bernardomg.example.spring.security.mvc.security.userdetails.CaffeineUserCache;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Metrics configuration.
+ * <p>
+ * Registers the aspect for the {@code @Timed} annotations, and binds the statistics kept by the security components to
+ * meters. Components which are disabled, and replaced by the Spring implementations, have no meters.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Default constructor.
+     */
+    public MetricsConfig() {
+        super();
+    }
+
+    @Bean("auditMetrics")
+    public MeterBinder getAuditMetrics(final AuditEventRepository repository) {
+        return registry -> {
+            final AsyncJdbcAuditEventRepository asyncRepository;
+
+            if (repository instanceof AsyncJdbcAuditEventRepository) {
+                asyncRepository = (AsyncJdbcAuditEventRepository) repository;
+                FunctionCounter
+                    .builder("security.audit.events.written", asyncRepository,
+                        AsyncJdbcAuditEventRepository::getWrittenEvents)
+                    .description("Audit events written")
+                    .register(registry);
+                FunctionCounter
+                    .builder("security.audit.events.dropped", asyncRepository,
+                        AsyncJdbcAuditEventRepository::getDroppedEvents)
+                    .description("Audit events dropped")
+                    .register(registry);
+                Gauge.builder("security.audit.events.queued", asyncRepository,
+                    AsyncJdbcAuditEventRepository::getQueuedEvents)
+                    .description("Audit events waiting to be written")
+                    .register(registry);
+            }
+        };
+    }
+
+    @Bean("authoritiesMetrics")
+    public MeterBinder getAuthoritiesMetrics(final AuthoritiesResolver resolver) {
+        return registry -> {
+            if (resolver instanceof RoleGraphAuthoritiesResolver) {
+                Gauge.builder("security.authorities.roles", (RoleGraphAuthoritiesResolver) resolver,
+                    RoleGraphAuthoritiesResolver::getRoleCount)
+                    .description("Roles in the role graph")
+                    .register(registry);
+            }
+        };
+    }
+
+    @Bean("loginThrottleMetrics")
+    public MeterBinder getLoginThrottleMetrics(final LoginAttemptTracker tracker) {
+        return registry -> {
+            FunctionCounter.builder("security.login.throttled", tracker, LoginAttemptTracker::getThrottledLogins)
+                .description("Logins rejected for too many failures")
+                .register(registry);
+            Gauge.builder("security.login.tracked", tracker, LoginAttemptTracker::getTrackedUsernames)
+                .description("Keys with failed logins being tracked")
+                .tag("key", "username")
+                .register(registry);
+            Gauge.builder("security.login.tracked", tracker, LoginAttemptTracker::getTrackedAddresses)
+                .description("Keys with failed logins being tracked")
+                .tag("key", "address")
+                .register(registry);
+        };
+    }
+
+    @Bean("oAuthClientMetrics")
+    public MeterBinder getOAuthClientMetrics(final CircuitBreakers circuitBreakers) {
+        return registry -> {
+            Gauge.builder("security.oauth.client.circuit.open", circuitBreakers, CircuitBreakers::getOpenCount)
+                .description("OAuth provider hosts with the circuit open")
+                .register(registry);
+            FunctionCounter
+                .builder("security.oauth.client.circuit.rejected", circuitBreakers, CircuitBreakers::getRejectedCount)
+                .description("OAuth provider requests rejected by the open circuit")
+                .register(registry);
+        };
+    }
+
+    @Bean("oAuthUserCacheMetrics")
+    public MeterBinder getOAuthUserCacheMetrics(final OAuthUserCache oAuthUserCache) {
+        return registry -> {
+            final CaffeineOAuthUserCache cache;
+
+            if (oAuthUserCache instanceof CaffeineOAuthUserCache) {
+                cache = (CaffeineOAuthUserCache) oAuthUserCache;
+                FunctionCounter.builder("security.oauth.cache.gets", cache, CaffeineOAuthUserCache::getHitCount)
+                    .description("OAuth user cache reads")
+                    .tag("result", "hit")
+                    .register(registry);
+                FunctionCounter.builder("security.oauth.cache.gets", cache, CaffeineOAuthUserCache::getMissCount)
+                    .description("OAuth user cache reads")
+                    .tag("result", "miss")
+                    .register(registry);
+                FunctionCounter
+                    .builder("security.oauth.cache.evictions", cache, CaffeineOAuthUserCache::getEvictionCount)
+                    .description("OAuth users evicted from the cache")
+                    .register(registry);
+                Gauge.builder("security.oauth.cache.size", cache, CaffeineOAuthUserCache::getSize)
+                    .description("OAuth users in the cache")
+                    .register(registry);
+            }
+        };
+    }
+
+    @Bean("passwordHashingMetrics")
+    public MeterBinder getPasswordHashingMetrics(
+            @Qualifier("passwordHashingExecutor") final ExecutorService executor) {
+        return new ExecutorServiceMetrics(executor, "passwordHashing", Collections.emptyList());
+    }
+
+    @Bean("rememberMeMetrics")
+    public MeterBinder getRememberMeMetrics(final PersistentTokenRepository tokenRepository,
+            final ExpiredTokenReaper reaper) {
+        return registry -> {
+            final WriteBehindTokenRepository writeBehindRepository;
+
+            if (tokenRepository instanceof WriteBehindTokenRepository) {
+                writeBehindRepository = (WriteBehindTokenRepository) tokenRepository;
+                Gauge.builder("security.rememberme.tokens.active", writeBehindRepository,
+                    WriteBehindTokenRepository::getActiveTokens)
+                    .description("Remember-me tokens in memory")
+                    .register(registry);
+                Gauge.builder("security.rememberme.tokens.pending", writeBehindRepository,
+                    WriteBehindTokenRepository::getPendingUpdates)
+                    .description("Remember-me token updates waiting to be written")
+                    .register(registry);
+            }
+
+            FunctionCounter.builder("security.rememberme.reaper.runs", reaper, ExpiredTokenReaper::getRuns)
+                .description("Expired token purges run")
+                .register(registry);
+            FunctionCounter
+                .builder("security.rememberme.reaper.purged", reaper, ExpiredTokenReaper::getTotalPurged)
+                .description("Expired tokens deleted")
+                .register(registry);
+        };
+    }
+
+    @Bean("timedAspect")
+    public TimedAspect getTimedAspect(final MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean("userCacheMetrics")
+    public MeterBinder getUserCacheMetrics(final UserCache userCache) {
+        return registry -> {
+            final CaffeineUserCache cache;
+
+            if (userCache instanceof CaffeineUserCache) {
+                cache = (CaffeineUserCache) userCache;
+                FunctionCounter.builder("security.user.cache.gets", cache, CaffeineUserCache::getHitCount)
+                    .description("User cache reads")
+                    .tag("result", "hit")
+                    .register(registry);
+                FunctionCounter.builder("security.user.cache.gets", cache, CaffeineUserCache::getMissCount)
+                    .description("User cache reads")
+                    .tag("result", "miss")
+                    .register(registry);
+                FunctionCounter
+                    .builder("security.user.cache.evictions", cache, CaffeineUserCache::getEvictionCount)
+                    .description("Users evicted from the cache")
+                    .register(registry);
+                Gauge.builder("security.user.cache.size", cache, CaffeineUserCache::getSize)
+                    .description("Users in the cache")
+                    .register(registry);
+            }
+        };
+    }
+
+}
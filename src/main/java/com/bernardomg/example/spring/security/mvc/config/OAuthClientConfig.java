@@ -0,0 +1,140 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.config;
+
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.security.oauth2.client.endpoint.DefaultAuthorizationCodeTokenResponseClient;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AccessTokenResponseClient;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AuthorizationCodeGrantRequest;
+import org.springframework.security.oauth2.client.http.OAuth2ErrorResponseErrorHandler;
+import org.springframework.security.oauth2.core.http.converter.OAuth2AccessTokenResponseHttpMessageConverter;
+import org.springframework.web.client.RestOperations;
+import org.springframework.web.client.RestTemplate;
+
+import com.bernardomg.example.spring.security.mvc.security.oauth.CircuitBreakers;
+import com.bernardomg.example.spring.security.mvc.security.oauth.CircuitBreakerInterceptor;
+import com.bernardomg.example.spring.security.mvc.security.property.OAuthCircuitBreakerProperties;
+import com.bernardomg.example.spring.security.mvc.security.property.OAuthClientProperties;
+
+/**
+ * OAUTH provider client configuration.
+ * <p>
+ * The token and user info endpoints are called through a pooled HTTP client, with timeouts for every step and a circuit
+ * breaker for each provider host. This way a slow provider can't keep the request threads waiting, and a failing
+ * provider doesn't block the logins through the others.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Configuration
+@EnableConfigurationProperties({ OAuthClientProperties.class, OAuthCircuitBreakerProperties.class })
+public class OAuthClientConfig {
+
+    public OAuthClientConfig() {
+        super();
+    }
+
+    @Bean("oAuthAccessTokenResponseClient")
+    public OAuth2AccessTokenResponseClient<OAuth2AuthorizationCodeGrantRequest> getAccessTokenResponseClient(
+            @Qualifier("oAuthRestTemplate") final RestOperations restTemplate) {
+        final DefaultAuthorizationCodeTokenResponseClient client;
+
+        client = new DefaultAuthorizationCodeTokenResponseClient();
+        client.setRestOperations(restTemplate);
+
+        return client;
+    }
+
+    @Bean("oAuthCircuitBreakers")
+    public CircuitBreakers getCircuitBreakers(final OAuthCircuitBreakerProperties properties) {
+        return new CircuitBreakers(properties.getFailureThreshold(), properties.getOpenDuration());
+    }
+
+    @Bean("oAuthRequestFactory")
+    public HttpComponentsClientHttpRequestFactory getRequestFactory(final OAuthClientProperties properties) {
+        final PoolingHttpClientConnectionManager connectionManager;
+        final RequestConfig                      requestConfig;
+        final CloseableHttpClient                client;
+
+        connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(properties.getMaxConnections())
+            .setMaxConnPerRoute(properties.getMaxConnectionsPerRoute())
+            .build();
+
+        // Waiting for a pooled connection is also bounded, so a saturated pool fails fast
+        requestConfig = RequestConfig.custom()
+            .setConnectTimeout(Timeout.ofMilliseconds(properties.getConnectTimeout()
+                .toMillis()))
+            .setConnectionRequestTimeout(Timeout.ofMilliseconds(properties.getConnectionRequestTimeout()
+                .toMillis()))
+            .setResponseTimeout(Timeout.ofMilliseconds(properties.getReadTimeout()
+                .toMillis()))
+            .build();
+
+        client = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(requestConfig)
+            .evictExpiredConnections()
+            .evictIdleConnections(TimeValue.ofMilliseconds(properties.getIdleTimeout()
+                .toMillis()))
+            .build();
+
+        return new HttpComponentsClientHttpRequestFactory(client);
+    }
+
+    @Bean("oAuthRestTemplate")
+    public RestTemplate getRestTemplate(
+            @Qualifier("oAuthRequestFactory") final ClientHttpRequestFactory requestFactory,
+            final CircuitBreakers circuitBreakers, final OAuthCircuitBreakerProperties properties) {
+        final RestTemplate restTemplate;
+
+        restTemplate = new RestTemplate(requestFactory);
+
+        // Reads the token responses, and the provider errors
+        restTemplate.getMessageConverters()
+            .add(0, new OAuth2AccessTokenResponseHttpMessageConverter());
+        restTemplate.setErrorHandler(new OAuth2ErrorResponseErrorHandler());
+
+        if (properties.isEnabled()) {
+            restTemplate.getInterceptors()
+                .add(new CircuitBreakerInterceptor(circuitBreakers));
+        }
+
+        return restTemplate;
+    }
+
+}
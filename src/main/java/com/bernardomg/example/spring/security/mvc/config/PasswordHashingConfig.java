@@ -0,0 +1,116 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.bernardomg.example.spring.security.mvc.security.property.PasswordEncodingProperties;
+import com.bernardomg.example.spring.security.mvc.security.property.PasswordHashingProperties;
+
+/**
+ * Password hashing configuration.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Configuration
+@EnableConfigurationProperties({ PasswordHashingProperties.class, PasswordEncodingProperties.class })
+public class PasswordHashingConfig {
+
+    /**
+     * Maximum number of password upgrades waiting to be persisted.
+     */
+    private static final int UPGRADE_QUEUE_SIZE = 256;
+
+    public PasswordHashingConfig() {
+        super();
+    }
+
+    @Bean(name = "passwordHashingExecutor", destroyMethod = "shutdown")
+    public ExecutorService getPasswordHashingExecutor(final PasswordHashingProperties properties) {
+        final int                     threads;
+        final BlockingQueue<Runnable> queue;
+
+        if (properties.getThreads() > 0) {
+            threads = properties.getThreads();
+        } else {
+            threads = Runtime.getRuntime()
+                .availableProcessors();
+        }
+
+        if (properties.getQueueSize() > 0) {
+            queue = new ArrayBlockingQueue<>(properties.getQueueSize());
+        } else {
+            // No queue, work is only accepted when there is a free thread
+            queue = new SynchronousQueue<>();
+        }
+
+        // Saturation rejects the work, instead of running it on the caller thread
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue,
+            new CustomizableThreadFactory("password-hashing-"), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Bean(name = "passwordImportExecutor", destroyMethod = "shutdown")
+    public ExecutorService getPasswordImportExecutor() {
+        final int threads;
+
+        // Half the cores, so the logins still get CPU while an import runs
+        threads = Math.max(1, Runtime.getRuntime()
+            .availableProcessors() / 2);
+
+        // Imports queue their work, instead of being rejected like the logins
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("password-import-"));
+    }
+
+    @Bean(name = "passwordUpgradeExecutor")
+    public Executor getPasswordUpgradeExecutor(final PasswordEncodingProperties properties) {
+        final Executor executor;
+
+        if (properties.isUpgradeAsync()) {
+            // Upgrades which don't fit are dropped, they will be tried again on the next login
+            executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(UPGRADE_QUEUE_SIZE), new CustomizableThreadFactory("password-upgrade-"),
+                new ThreadPoolExecutor.DiscardPolicy());
+        } else {
+            executor = new SyncTaskExecutor();
+        }
+
+        return executor;
+    }
+
+}
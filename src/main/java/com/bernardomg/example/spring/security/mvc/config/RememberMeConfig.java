@@ -25,9 +25,16 @@
 package com.bernardomg.example.spring.security.mvc.config;
 
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.web.authentication.rememberme.JdbcTokenRepositoryImpl;
+import org.springframework.security.web.authentication.rememberme.PersistentTokenRepository;
 
 import com.bernardomg.example.spring.security.mvc.security.property.RememberMeProperties;
+import com.bernardomg.example.spring.security.mvc.security.property.RememberMeReaperProperties;
+import com.bernardomg.example.spring.security.mvc.security.rememberme.ExpiredTokenReaper;
+import com.bernardomg.example.spring.security.mvc.security.rememberme.WriteBehindTokenRepository;
 
 /**
  * Remember me configuration.
@@ -36,11 +43,35 @@
  *
  */
 @Configuration
-@EnableConfigurationProperties(RememberMeProperties.class)
+@EnableConfigurationProperties({ RememberMeProperties.class, RememberMeReaperProperties.class })
 public class RememberMeConfig {
 
     public RememberMeConfig() {
         super();
     }
 
+    @Bean("expiredTokenReaper")
+    public ExpiredTokenReaper getExpiredTokenReaper(final RememberMeProperties properties,
+            final RememberMeReaperProperties reaperProperties, final JdbcTemplate jdbcTemplate) {
+        return new ExpiredTokenReaper(jdbcTemplate, properties.getTokenValidity(), reaperProperties.getBatchSize());
+    }
+
+    @Bean("tokenRepository")
+    public PersistentTokenRepository getTokenRepository(final RememberMeProperties properties,
+            final JdbcTemplate jdbcTemplate) {
+        final PersistentTokenRepository repository;
+        final JdbcTokenRepositoryImpl   jdbcRepository;
+
+        if (properties.isWriteBehind()) {
+            repository = new WriteBehindTokenRepository(jdbcTemplate, properties.getTokenValidity(),
+                properties.getFlushInterval());
+        } else {
+            jdbcRepository = new JdbcTokenRepositoryImpl();
+            jdbcRepository.setJdbcTemplate(jdbcTemplate);
+            repository = jdbcRepository;
+        }
+
+        return repository;
+    }
+
 }
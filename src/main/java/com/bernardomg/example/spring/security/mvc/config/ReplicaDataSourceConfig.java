@@ -0,0 +1,86 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.bernardomg.example.spring.security.mvc.persistence.ReadOnlyRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Read replica configuration.
+ * <p>
+ * When enabled, there are two connection pools. The primary one is configured as usual, through the
+ * 'spring.datasource' properties. The replica one is configured through the 'datasource.replica.hikari' properties.
+ * Read-only transactions are sent to the replica, and the rest to the primary database.
+ * <p>
+ * When disabled, Spring Boot creates the single data source.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.replica", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    /**
+     * Default constructor.
+     */
+    public ReplicaDataSourceConfig() {
+        super();
+    }
+
+    @Bean("dataSource")
+    @Primary
+    public DataSource getDataSource(@Qualifier("primaryDataSource") final DataSource primary,
+            @Qualifier("replicaDataSource") final DataSource replica) {
+        // The route is chosen on the first statement, once the transaction is marked as read-only
+        return new LazyConnectionDataSourceProxy(new ReadOnlyRoutingDataSource(primary, replica));
+    }
+
+    @Bean(name = "primaryDataSource", destroyMethod = "close")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource getPrimaryDataSource(final DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .build();
+    }
+
+    @Bean(name = "replicaDataSource", destroyMethod = "close")
+    @ConfigurationProperties("datasource.replica.hikari")
+    public HikariDataSource getReplicaDataSource() {
+        return new HikariDataSource();
+    }
+
+}
@@ -0,0 +1,90 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+import com.bernardomg.example.spring.security.mvc.security.authority.AuthoritiesResolver;
+import com.bernardomg.example.spring.security.mvc.security.authority.RoleGraphAuthoritiesResolver;
+import com.bernardomg.example.spring.security.mvc.security.property.RememberMeReaperProperties;
+import com.bernardomg.example.spring.security.mvc.security.property.RoleGraphProperties;
+import com.bernardomg.example.spring.security.mvc.security.rememberme.ExpiredTokenReaper;
+
+/**
+ * Scheduled tasks configuration.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig implements SchedulingConfigurer {
+
+    /**
+     * Authorities resolver. The role graph is reloaded periodically.
+     */
+    @Autowired
+    private AuthoritiesResolver        authoritiesResolver;
+
+    /**
+     * Expired remember-me tokens reaper.
+     */
+    @Autowired
+    private ExpiredTokenReaper         expiredTokenReaper;
+
+    /**
+     * Expired remember-me tokens reaper properties.
+     */
+    @Autowired
+    private RememberMeReaperProperties reaperProperties;
+
+    /**
+     * Role graph properties.
+     */
+    @Autowired
+    private RoleGraphProperties        roleGraphProperties;
+
+    public SchedulingConfig() {
+        super();
+    }
+
+    @Override
+    public void configureTasks(final ScheduledTaskRegistrar registrar) {
+        if (reaperProperties.isEnabled()) {
+            registrar.addFixedDelayTask(expiredTokenReaper, reaperProperties.getInterval());
+        }
+        if (authoritiesResolver instanceof RoleGraphAuthoritiesResolver) {
+            // The graph is already loaded on startup
+            registrar.addFixedDelayTask(new FixedDelayTask(((RoleGraphAuthoritiesResolver) authoritiesResolver)::reload,
+                roleGraphProperties.getRefreshInterval(), roleGraphProperties.getRefreshInterval()));
+        }
+    }
+
+}
@@ -24,28 +24,37 @@
 
 package com.bernardomg.example.spring.security.mvc.config;
 
-import javax.sql.DataSource;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.authentication.AuthenticationManagerFactoryBean;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserService;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.security.web.authentication.RememberMeServices;
-import org.springframework.security.web.authentication.rememberme.JdbcTokenRepositoryImpl;
 import org.springframework.security.web.authentication.rememberme.PersistentTokenBasedRememberMeServices;
 import org.springframework.security.web.authentication.rememberme.PersistentTokenRepository;
 import org.springframework.security.web.authentication.rememberme.RememberMeAuthenticationFilter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.client.RestOperations;
 
+import com.bernardomg.example.spring.security.mvc.security.authority.AuthoritiesResolver;
+import com.bernardomg.example.spring.security.mvc.security.oauth.OAuthUserCache;
 import com.bernardomg.example.spring.security.mvc.security.oauth.RegisterOAuth2UserService;
+import com.bernardomg.example.spring.security.mvc.security.password.BoundedPasswordEncoder;
+import com.bernardomg.example.spring.security.mvc.security.password.PasswordEncoderFactory;
+import com.bernardomg.example.spring.security.mvc.security.property.PasswordEncodingProperties;
+import com.bernardomg.example.spring.security.mvc.security.property.PasswordHashingProperties;
 import com.bernardomg.example.spring.security.mvc.security.property.RememberMeProperties;
-import com.bernardomg.example.spring.security.mvc.security.user.repository.PrivilegeRepository;
 import com.bernardomg.example.spring.security.mvc.security.user.repository.RoleRepository;
 import com.bernardomg.example.spring.security.mvc.security.user.repository.UserRepository;
 import com.bernardomg.example.spring.security.mvc.security.userdetails.PersistentUserDetailsService;
@@ -71,26 +80,36 @@ public AuthenticationManagerFactoryBean getAuthenticationManagerFactoryBean() {
         return new AuthenticationManagerFactoryBean();
     }
 
-    @Bean("jdbcTokenRepository")
-    public PersistentTokenRepository getJdbcTokenRepository(final DataSource dataSource) {
-        final JdbcTokenRepositoryImpl repo;
-
-        repo = new JdbcTokenRepositoryImpl();
-
-        repo.setDataSource(dataSource);
-
-        return repo;
-    }
-
     @Bean("oAuth2UserService")
     public OAuth2UserService<OAuth2UserRequest, OAuth2User> getOAuth2UserService(final UserRepository userRepo,
-            final RoleRepository roleRepo, final PrivilegeRepository privilegeRepo) {
-        return new RegisterOAuth2UserService(userRepo, roleRepo, privilegeRepo);
+            final RoleRepository roleRepo, final AuthoritiesResolver authoritiesResolver,
+            final OAuthUserCache oAuthUserCache, final PlatformTransactionManager transactionManager,
+            @Qualifier("oAuthRestTemplate") final RestOperations oAuthRestTemplate) {
+        final DefaultOAuth2UserService userInfoService;
+
+        // User info is read through the pooled client
+        userInfoService = new DefaultOAuth2UserService();
+        userInfoService.setRestOperations(oAuthRestTemplate);
+
+        return new RegisterOAuth2UserService(userInfoService, userRepo, roleRepo, authoritiesResolver, oAuthUserCache,
+            transactionManager);
     }
 
     @Bean("passwordEncoder")
-    public PasswordEncoder getPasswordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder getPasswordEncoder(final PasswordEncodingProperties encodingProperties,
+            final PasswordHashingProperties hashingProperties,
+            @Qualifier("passwordHashingExecutor") final ExecutorService executor) {
+        final PasswordEncoder encoder;
+        final PasswordEncoder delegating;
+
+        delegating = PasswordEncoderFactory.getPasswordEncoder(encodingProperties);
+        if (hashingProperties.isEnabled()) {
+            encoder = new BoundedPasswordEncoder(delegating, executor, hashingProperties.getRetryAfter());
+        } else {
+            encoder = delegating;
+        }
+
+        return encoder;
     }
 
     @Bean("rememberMeFilter")
@@ -102,13 +121,21 @@ public Filter getRememberMeFilter(final AuthenticationManager authenticationMana
     @Bean("rememberMeServices")
     public RememberMeServices getRememberMeServices(final RememberMeProperties properties,
             final UserDetailsService userDetailsService, final PersistentTokenRepository tokenRepository) {
-        return new PersistentTokenBasedRememberMeServices(properties.getKey(), userDetailsService, tokenRepository);
+        final PersistentTokenBasedRememberMeServices services;
+
+        services = new PersistentTokenBasedRememberMeServices(properties.getKey(), userDetailsService,
+            tokenRepository);
+        services.setTokenValiditySeconds((int) properties.getTokenValidity()
+            .toSeconds());
+
+        return services;
     }
 
     @Bean("userDetailsService")
     public UserDetailsService getUserDetailsService(final UserRepository userRepository,
-            final PrivilegeRepository privilegeRepository) {
-        return new PersistentUserDetailsService(userRepository, privilegeRepository);
+            final AuthoritiesResolver authoritiesResolver, final UserCache userCache,
+            @Qualifier("passwordUpgradeExecutor") final Executor upgradeExecutor) {
+        return new PersistentUserDetailsService(userRepository, authoritiesResolver, userCache, upgradeExecutor);
     }
 
 }
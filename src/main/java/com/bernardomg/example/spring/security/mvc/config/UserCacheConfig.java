@@ -0,0 +1,80 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.cache.NullUserCache;
+
+import com.bernardomg.example.spring.security.mvc.security.oauth.CaffeineOAuthUserCache;
+import com.bernardomg.example.spring.security.mvc.security.oauth.NullOAuthUserCache;
+import com.bernardomg.example.spring.security.mvc.security.oauth.OAuthUserCache;
+import com.bernardomg.example.spring.security.mvc.security.property.OAuthUserCacheProperties;
+import com.bernardomg.example.spring.security.mvc.security.property.UserCacheProperties;
+import com.bernardomg.example.spring.security.mvc.security.userdetails.CaffeineUserCache;
+
+/**
+ * User caches configuration.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Configuration
+@EnableConfigurationProperties({ UserCacheProperties.class, OAuthUserCacheProperties.class })
+public class UserCacheConfig {
+
+    public UserCacheConfig() {
+        super();
+    }
+
+    @Bean("oAuthUserCache")
+    public OAuthUserCache getOAuthUserCache(final OAuthUserCacheProperties properties) {
+        final OAuthUserCache cache;
+
+        if (properties.isEnabled()) {
+            cache = new CaffeineOAuthUserCache(properties.getMaxSize(), properties.getTtl());
+        } else {
+            cache = new NullOAuthUserCache();
+        }
+
+        return cache;
+    }
+
+    @Bean("userCache")
+    public UserCache getUserCache(final UserCacheProperties properties) {
+        final UserCache cache;
+
+        if (properties.isEnabled()) {
+            cache = new CaffeineUserCache(properties.getMaxSize(), properties.getTtl());
+        } else {
+            cache = new NullUserCache();
+        }
+
+        return cache;
+    }
+
+}
@@ -0,0 +1,88 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.config;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import com.bernardomg.example.spring.security.mvc.concurrent.VirtualThreads;
+
+/**
+ * Virtual threads configuration.
+ * <p>
+ * When enabled, the servlet requests and the application task executor run on virtual threads. The event listeners,
+ * including the audit ones, run on the thread which publishes the event, so they also use virtual threads.
+ * <p>
+ * The background writers and the password hashing keep their platform threads. The writers are a single thread each,
+ * and hashing is bound by the CPU, so they wouldn't gain anything.
+ * <p>
+ * This requires a JVM with virtual threads, otherwise the application fails on startup.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "threads.virtual", name = "enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    /**
+     * Default constructor.
+     */
+    public VirtualThreadsConfig() {
+        super();
+    }
+
+    @Bean("applicationTaskExecutor")
+    public AsyncTaskExecutor
+            getApplicationTaskExecutor(@Qualifier("applicationTaskExecutorService") final ExecutorService executor) {
+        return new TaskExecutorAdapter(executor);
+    }
+
+    @Bean(name = "applicationTaskExecutorService", destroyMethod = "shutdown")
+    public ExecutorService getApplicationTaskExecutorService() {
+        // Kept as its own bean, as the adapter doesn't shut it down
+        return VirtualThreads.newThreadPerTaskExecutor("task-");
+    }
+
+    @Bean("virtualThreadsProtocolHandlerCustomizer")
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler>
+            getProtocolHandlerCustomizer(@Qualifier("requestExecutor") final ExecutorService executor) {
+        return handler -> handler.setExecutor(executor);
+    }
+
+    @Bean(name = "requestExecutor", destroyMethod = "shutdown")
+    public ExecutorService getRequestExecutor() {
+        return VirtualThreads.newThreadPerTaskExecutor("request-");
+    }
+
+}
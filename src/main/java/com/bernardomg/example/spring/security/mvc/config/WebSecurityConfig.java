@@ -25,8 +25,10 @@
 package com.bernardomg.example.spring.security.mvc.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -35,8 +37,19 @@
 import org.springframework.security.config.annotation.web.configurers.LogoutConfigurer;
 import org.springframework.security.config.annotation.web.configurers.RememberMeConfigurer;
 import org.springframework.security.config.annotation.web.configurers.oauth2.client.OAuth2LoginConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AccessTokenResponseClient;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AuthorizationCodeGrantRequest;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.RememberMeServices;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+
+import com.bernardomg.example.spring.security.mvc.security.password.PasswordHashingRejectedFilter;
+import com.bernardomg.example.spring.security.mvc.security.property.LoginThrottleProperties;
+import com.bernardomg.example.spring.security.mvc.security.throttle.LoginAttemptTracker;
+import com.bernardomg.example.spring.security.mvc.security.throttle.LoginThrottlingFilter;
 
 /**
  * Security configuration.
@@ -48,11 +61,35 @@
 @EnableWebSecurity
 public class WebSecurityConfig {
 
+    /**
+     * Client for the OAUTH token endpoint.
+     */
+    @Autowired
+    private OAuth2AccessTokenResponseClient<OAuth2AuthorizationCodeGrantRequest> accessTokenResponseClient;
+
+    /**
+     * Tracker for the failed logins.
+     */
+    @Autowired
+    private LoginAttemptTracker                                                  loginAttemptTracker;
+
+    /**
+     * Login throttling properties.
+     */
+    @Autowired
+    private LoginThrottleProperties                                              loginThrottleProperties;
+
+    /**
+     * Remember-me services.
+     */
+    @Autowired
+    private RememberMeServices                                                   rememberMeServices;
+
     /**
      * User details service.
      */
     @Autowired
-    private UserDetailsService userDetailsService;
+    private UserDetailsService                                                   userDetailsService;
 
     public WebSecurityConfig() {
         super();
@@ -81,10 +118,12 @@ public SecurityFilterChain filterChain(final HttpSecurity http) throws Exception
             .logoutSuccessUrl("/");
 
         // Remember me
-        // One day
-        rememberMeCustomizer = c -> c.tokenValiditySeconds(24 * 60 * 60);
+        // Persistent tokens, the validity is set in the services
+        rememberMeCustomizer = c -> c.rememberMeServices(rememberMeServices);
         // OAUTH2
-        oauth2LoginCustomizer = c -> c.loginPage("/login");
+        // The token is requested through the pooled client
+        oauth2LoginCustomizer = c -> c.loginPage("/login")
+            .tokenEndpoint(t -> t.accessTokenResponseClient(accessTokenResponseClient));
 
         http.authorizeHttpRequests(authorizeRequestsCustomizer)
             .formLogin(formLoginCustomizer)
@@ -92,6 +131,45 @@ public SecurityFilterChain filterChain(final HttpSecurity http) throws Exception
             .rememberMe(rememberMeCustomizer)
             .oauth2Login(oauth2LoginCustomizer);
 
+        // Logins with too many failures are answered with a 429, before reading the user
+        if (loginThrottleProperties.isEnabled()) {
+            http.addFilterBefore(new LoginThrottlingFilter("/login", loginAttemptTracker),
+                UsernamePasswordAuthenticationFilter.class);
+        }
+
+        // Saturated password hashing is answered with a 503
+        http.addFilterBefore(new PasswordHashingRejectedFilter(), UsernamePasswordAuthenticationFilter.class);
+
+        http.userDetailsService(userDetailsService);
+
+        return http.build();
+    }
+
+    /**
+     * Security for the Prometheus endpoint. It is checked before the main filter chain.
+     * <p>
+     * The metrics include user counts and cache statistics, so scraping them requires the READ_METRICS privilege.
+     * Scrapers can't go through the login form, so they authenticate with HTTP basic on each request, and no session
+     * is created.
+     *
+     * @param http
+     *            HTTP security to configure
+     * @return the security filter chain for the Prometheus endpoint
+     * @throws Exception
+     *             if the filter chain can't be built
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain metricsFilterChain(final HttpSecurity http) throws Exception {
+        http.securityMatcher(EndpointRequest.to("prometheus"))
+            .authorizeHttpRequests(c -> c.anyRequest()
+                .hasAuthority("READ_METRICS"))
+            .httpBasic(Customizer.withDefaults())
+            .sessionManagement(c -> c.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+
+        // Saturated password hashing is answered with a 503
+        http.addFilterBefore(new PasswordHashingRejectedFilter(), BasicAuthenticationFilter.class);
+
         http.userDetailsService(userDetailsService);
 
         return http.build();
@@ -105,6 +183,12 @@ public SecurityFilterChain filterChain(final HttpSecurity http) throws Exception
     private final Customizer<AuthorizeHttpRequestsConfigurer<HttpSecurity>.AuthorizationManagerRequestMatcherRegistry>
             getAuthorizeRequestsCustomizer() {
         return c -> c.requestMatchers("/static/**", "/login*")
+            .permitAll()
+            // Audit events contain the remote addresses of other users
+            .requestMatchers("/audit", "/audit/**")
+            .hasAuthority("READ_AUDIT")
+            // Health is read by the monitoring tools
+            .requestMatchers(EndpointRequest.to("health"))
             .permitAll()
             .anyRequest()
             .authenticated();
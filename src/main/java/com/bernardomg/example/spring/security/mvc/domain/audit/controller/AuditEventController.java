@@ -0,0 +1,161 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.domain.audit.controller;
+
+import java.time.LocalDateTime;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.ModelMap;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import com.bernardomg.example.spring.security.mvc.domain.audit.model.AuditEventPage;
+import com.bernardomg.example.spring.security.mvc.domain.audit.service.AuditEventService;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * Audit events controller.
+ * <p>
+ * Shows the audit events, and also returns them as JSON.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ */
+@Controller
+@RequestMapping("/audit")
+@AllArgsConstructor
+public class AuditEventController {
+
+    /**
+     * Time window start param.
+     */
+    public static final String      PARAM_FROM      = "from";
+
+    /**
+     * Events page param.
+     */
+    public static final String      PARAM_PAGE      = "page";
+
+    /**
+     * Principal param.
+     */
+    public static final String      PARAM_PRINCIPAL = "principal";
+
+    /**
+     * Time window end param.
+     */
+    public static final String      PARAM_TO        = "to";
+
+    /**
+     * Event type param.
+     */
+    public static final String      PARAM_TYPE      = "type";
+
+    /**
+     * Events list view.
+     */
+    public static final String      VIEW_DATA_LIST  = "audit/list";
+
+    /**
+     * Audit events service.
+     */
+    private final AuditEventService service;
+
+    /**
+     * Returns a page of events as JSON.
+     *
+     * @param principal
+     *            principal of the events
+     * @param type
+     *            type of the events
+     * @param from
+     *            date from which to read events
+     * @param to
+     *            date until which to read events
+     * @param after
+     *            id of the event after which the page starts
+     * @param size
+     *            page size
+     * @return a page of events
+     */
+    @GetMapping(path = "/events", produces = "application/json")
+    @ResponseBody
+    public AuditEventPage getEvents(@RequestParam(name = PARAM_PRINCIPAL, required = false) final String principal,
+            @RequestParam(name = PARAM_TYPE, required = false) final String type,
+            @RequestParam(name = PARAM_FROM, required = false) @DateTimeFormat(
+                    iso = ISO.DATE_TIME) final LocalDateTime from,
+            @RequestParam(name = PARAM_TO, required = false) @DateTimeFormat(
+                    iso = ISO.DATE_TIME) final LocalDateTime to,
+            @RequestParam(name = "after", required = false) final Long after,
+            @RequestParam(name = "size", required = false) final Integer size) {
+        return service.getEvents(principal, type, from, to, after, size);
+    }
+
+    /**
+     * Shows the events list. This is done by returning the name of the view.
+     * <p>
+     * The events are read by pages, and can be filtered. The filters are kept in the model, so the next page is read
+     * with them.
+     *
+     * @param model
+     *            model map
+     * @param principal
+     *            principal of the events
+     * @param type
+     *            type of the events
+     * @param from
+     *            date from which to read events
+     * @param to
+     *            date until which to read events
+     * @param after
+     *            id of the event after which the page starts
+     * @param size
+     *            page size
+     * @return the name for the events list view
+     */
+    @GetMapping
+    public String showEventsList(final ModelMap model,
+            @RequestParam(name = PARAM_PRINCIPAL, required = false) final String principal,
+            @RequestParam(name = PARAM_TYPE, required = false) final String type,
+            @RequestParam(name = PARAM_FROM, required = false) @DateTimeFormat(
+                    iso = ISO.DATE_TIME) final LocalDateTime from,
+            @RequestParam(name = PARAM_TO, required = false) @DateTimeFormat(
+                    iso = ISO.DATE_TIME) final LocalDateTime to,
+            @RequestParam(name = "after", required = false) final Long after,
+            @RequestParam(name = "size", required = false) final Integer size) {
+        model.put(PARAM_PAGE, service.getEvents(principal, type, from, to, after, size));
+        model.put(PARAM_PRINCIPAL, principal);
+        model.put(PARAM_TYPE, type);
+        model.put(PARAM_FROM, from);
+        model.put(PARAM_TO, to);
+
+        return VIEW_DATA_LIST;
+    }
+
+}
@@ -0,0 +1,72 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.domain.audit.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Audit event, as stored.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+public interface AuditEventData {
+
+    /**
+     * Returns the event data, as JSON.
+     *
+     * @return the event data
+     */
+    public String getData();
+
+    /**
+     * Returns the date when the event happened.
+     *
+     * @return the event date
+     */
+    public LocalDateTime getEventDate();
+
+    /**
+     * Returns the event id.
+     *
+     * @return the event id
+     */
+    public Long getId();
+
+    /**
+     * Returns the principal which caused the event.
+     *
+     * @return the event principal
+     */
+    public String getPrincipal();
+
+    /**
+     * Returns the event type.
+     *
+     * @return the event type
+     */
+    public String getType();
+
+}
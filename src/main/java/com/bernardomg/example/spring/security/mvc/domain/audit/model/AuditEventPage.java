@@ -0,0 +1,63 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.domain.audit.model;
+
+import java.util.Collection;
+
+/**
+ * Page of audit events, read through keyset pagination.
+ * <p>
+ * Events are sorted from the newest to the oldest. Instead of page numbers, pages are located by a cursor, which is the
+ * id of the last event in the page. The next page contains the events older than it.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+public interface AuditEventPage {
+
+    /**
+     * Returns the events in the page.
+     *
+     * @return the events in the page
+     */
+    public Collection<AuditEventData> getEvents();
+
+    /**
+     * Returns the cursor for the next page. This is the id of the event after which the next page starts.
+     * <p>
+     * If there is no next page, this will be {@code null}.
+     *
+     * @return the cursor for the next page
+     */
+    public Long getNext();
+
+    /**
+     * Returns the maximum number of events in the page.
+     *
+     * @return the page size
+     */
+    public Integer getSize();
+
+}
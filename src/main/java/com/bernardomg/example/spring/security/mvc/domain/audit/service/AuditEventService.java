@@ -0,0 +1,74 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.domain.audit.service;
+
+import java.time.LocalDateTime;
+
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bernardomg.example.spring.security.mvc.domain.audit.model.AuditEventPage;
+
+/**
+ * Service for querying the audit events.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Transactional
+public interface AuditEventService {
+
+    /**
+     * Returns a page of audit events, sorted from the newest to the oldest.
+     * <p>
+     * All the filters are optional. The time window includes its start and excludes its end.
+     * <p>
+     * Pages are read through keyset pagination. The cursor is the id of an event, and the page will contain the events
+     * older than it. If no cursor is received, the first page is returned.
+     * <p>
+     * The page size is capped, so a request can never read more than a fixed number of events.
+     * <p>
+     * The session id is removed from the event data, even for events stored before it stopped being stored.
+     *
+     * @param principal
+     *            principal of the events, may be {@code null}
+     * @param type
+     *            type of the events, may be {@code null}
+     * @param from
+     *            date from which to read events, may be {@code null}
+     * @param to
+     *            date until which to read events, may be {@code null}
+     * @param after
+     *            id of the event after which the page starts, may be {@code null}
+     * @param size
+     *            page size, the default one is used if {@code null}
+     * @return a page of audit events
+     */
+    @PreAuthorize("hasAuthority('READ_AUDIT')")
+    @Transactional(readOnly = true)
+    public AuditEventPage getEvents(final String principal, final String type, final LocalDateTime from,
+            final LocalDateTime to, final Long after, final Integer size);
+
+}
@@ -0,0 +1,253 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.domain.audit.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import com.bernardomg.example.spring.security.mvc.domain.audit.model.AuditEventData;
+import com.bernardomg.example.spring.security.mvc.domain.audit.model.DtoAuditEventData;
+import com.bernardomg.example.spring.security.mvc.domain.audit.model.DtoAuditEventPage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Audit events service which queries the audit events table.
+ * <p>
+ * Events are sorted by date and id, and the filters are applied over the indexed columns, so each page is read from an
+ * index range instead of scanning the table.
+ * <p>
+ * The session id is removed from the authentication details in the event data, as it would allow taking over the
+ * session. Older events may still contain it.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Service
+@AllArgsConstructor
+@Slf4j
+public final class DefaultAuditEventService implements AuditEventService {
+
+    /**
+     * Query to read the date of the cursor event.
+     */
+    private static final String CURSOR_SQL        = "SELECT event_date FROM audit_events WHERE id = ?";
+
+    /**
+     * Default page size.
+     */
+    private static final int    DEFAULT_PAGE_SIZE = 20;
+
+    /**
+     * Key for the authentication details in the event data.
+     */
+    private static final String DETAILS           = "details";
+
+    /**
+     * Maximum number of events in a page. Bigger pages are capped to this size.
+     */
+    private static final int    MAX_PAGE_SIZE     = 100;
+
+    /**
+     * Base query to read events.
+     */
+    private static final String SELECT_SQL        = "SELECT id, event_date, principal, type, data FROM audit_events";
+
+    /**
+     * Key for the session id in the authentication details.
+     */
+    private static final String SESSION_ID        = "sessionId";
+
+    /**
+     * JDBC template for the event queries.
+     */
+    private final JdbcTemplate  jdbcTemplate;
+
+    /**
+     * Mapper for the event data.
+     */
+    private final ObjectMapper  objectMapper;
+
+    @Override
+    public final DtoAuditEventPage getEvents(final String principal, final String type, final LocalDateTime from,
+            final LocalDateTime to, final Long after, final Integer size) {
+        final int                  pageSize;
+        final Collection<String>   conditions;
+        final List<Object>         arguments;
+        final List<Timestamp>      cursorDate;
+        final StringBuilder        sql;
+        final List<AuditEventData> read;
+        final DtoAuditEventPage    page;
+
+        pageSize = getPageSize(size);
+
+        page = new DtoAuditEventPage();
+        page.setSize(pageSize);
+
+        conditions = new ArrayList<>();
+        arguments = new ArrayList<>();
+        if (StringUtils.hasText(principal)) {
+            conditions.add("principal = ?");
+            arguments.add(principal);
+        }
+        if (StringUtils.hasText(type)) {
+            conditions.add("type = ?");
+            arguments.add(type);
+        }
+        if (from != null) {
+            conditions.add("event_date >= ?");
+            arguments.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            conditions.add("event_date < ?");
+            arguments.add(Timestamp.valueOf(to));
+        }
+        if (after != null) {
+            cursorDate = jdbcTemplate.queryForList(CURSOR_SQL, Timestamp.class, after);
+            if (cursorDate.isEmpty()) {
+                log.warn("Audit event {} not found, returning an empty page", after);
+                return page;
+            }
+            conditions.add("(event_date < ? OR (event_date = ? AND id < ?))");
+            arguments.add(cursorDate.get(0));
+            arguments.add(cursorDate.get(0));
+            arguments.add(after);
+        }
+
+        sql = new StringBuilder(SELECT_SQL);
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ");
+            sql.append(String.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY event_date DESC, id DESC FETCH FIRST ? ROWS ONLY");
+        // An additional event is read to know if there are more after the page
+        arguments.add(pageSize + 1);
+
+        read = new ArrayList<>(jdbcTemplate.query(sql.toString(), (rs, rowNum) -> toDto(rs), arguments.toArray()));
+
+        if (read.size() > pageSize) {
+            read.remove(pageSize);
+            page.setNext(read.get(read.size() - 1)
+                .getId());
+        }
+
+        page.setEvents(read);
+
+        return page;
+    }
+
+    /**
+     * Returns the page size to use for the received size.
+     *
+     * @param size
+     *            received page size
+     * @return the page size to use
+     */
+    private final int getPageSize(final Integer size) {
+        final int pageSize;
+
+        if ((size == null) || (size < 1)) {
+            pageSize = DEFAULT_PAGE_SIZE;
+        } else {
+            pageSize = Math.min(size, MAX_PAGE_SIZE);
+        }
+
+        return pageSize;
+    }
+
+    /**
+     * Returns the event data without the session id.
+     * <p>
+     * Details stored as a string, because they couldn't be serialized, are removed if they contain a session id. Data
+     * which isn't valid JSON is returned as it is.
+     *
+     * @param data
+     *            event data as JSON
+     * @return the event data without the session id
+     */
+    private final String removeSessionId(final String data) {
+        final JsonNode node;
+        final JsonNode details;
+        String         cleaned;
+
+        cleaned = data;
+        if (data != null) {
+            try {
+                node = objectMapper.readTree(data);
+                details = node.path(DETAILS);
+                if (details.isObject() && details.has(SESSION_ID)) {
+                    ((ObjectNode) details).remove(SESSION_ID);
+                    cleaned = node.toString();
+                } else if (details.isTextual() && details.asText()
+                    .contains("SessionId")) {
+                    ((ObjectNode) node).remove(DETAILS);
+                    cleaned = node.toString();
+                }
+            } catch (final JsonProcessingException e) {
+                log.warn("Invalid audit event data {}", data);
+            }
+        }
+
+        return cleaned;
+    }
+
+    /**
+     * Maps the current row into an event.
+     *
+     * @param rs
+     *            result set with the row
+     * @return the event for the row
+     * @throws SQLException
+     *             if the row can't be read
+     */
+    private final AuditEventData toDto(final ResultSet rs) throws SQLException {
+        final DtoAuditEventData event;
+
+        event = new DtoAuditEventData();
+        event.setId(rs.getLong(1));
+        event.setEventDate(rs.getTimestamp(2)
+            .toLocalDateTime());
+        event.setPrincipal(rs.getString(3));
+        event.setType(rs.getString(4));
+        event.setData(removeSessionId(rs.getString(5)));
+
+        return event;
+    }
+
+}
@@ -27,7 +27,6 @@
 import java.util.Collection;
 import java.util.stream.Collectors;
 
-import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
 import org.springframework.validation.BindingResult;
@@ -37,7 +36,9 @@
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import com.bernardomg.example.spring.security.mvc.domain.user.mapper.UserFormMapper;
 import com.bernardomg.example.spring.security.mvc.domain.user.model.RoleData;
 import com.bernardomg.example.spring.security.mvc.domain.user.model.UserData;
 import com.bernardomg.example.spring.security.mvc.domain.user.model.form.DefaultUserForm;
@@ -79,9 +80,9 @@ public class UserController {
     public static final String PARAM_DATA_FORM        = "form";
 
     /**
-     * Users list param.
+     * Users page param.
      */
-    public static final String PARAM_DATAS            = "users";
+    public static final String PARAM_PAGE             = "page";
 
     /**
      * Users creation form view.
@@ -103,10 +104,15 @@ public class UserController {
      */
     public static final String VIEW_DATA_ROLE_EDITION = "user/role/edit";
 
+    /**
+     * Mapper from the user data to the forms.
+     */
+    private final UserFormMapper formMapper;
+
     /**
      * Users service.
      */
-    private final UserService  service;
+    private final UserService    service;
 
     /**
      * Returns the initial user form data.
@@ -158,7 +164,7 @@ public String saveUser(final ModelMap model,
         } else {
             service.create(form);
 
-            path = showUsersList(model);
+            path = showUsersList(model, null, null, null);
         }
 
         return path;
@@ -191,7 +197,7 @@ public String showUserEdition(@PathVariable("username") final String username,
         final UserData user;
 
         user = service.getUser(username);
-        BeanUtils.copyProperties(user, form);
+        formMapper.toForm(user, form);
 
         model.put(PARAM_DATA_FORM, form);
 
@@ -224,7 +230,7 @@ public String showUserRoleEdition(@PathVariable("username") final String usernam
         form.setRoles(roleNames);
 
         user = service.getUser(username);
-        BeanUtils.copyProperties(user, form);
+        formMapper.toForm(user, form);
         form.setRoles(roleNames);
 
         allRoles = service.getAllRoles();
@@ -236,15 +242,25 @@ public String showUserRoleEdition(@PathVariable("username") final String usernam
     }
 
     /**
-     * Shows a page with all the users. This is done by returning the name of the view.
+     * Shows a page of users. This is done by returning the name of the view.
+     * <p>
+     * The users are paged through cursors, which are the usernames at the limits of the page.
      *
      * @param model
      *            data model
+     * @param after
+     *            username after which the page starts
+     * @param before
+     *            username before which the page ends
+     * @param size
+     *            page size
      * @return the admin view
      */
     @GetMapping
-    public String showUsersList(final ModelMap model) {
-        model.put(PARAM_DATAS, service.getAllUsers());
+    public String showUsersList(final ModelMap model, @RequestParam(name = "after", required = false) final String after,
+            @RequestParam(name = "before", required = false) final String before,
+            @RequestParam(name = "size", required = false) final Integer size) {
+        model.put(PARAM_PAGE, service.getUsers(after, before, size));
 
         return VIEW_DATA_LIST;
     }
@@ -279,7 +295,7 @@ public String updateUser(final ModelMap model,
         } else {
             service.update(form);
 
-            path = showUsersList(model);
+            path = showUsersList(model, null, null, null);
         }
 
         return path;
@@ -315,7 +331,7 @@ public String updateUserRoles(final ModelMap model,
         } else {
             service.updateRoles(form);
 
-            path = showUsersList(model);
+            path = showUsersList(model, null, null, null);
         }
 
         return path;
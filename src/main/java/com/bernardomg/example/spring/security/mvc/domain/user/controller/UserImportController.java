@@ -0,0 +1,109 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.domain.user.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.ModelMap;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.bernardomg.example.spring.security.mvc.domain.user.service.UserImportService;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+
+/**
+ * User import controller.
+ * <p>
+ * Receives CSV files with users, which are imported in bulk.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ */
+@Controller
+@RequestMapping("/users/import")
+@AllArgsConstructor
+public class UserImportController {
+
+    /**
+     * Import result param.
+     */
+    public static final String      PARAM_RESULT = "result";
+
+    /**
+     * Users import view.
+     */
+    public static final String      VIEW_IMPORT  = "user/import";
+
+    /**
+     * Users import service.
+     */
+    private final UserImportService service;
+
+    /**
+     * Imports the users in the received file.
+     *
+     * @param model
+     *            model map
+     * @param file
+     *            CSV file with the users
+     * @param response
+     *            HTTP response
+     * @return the next view to show
+     * @throws IOException
+     *             if the file can't be read
+     */
+    @PostMapping
+    public String importUsers(final ModelMap model, @RequestParam("file") final MultipartFile file,
+            final HttpServletResponse response) throws IOException {
+        if (file.isEmpty()) {
+            // Marks the response as a bad request
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        } else {
+            // The file is streamed, never loaded whole
+            try (final InputStream input = file.getInputStream()) {
+                model.put(PARAM_RESULT, service.importUsers(input));
+            }
+        }
+
+        return VIEW_IMPORT;
+    }
+
+    /**
+     * Shows the users import view. This is done by returning the name of the view.
+     *
+     * @return the name for the users import view
+     */
+    @GetMapping
+    public String showImport() {
+        return VIEW_IMPORT;
+    }
+
+}
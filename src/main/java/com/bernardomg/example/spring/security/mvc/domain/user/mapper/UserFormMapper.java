@@ -0,0 +1,70 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.domain.user.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.ReportingPolicy;
+
+import com.bernardomg.example.spring.security.mvc.domain.user.model.UserData;
+import com.bernardomg.example.spring.security.mvc.domain.user.model.form.DefaultUserForm;
+import com.bernardomg.example.spring.security.mvc.domain.user.model.form.DefaultUserRolesForm;
+
+/**
+ * Fills the user forms from the user data.
+ * <p>
+ * The implementation is generated when compiling. Any form property not mapped, or explicitly ignored, breaks the
+ * build.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface UserFormMapper {
+
+    /**
+     * Copies the user data into the user form.
+     *
+     * @param user
+     *            user data to copy
+     * @param form
+     *            form to fill
+     */
+    public void toForm(final UserData user, @MappingTarget final DefaultUserForm form);
+
+    /**
+     * Copies the user data into the user roles form. The roles are not copied, as the form takes only their names.
+     *
+     * @param user
+     *            user data to copy
+     * @param form
+     *            form to fill
+     */
+    @Mapping(target = "roles", ignore = true)
+    public void toForm(final UserData user, @MappingTarget final DefaultUserRolesForm form);
+
+}
@@ -0,0 +1,116 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.domain.user.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.ReportingPolicy;
+
+import com.bernardomg.example.spring.security.mvc.domain.user.model.DtoPrivilegeData;
+import com.bernardomg.example.spring.security.mvc.domain.user.model.DtoRoleData;
+import com.bernardomg.example.spring.security.mvc.domain.user.model.DtoUserData;
+import com.bernardomg.example.spring.security.mvc.domain.user.model.form.UserForm;
+import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentRole;
+import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentUser;
+import com.bernardomg.example.spring.security.mvc.security.user.model.RolePrivilegeRelation;
+import com.bernardomg.example.spring.security.mvc.security.user.model.UserRoleRelation;
+
+/**
+ * Maps between the persisted users, and their roles and privileges, and the user data.
+ * <p>
+ * The implementation is generated when compiling, so the properties are copied with plain getters and setters. Any
+ * target property not mapped, or explicitly ignored, breaks the build.
+ * <p>
+ * Roles and privileges are read separately, so they are never mapped here. The caller sets them.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface UserMapper {
+
+    /**
+     * Maps a role entity into role data, without privileges.
+     *
+     * @param entity
+     *            entity to map
+     * @return equivalent role data
+     */
+    @Mapping(target = "privileges", ignore = true)
+    public DtoRoleData toDto(final PersistentRole entity);
+
+    /**
+     * Maps a user entity into user data, without roles.
+     *
+     * @param entity
+     *            entity to map
+     * @return equivalent user data
+     */
+    @Mapping(target = "roles", ignore = true)
+    public DtoUserData toDto(final PersistentUser entity);
+
+    /**
+     * Maps a privilege assigned to a role into privilege data.
+     *
+     * @param relation
+     *            relation to map
+     * @return equivalent privilege data
+     */
+    @Mapping(target = "id", source = "privilegeId")
+    @Mapping(target = "name", source = "privilegeName")
+    public DtoPrivilegeData toDto(final RolePrivilegeRelation relation);
+
+    /**
+     * Maps a role assigned to a user into role data, without privileges.
+     *
+     * @param relation
+     *            relation to map
+     * @return equivalent role data
+     */
+    @Mapping(target = "id", source = "roleId")
+    @Mapping(target = "name", source = "roleName")
+    @Mapping(target = "privileges", ignore = true)
+    public DtoRoleData toDto(final UserRoleRelation relation);
+
+    /**
+     * Copies the editable user fields from the form into the entity.
+     * <p>
+     * The password is not copied, as it has to be encoded first.
+     *
+     * @param form
+     *            form with the new values
+     * @param entity
+     *            entity to update
+     */
+    @Mapping(target = "credentialsExpired", ignore = true)
+    @Mapping(target = "email", ignore = true)
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "name", ignore = true)
+    @Mapping(target = "password", ignore = true)
+    public void updateEntity(final UserForm form, @MappingTarget final PersistentUser entity);
+
+}
@@ -0,0 +1,61 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.domain.user.model;
+
+import java.util.Collection;
+
+/**
+ * Result of a bulk user import.
+ * <p>
+ * Only a limited number of failures are kept, but all of them are counted. So the failures list may be shorter than
+ * the number of failed rows.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+public interface UserImportResult {
+
+    /**
+     * Returns the number of rows which couldn't be imported.
+     *
+     * @return the number of failed rows
+     */
+    public Long getFailed();
+
+    /**
+     * Returns the rows which couldn't be imported, along the reason for it.
+     *
+     * @return the failed rows
+     */
+    public Collection<UserImportFailure> getFailures();
+
+    /**
+     * Returns the number of users imported.
+     *
+     * @return the number of users imported
+     */
+    public Long getImported();
+
+}
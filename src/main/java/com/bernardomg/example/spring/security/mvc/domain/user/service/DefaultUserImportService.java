@@ -0,0 +1,443 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.domain.user.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bernardomg.example.spring.security.mvc.domain.user.model.DtoUserImportFailure;
+import com.bernardomg.example.spring.security.mvc.domain.user.model.DtoUserImportResult;
+import com.bernardomg.example.spring.security.mvc.domain.user.model.UserImportResult;
+import com.bernardomg.example.spring.security.mvc.security.password.PasswordEncoderFactory;
+import com.bernardomg.example.spring.security.mvc.security.property.PasswordEncodingProperties;
+import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentUser;
+import com.bernardomg.example.spring.security.mvc.security.user.repository.UserRepository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * User import service which streams the data, and persists it in chunks.
+ * <p>
+ * The input is read line by line, and only a chunk of rows is kept in memory. Each chunk goes through these steps:
+ * <ul>
+ * <li>The rows are validated, including a single query to find usernames and emails which already exist</li>
+ * <li>The passwords are encoded in parallel, as this is by far the most expensive step</li>
+ * <li>The users are inserted in a single transaction, which Hibernate sends as JDBC batches</li>
+ * </ul>
+ * <p>
+ * Each chunk has its own transaction, so a failed chunk doesn't undo the previous ones. Unless the import is called
+ * inside a transaction, then all the chunks join it. Duplicated usernames or emails across chunks are caught by the
+ * existing users query, as the previous chunks are already stored.
+ * <p>
+ * The passwords are encoded on their own executor, without the bound applied to the logins. Otherwise a chunk would
+ * take all the hashing threads, making logins fail, and a rejected hash would stop the import halfway.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Service
+@Slf4j
+public final class DefaultUserImportService implements UserImportService {
+
+    /**
+     * Number of rows persisted together.
+     */
+    private static final int          CHUNK_SIZE            = 500;
+
+    /**
+     * Maximum length for the emails.
+     */
+    private static final int          MAX_EMAIL_LENGTH      = 60;
+
+    /**
+     * Maximum length for the names.
+     */
+    private static final int          MAX_NAME_LENGTH       = 50;
+
+    /**
+     * Maximum number of failures kept in the result. The rest are only counted.
+     */
+    private static final int          MAX_REPORTED_FAILURES = 1000;
+
+    /**
+     * Maximum length for the usernames.
+     */
+    private static final int          MAX_USERNAME_LENGTH   = 60;
+
+    /**
+     * Column separator.
+     */
+    private static final String       SEPARATOR             = ",";
+
+    /**
+     * Password encoder.
+     */
+    private final PasswordEncoder     passwordEncoder;
+
+    /**
+     * Executor where the passwords are encoded.
+     */
+    private final ExecutorService     passwordExecutor;
+
+    /**
+     * Transaction template for each chunk.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Users repository.
+     */
+    private final UserRepository      userRepository;
+
+    /**
+     * Constructs an import service.
+     *
+     * @param encodingProperties
+     *            password encoding properties
+     * @param executor
+     *            executor where the passwords are encoded
+     * @param repository
+     *            users repository
+     * @param transactionManager
+     *            transaction manager for the chunks
+     */
+    public DefaultUserImportService(final PasswordEncodingProperties encodingProperties,
+            @Qualifier("passwordImportExecutor") final ExecutorService executor, final UserRepository repository,
+            final PlatformTransactionManager transactionManager) {
+        super();
+
+        passwordEncoder = PasswordEncoderFactory.getPasswordEncoder(
+            Objects.requireNonNull(encodingProperties, "Received a null pointer as encoding properties"));
+        passwordExecutor = Objects.requireNonNull(executor, "Received a null pointer as executor");
+        userRepository = Objects.requireNonNull(repository, "Received a null pointer as repository");
+        transactionTemplate = new TransactionTemplate(
+            Objects.requireNonNull(transactionManager, "Received a null pointer as transaction manager"));
+    }
+
+    @Override
+    public final UserImportResult importUsers(final InputStream input) {
+        final DtoUserImportResult result;
+        final List<ImportRow>     chunk;
+        long                      lineNumber;
+        String                    line;
+        ImportRow                 row;
+
+        Objects.requireNonNull(input);
+
+        result = new DtoUserImportResult();
+        chunk = new ArrayList<>(CHUNK_SIZE);
+
+        try (final BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            // Skips the header
+            reader.readLine();
+            lineNumber = 1;
+
+            line = reader.readLine();
+            while (line != null) {
+                lineNumber++;
+                if (!line.isBlank()) {
+                    row = parse(lineNumber, line, result);
+                    if (row != null) {
+                        chunk.add(row);
+                    }
+                    if (chunk.size() >= CHUNK_SIZE) {
+                        importChunk(chunk, result);
+                        chunk.clear();
+                    }
+                }
+
+                line = reader.readLine();
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, result);
+        }
+
+        log.debug("Imported {} users, rejected {}", result.getImported(), result.getFailed());
+
+        return result;
+    }
+
+    /**
+     * Adds a failed row to the result.
+     *
+     * @param result
+     *            result where the failure is stored
+     * @param line
+     *            line of the row
+     * @param username
+     *            username in the row
+     * @param reason
+     *            reason for the failure
+     */
+    private final void addFailure(final DtoUserImportResult result, final long line, final String username,
+            final String reason) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getFailures()
+            .size() < MAX_REPORTED_FAILURES) {
+            result.getFailures()
+                .add(new DtoUserImportFailure(line, reason, username));
+        }
+    }
+
+    /**
+     * Returns the column in the received position, or {@code null} if it is missing or empty.
+     *
+     * @param columns
+     *            all the columns
+     * @param index
+     *            position of the column
+     * @return the column value
+     */
+    private final String getColumn(final String[] columns, final int index) {
+        final String value;
+
+        if (index < columns.length) {
+            value = columns[index].trim();
+        } else {
+            value = "";
+        }
+
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Validates and persists a chunk of rows.
+     *
+     * @param rows
+     *            rows to import
+     * @param result
+     *            import result to update
+     */
+    private final void importChunk(final Collection<ImportRow> rows, final DtoUserImportResult result) {
+        final Collection<String>   existingUsernames;
+        final Collection<String>   existingEmails;
+        final Collection<String>   usernames;
+        final Collection<String>   emails;
+        final List<ImportRow>      valid;
+        final List<PersistentUser> users;
+
+        existingUsernames = new HashSet<>(userRepository.findExistingUsernames(rows.stream()
+            .map(r -> r.getUser()
+                .getUsername())
+            .collect(Collectors.toList())));
+        existingEmails = new HashSet<>(userRepository.findExistingEmails(rows.stream()
+            .map(r -> r.getUser()
+                .getEmail())
+            .collect(Collectors.toList())));
+
+        usernames = new HashSet<>();
+        emails = new HashSet<>();
+        valid = new ArrayList<>(rows.size());
+        for (final ImportRow row : rows) {
+            final PersistentUser user;
+
+            user = row.getUser();
+            if (existingUsernames.contains(user.getUsername())) {
+                addFailure(result, row.getLine(), user.getUsername(), "Username already exists");
+            } else if (existingEmails.contains(user.getEmail())) {
+                addFailure(result, row.getLine(), user.getUsername(), "Email already exists");
+            } else if (!usernames.add(user.getUsername())) {
+                addFailure(result, row.getLine(), user.getUsername(), "Username repeated in the file");
+            } else if (!emails.add(user.getEmail())) {
+                addFailure(result, row.getLine(), user.getUsername(), "Email repeated in the file");
+            } else {
+                valid.add(row);
+            }
+        }
+
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        // The raw password is replaced with the encoded one
+        // Encoding is CPU bound, so it is spread across the import executor
+        users = valid.stream()
+            .map(ImportRow::getUser)
+            .collect(Collectors.toList());
+        CompletableFuture.allOf(users.stream()
+            .map(u -> CompletableFuture.runAsync(() -> u.setPassword(passwordEncoder.encode(u.getPassword())),
+                passwordExecutor))
+            .toArray(CompletableFuture[]::new))
+            .join();
+
+        try {
+            transactionTemplate.executeWithoutResult(s -> userRepository.saveAll(users));
+            result.setImported(result.getImported() + users.size());
+        } catch (final DataAccessException e) {
+            // Something changed since the validation, the whole chunk is rejected
+            log.warn("Chunk starting at line {} rejected by the database", valid.get(0)
+                .getLine(), e);
+            for (final ImportRow row : valid) {
+                addFailure(result, row.getLine(), row.getUser()
+                    .getUsername(), "Rejected by the database");
+            }
+        }
+    }
+
+    /**
+     * Parses a line into a row to import. If the row is invalid, it is added as a failure and {@code null} is
+     * returned.
+     *
+     * @param lineNumber
+     *            number of the line
+     * @param line
+     *            line to parse
+     * @param result
+     *            import result where failures are stored
+     * @return the parsed row, or {@code null} if it is invalid
+     */
+    private final ImportRow parse(final long lineNumber, final String line, final DtoUserImportResult result) {
+        final String[]       columns;
+        final String         username;
+        final String         email;
+        final String         password;
+        final String         name;
+        final PersistentUser user;
+        final String         reason;
+        final Boolean        enabled;
+        final Boolean        locked;
+        final Boolean        expired;
+
+        columns = line.split(SEPARATOR, -1);
+
+        username = getColumn(columns, 0);
+        email = getColumn(columns, 1);
+        password = getColumn(columns, 2);
+        name = getColumn(columns, 3);
+        enabled = parseFlag(getColumn(columns, 4), true);
+        locked = parseFlag(getColumn(columns, 5), false);
+        expired = parseFlag(getColumn(columns, 6), false);
+
+        if (columns.length > 7) {
+            reason = "Too many columns";
+        } else if (username == null) {
+            reason = "Missing username";
+        } else if (email == null) {
+            reason = "Missing email";
+        } else if (password == null) {
+            reason = "Missing password";
+        } else if (username.length() > MAX_USERNAME_LENGTH) {
+            reason = "Username too long";
+        } else if (email.length() > MAX_EMAIL_LENGTH) {
+            reason = "Email too long";
+        } else if ((name != null) && (name.length() > MAX_NAME_LENGTH)) {
+            reason = "Name too long";
+        } else if ((enabled == null) || (locked == null) || (expired == null)) {
+            reason = "Invalid flag";
+        } else {
+            reason = null;
+        }
+
+        if (reason != null) {
+            addFailure(result, lineNumber, username, reason);
+            return null;
+        }
+
+        user = new PersistentUser();
+        // Usernames are stored in lower case, as this is how they are searched for
+        user.setUsername(username.toLowerCase(Locale.getDefault()));
+        user.setEmail(email);
+        user.setPassword(password);
+        user.setName(name == null ? username : name);
+        user.setCredentialsExpired(false);
+        user.setEnabled(enabled);
+        user.setLocked(locked);
+        user.setExpired(expired);
+
+        return new ImportRow(lineNumber, user);
+    }
+
+    /**
+     * Parses a flag. If the value is missing the default is returned, and if it isn't a boolean {@code null} is
+     * returned.
+     *
+     * @param value
+     *            value to parse
+     * @param defaultValue
+     *            value to use when missing
+     * @return the parsed flag
+     */
+    private final Boolean parseFlag(final String value, final boolean defaultValue) {
+        final Boolean flag;
+
+        if (value == null) {
+            flag = defaultValue;
+        } else if ("true".equalsIgnoreCase(value)) {
+            flag = true;
+        } else if ("false".equalsIgnoreCase(value)) {
+            flag = false;
+        } else {
+            flag = null;
+        }
+
+        return flag;
+    }
+
+    /**
+     * Parsed row, waiting to be persisted.
+     */
+    @AllArgsConstructor
+    @Getter
+    private static final class ImportRow {
+
+        /**
+         * Line of the row.
+         */
+        private final long           line;
+
+        /**
+         * User to persist.
+         */
+        private final PersistentUser user;
+
+    }
+
+}
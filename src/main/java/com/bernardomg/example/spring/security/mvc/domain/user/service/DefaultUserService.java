@@ -24,33 +24,47 @@
 
 package com.bernardomg.example.spring.security.mvc.domain.user.service;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
-import org.springframework.beans.BeanUtils;
+import org.apache.commons.collections4.ListUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import com.bernardomg.example.spring.security.mvc.domain.user.model.DtoPrivilegeData;
+import com.bernardomg.example.spring.security.mvc.domain.user.mapper.UserMapper;
 import com.bernardomg.example.spring.security.mvc.domain.user.model.DtoRoleData;
 import com.bernardomg.example.spring.security.mvc.domain.user.model.DtoUserData;
+import com.bernardomg.example.spring.security.mvc.domain.user.model.DtoUserPage;
 import com.bernardomg.example.spring.security.mvc.domain.user.model.PrivilegeData;
 import com.bernardomg.example.spring.security.mvc.domain.user.model.RoleData;
 import com.bernardomg.example.spring.security.mvc.domain.user.model.UserData;
+import com.bernardomg.example.spring.security.mvc.domain.user.model.UserPage;
 import com.bernardomg.example.spring.security.mvc.domain.user.model.form.UserForm;
 import com.bernardomg.example.spring.security.mvc.domain.user.model.form.UserRolesForm;
-import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentPrivilege;
+import com.bernardomg.example.spring.security.mvc.security.oauth.OAuthUserCache;
 import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentRole;
 import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentUser;
+import com.bernardomg.example.spring.security.mvc.security.user.model.RolePrivilegeRelation;
+import com.bernardomg.example.spring.security.mvc.security.user.model.UserRoleRelation;
 import com.bernardomg.example.spring.security.mvc.security.user.repository.PrivilegeRepository;
 import com.bernardomg.example.spring.security.mvc.security.user.repository.RoleRepository;
 import com.bernardomg.example.spring.security.mvc.security.user.repository.UserRepository;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -63,8 +77,30 @@
 @Service
 @AllArgsConstructor
 @Slf4j
+@Timed(value = "users.service", description = "Time spent in the users service")
 public final class DefaultUserService implements UserService {
 
+    /**
+     * Default number of users in a page.
+     */
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
+    /**
+     * Maximum number of ids sent in a single query. Longer lists are split into several queries, to stay below the
+     * parameter limits of the database.
+     */
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
+    /**
+     * Maximum number of users in a page. Bigger pages are capped to this size.
+     */
+    private static final int MAX_PAGE_SIZE     = 100;
+
+    /**
+     * Cache for the OAUTH users. Modified users are removed from it.
+     */
+    private final OAuthUserCache      oAuthUserCache;
+
     /**
      * Password encoder.
      */
@@ -80,6 +116,16 @@ public final class DefaultUserService implements UserService {
      */
     private final RoleRepository      roleRepository;
 
+    /**
+     * Cache for the authenticated users. Modified users are removed from it.
+     */
+    private final UserCache           userCache;
+
+    /**
+     * Mapper between the entities and the user data.
+     */
+    private final UserMapper          userMapper;
+
     /**
      * Users repository.
      */
@@ -120,18 +166,25 @@ public final void create(final UserForm user) {
 
     @Override
     public final List<RoleData> getAllRoles() {
-        return roleRepository.findAll()
-            .stream()
-            .map(this::toDto)
+        final Collection<PersistentRole>            roles;
+        final Map<Long, Collection<PrivilegeData>> privileges;
+        final Collection<Long>                      roleIds;
+
+        roles = roleRepository.findAll();
+
+        roleIds = roles.stream()
+            .map(PersistentRole::getId)
+            .collect(Collectors.toList());
+        privileges = getPrivileges(roleIds);
+
+        return roles.stream()
+            .map(r -> toDto(r, privileges.getOrDefault(r.getId(), Collections.emptyList())))
             .collect(Collectors.toList());
     }
 
     @Override
     public final List<UserData> getAllUsers() {
-        return userRepository.findAll()
-            .stream()
-            .map(this::toDto)
-            .collect(Collectors.toList());
+        return toDto(userRepository.findAll());
     }
 
     @Override
@@ -144,11 +197,9 @@ public final Collection<RoleData> getRoles(final String username) {
         read = userRepository.findOneByUsername(username);
 
         if (read.isPresent()) {
-            roles = roleRepository.findForUser(read.get()
-                .getId())
-                .stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+            roles = getRoles(Collections.singletonList(read.get()
+                .getId())).getOrDefault(read.get()
+                    .getId(), Collections.emptyList());
         } else {
             // TODO: Throw an exception maybe?
             log.warn("User {} not found", username);
@@ -168,7 +219,8 @@ public final UserData getUser(final String username) {
         read = userRepository.findOneByUsername(username);
 
         if (read.isPresent()) {
-            user = toDto(read.get());
+            user = toDto(Collections.singletonList(read.get())).iterator()
+                .next();
         } else {
             // TODO: Throw an exception maybe?
             log.warn("User {} not found", username);
@@ -178,6 +230,61 @@ public final UserData getUser(final String username) {
         return user;
     }
 
+    @Override
+    public final UserPage getUsers(final String after, final String before, final Integer size) {
+        final int                  pageSize;
+        final Pageable             pageable;
+        final List<PersistentUser> read;
+        final boolean              hasMore;
+        final DtoUserPage          page;
+
+        pageSize = getPageSize(size);
+        // An additional user is read to know if there are more after the page
+        pageable = PageRequest.ofSize(pageSize + 1);
+
+        if (before != null) {
+            read = new ArrayList<>(userRepository.findByUsernameLessThanOrderByUsernameDesc(before, pageable));
+        } else if (after != null) {
+            read = new ArrayList<>(userRepository.findByUsernameGreaterThanOrderByUsernameAsc(after, pageable));
+        } else {
+            read = new ArrayList<>(userRepository.findAllByOrderByUsernameAsc(pageable));
+        }
+
+        hasMore = read.size() > pageSize;
+        if (hasMore) {
+            read.remove(pageSize);
+        }
+
+        page = new DtoUserPage();
+        page.setSize(pageSize);
+
+        if (before != null) {
+            // Users were read backwards
+            Collections.reverse(read);
+            if (hasMore) {
+                page.setPrevious(read.get(0)
+                    .getUsername());
+            }
+            if (!read.isEmpty()) {
+                page.setNext(read.get(read.size() - 1)
+                    .getUsername());
+            }
+        } else {
+            if ((after != null) && (!read.isEmpty())) {
+                page.setPrevious(read.get(0)
+                    .getUsername());
+            }
+            if (hasMore) {
+                page.setNext(read.get(read.size() - 1)
+                    .getUsername());
+            }
+        }
+
+        page.setUsers(toDto(read));
+
+        return page;
+    }
+
     @Override
     public final void update(final UserForm user) {
         final Optional<PersistentUser> read;
@@ -194,7 +301,7 @@ public final void update(final UserForm user) {
         }
         entity = read.get();
 
-        BeanUtils.copyProperties(user, entity);
+        userMapper.updateEntity(user, entity);
 
         if (user.getPassword() == null) {
             // Let the persistence layer handle this error
@@ -206,72 +313,223 @@ public final void update(final UserForm user) {
         entity.setPassword(encodedPassword);
 
         userRepository.save(entity);
+
+        removeFromCache(entity);
     }
 
     @Override
     public final void updateRoles(final UserRolesForm userRoles) {
-        final Iterable<PersistentRole> roles;
         final Optional<PersistentUser> read;
-        final PersistentUser           user;
+        final Long                     userId;
+        final Collection<Long>         currentRoles;
+        final Collection<Long>         newRoles;
+        final Collection<Long>         added;
+        final Collection<Long>         removed;
 
         Objects.requireNonNull(userRoles);
 
         read = userRepository.findOneByUsername(userRoles.getUsername());
 
         if (read.isPresent()) {
-            user = read.get();
+            userId = read.get()
+                .getId();
+
+            if ((userRoles.getRoles() == null) || (userRoles.getRoles()
+                .isEmpty())) {
+                newRoles = Collections.emptySet();
+            } else {
+                newRoles = roleRepository.findByNameIn(userRoles.getRoles())
+                    .stream()
+                    .map(PersistentRole::getId)
+                    .collect(Collectors.toSet());
+            }
+            currentRoles = new HashSet<>(roleRepository.findIdsForUser(userId));
 
-            userRepository.save(user);
+            // Only the differences are applied, each of them in a single statement
+            added = new HashSet<>(newRoles);
+            added.removeAll(currentRoles);
+            removed = new HashSet<>(currentRoles);
+            removed.removeAll(newRoles);
 
-            roles = roleRepository.findByNameIn(userRoles.getRoles());
-            for (final PersistentRole role : roles) {
-                roleRepository.registerForUser(user.getId(), role.getId());
+            if (!added.isEmpty()) {
+                roleRepository.registerAllForUser(userId, added);
+            }
+            if (!removed.isEmpty()) {
+                roleRepository.unregisterAllForUser(userId, removed);
             }
+
+            log.debug("Roles for user {}. Added: {}. Removed: {}", userRoles.getUsername(), added, removed);
+
+            removeFromCache(read.get());
         } else {
             log.warn("User {} not found", userRoles.getUsername());
             // TODO: Shouldn't throw an exception like the update?
         }
     }
 
-    private final PrivilegeData toDto(final PersistentPrivilege entity) {
-        final DtoPrivilegeData privilege;
+    /**
+     * Returns the page size to use. If no size is received the default one is used, and if it is too big then it is
+     * capped.
+     *
+     * @param size
+     *            requested page size
+     * @return the page size to use
+     */
+    private final int getPageSize(final Integer size) {
+        final int pageSize;
+
+        if ((size == null) || (size < 1)) {
+            pageSize = DEFAULT_PAGE_SIZE;
+        } else {
+            pageSize = Math.min(size, MAX_PAGE_SIZE);
+        }
+
+        return pageSize;
+    }
+
+    /**
+     * Returns the privileges for the received roles, grouped by role id.
+     * <p>
+     * All the privileges are read in batches, instead of querying once per role.
+     *
+     * @param roleIds
+     *            ids of the roles to read
+     * @return the privileges for each role
+     */
+    private final Map<Long, Collection<PrivilegeData>> getPrivileges(final Collection<Long> roleIds) {
+        final Map<Long, Collection<PrivilegeData>> privileges;
+
+        privileges = new HashMap<>();
+        for (final List<Long> ids : ListUtils.partition(new ArrayList<>(roleIds), MAX_IDS_PER_QUERY)) {
+            privilegeRepository.findForRoles(ids)
+                .forEach(p -> privileges.computeIfAbsent(p.getRoleId(), k -> new ArrayList<>())
+                    .add(toDto(p)));
+        }
 
-        privilege = new DtoPrivilegeData();
-        BeanUtils.copyProperties(entity, privilege);
+        return privileges;
+    }
 
-        return privilege;
+    /**
+     * Returns the roles, with their privileges, for the received users, grouped by user id.
+     * <p>
+     * Roles and privileges are read in batches, so the number of queries doesn't depend on the number of users.
+     *
+     * @param userIds
+     *            ids of the users to read
+     * @return the roles for each user
+     */
+    private final Map<Long, Collection<RoleData>> getRoles(final Collection<Long> userIds) {
+        final Collection<UserRoleRelation>          relations;
+        final Map<Long, Collection<PrivilegeData>> privileges;
+        final Collection<Long>                      roleIds;
+        final Map<Long, Collection<RoleData>>       roles;
+
+        relations = new ArrayList<>();
+        for (final List<Long> ids : ListUtils.partition(new ArrayList<>(userIds), MAX_IDS_PER_QUERY)) {
+            relations.addAll(roleRepository.findForUsers(ids));
+        }
+
+        roleIds = relations.stream()
+            .map(UserRoleRelation::getRoleId)
+            .collect(Collectors.toSet());
+        privileges = getPrivileges(roleIds);
+
+        roles = new HashMap<>();
+        for (final UserRoleRelation relation : relations) {
+            roles.computeIfAbsent(relation.getUserId(), k -> new ArrayList<>())
+                .add(toDto(relation, privileges.getOrDefault(relation.getRoleId(), Collections.emptyList())));
+        }
+
+        return roles;
     }
 
-    private final RoleData toDto(final PersistentRole entity) {
-        final DtoRoleData               role;
-        final Collection<PrivilegeData> privilegesData;
+    /**
+     * Removes the user from the user cache and from the OAUTH user cache, so the next login reads the changes.
+     * <p>
+     * This is done right away, and again once the transaction finishes. Otherwise a login happening before the
+     * transaction commits could store the old data again.
+     *
+     * @param user
+     *            user to remove
+     */
+    private final void removeFromCache(final PersistentUser user) {
+        final String username;
+        final Long   userId;
 
-        privilegesData = privilegeRepository.findForUser(entity.getId())
-            .stream()
-            .map(this::toDto)
-            .collect(Collectors.toList());
+        username = user.getUsername();
+        userId = user.getId();
+
+        userCache.removeUserFromCache(username);
+        oAuthUserCache.removeUserFromCache(userId);
 
-        role = new DtoRoleData();
-        BeanUtils.copyProperties(entity, role);
-        role.setPrivileges(privilegesData);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+                @Override
+                public final void afterCompletion(final int status) {
+                    userCache.removeUserFromCache(username);
+                    oAuthUserCache.removeUserFromCache(userId);
+                }
+
+            });
+        }
+    }
+
+    private final UserData toDto(final PersistentUser entity, final Collection<RoleData> roles) {
+        final DtoUserData user;
+
+        user = userMapper.toDto(entity);
+        user.setRoles(roles);
+
+        return user;
+    }
+
+    private final RoleData toDto(final PersistentRole entity, final Collection<PrivilegeData> privileges) {
+        final DtoRoleData role;
+
+        role = userMapper.toDto(entity);
+        role.setPrivileges(privileges);
 
         return role;
     }
 
-    private final UserData toDto(final PersistentUser entity) {
-        final DtoUserData          user;
-        final Collection<RoleData> rolesData;
+    private final PrivilegeData toDto(final RolePrivilegeRelation relation) {
+        return userMapper.toDto(relation);
+    }
 
-        rolesData = roleRepository.findForUser(entity.getId())
-            .stream()
-            .map(this::toDto)
+    /**
+     * Transforms a list of user entities into user data. The roles and privileges for all the users are read in
+     * batches.
+     *
+     * @param entities
+     *            entities to transform
+     * @return equivalent user data
+     */
+    private final List<UserData> toDto(final Collection<PersistentUser> entities) {
+        final Map<Long, Collection<RoleData>> roles;
+        final Collection<Long>                userIds;
+
+        if (entities.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        userIds = entities.stream()
+            .map(PersistentUser::getId)
             .collect(Collectors.toList());
+        roles = getRoles(userIds);
 
-        user = new DtoUserData();
-        BeanUtils.copyProperties(entity, user);
-        user.setRoles(rolesData);
+        return entities.stream()
+            .map(u -> toDto(u, roles.getOrDefault(u.getId(), Collections.emptyList())))
+            .collect(Collectors.toList());
+    }
 
-        return user;
+    private final RoleData toDto(final UserRoleRelation relation, final Collection<PrivilegeData> privileges) {
+        final DtoRoleData role;
+
+        role = userMapper.toDto(relation);
+        role.setPrivileges(privileges);
+
+        return role;
     }
 
 }
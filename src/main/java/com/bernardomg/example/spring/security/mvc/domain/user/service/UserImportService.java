@@ -0,0 +1,60 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.domain.user.service;
+
+import java.io.InputStream;
+
+import org.springframework.security.access.prepost.PreAuthorize;
+
+import com.bernardomg.example.spring.security.mvc.domain.user.model.UserImportResult;
+
+/**
+ * Service for importing users in bulk.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+public interface UserImportService {
+
+    /**
+     * Imports the users in the received CSV data.
+     * <p>
+     * The first line is a header, and is ignored. Each of the following lines is a user, with these columns:
+     * <p>
+     * {@code username,email,password,name,enabled,locked,expired}
+     * <p>
+     * Only the first three are required. The name defaults to the username, and the flags default to an enabled user
+     * which is neither locked nor expired. Values can't be quoted, so they can't contain commas.
+     * <p>
+     * Invalid rows are skipped, and reported in the result. The rest are imported.
+     *
+     * @param input
+     *            CSV data to import
+     * @return the import result
+     */
+    @PreAuthorize("hasAuthority('CREATE_DATA')")
+    public UserImportResult importUsers(final InputStream input);
+
+}
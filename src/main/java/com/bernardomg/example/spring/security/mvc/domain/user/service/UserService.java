@@ -31,11 +31,15 @@
 
 import com.bernardomg.example.spring.security.mvc.domain.user.model.RoleData;
 import com.bernardomg.example.spring.security.mvc.domain.user.model.UserData;
+import com.bernardomg.example.spring.security.mvc.domain.user.model.UserPage;
 import com.bernardomg.example.spring.security.mvc.domain.user.model.form.UserForm;
 import com.bernardomg.example.spring.security.mvc.domain.user.model.form.UserRolesForm;
 
 /**
  * Service for handling user data.
+ * <p>
+ * Read methods use read-only transactions, so Hibernate doesn't check the loaded entities for changes, and the
+ * transaction can be sent to a read replica.
  *
  * @author Bernardo Mart&iacute;nez Garrido
  *
@@ -60,16 +64,21 @@ public interface UserService {
      * @return all the roles
      */
     @PreAuthorize("hasAuthority('READ_DATA')")
+    @Transactional(readOnly = true)
     public Iterable<RoleData> getAllRoles();
 
     /**
      * Returns all the users in the application.
      * <p>
+     * This reads the full users table, use {@link #getUsers(String, String, Integer)} when the users are going to be
+     * shown.
+     * <p>
      * TODO: Don't return entities
      *
      * @return all the users
      */
     @PreAuthorize("hasAuthority('READ_DATA')")
+    @Transactional(readOnly = true)
     public Iterable<UserData> getAllUsers();
 
     /**
@@ -82,6 +91,7 @@ public interface UserService {
      * @return roles for the user
      */
     @PreAuthorize("hasAuthority('READ_DATA')")
+    @Transactional(readOnly = true)
     public Collection<RoleData> getRoles(final String username);
 
     /**
@@ -94,8 +104,30 @@ public interface UserService {
      * @return user for the received username
      */
     @PreAuthorize("hasAuthority('READ_DATA')")
+    @Transactional(readOnly = true)
     public UserData getUser(final String username);
 
+    /**
+     * Returns a page of users, sorted by username.
+     * <p>
+     * Pages are read through keyset pagination. The cursors are usernames, and the page will contain the users after
+     * or before them. If no cursor is received, the first page is returned. If both are received, the {@code before}
+     * cursor is used.
+     * <p>
+     * The page size is capped, so a request can never read more than a fixed number of users.
+     *
+     * @param after
+     *            username after which the page starts, may be {@code null}
+     * @param before
+     *            username before which the page ends, may be {@code null}
+     * @param size
+     *            page size, the default one is used if {@code null}
+     * @return a page of users
+     */
+    @PreAuthorize("hasAuthority('READ_DATA')")
+    @Transactional(readOnly = true)
+    public UserPage getUsers(final String after, final String before, final Integer size);
+
     /**
      * Updates the received user. The user is only valid if it doesn't exist already.
      *
@@ -107,6 +139,9 @@ public interface UserService {
 
     /**
      * Updates the roles for the received user.
+     * <p>
+     * The received roles replace the current ones. Roles which the user didn't have are added, and roles which are not
+     * received are removed.
      *
      * @param userRoles
      *            user and roles to update
@@ -24,11 +24,14 @@
 
 package com.bernardomg.example.spring.security.mvc.mvc.error;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.handler.AbstractHandlerExceptionResolver;
 
+import com.bernardomg.example.spring.security.mvc.security.password.PasswordHashingRejectedException;
+
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
@@ -53,12 +56,24 @@ public GlobalExceptionHandler() {
     protected ModelAndView doResolveException(final HttpServletRequest request, final HttpServletResponse response,
             final Object handler, final Exception ex) {
         final ModelAndView modelView;
+        final HttpStatus   status;
 
-        log.error(ex.getMessage(), ex);
+        if (ex instanceof PasswordHashingRejectedException) {
+            // Not an error, the server is busy
+            log.warn(ex.getMessage());
+            status = HttpStatus.SERVICE_UNAVAILABLE;
+            response.setStatus(status.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER,
+                String.valueOf(((PasswordHashingRejectedException) ex).getRetryAfter()
+                    .toSeconds()));
+        } else {
+            log.error(ex.getMessage(), ex);
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
 
         modelView = new ModelAndView(ErrorViews.EXCEPTION);
         modelView.getModel()
-            .put("code", HttpStatus.INTERNAL_SERVER_ERROR.value());
+            .put("code", status.value());
         modelView.getModel()
             .put("message", ex.getMessage());
 
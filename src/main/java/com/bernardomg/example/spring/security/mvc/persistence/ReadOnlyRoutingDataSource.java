@@ -0,0 +1,96 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.persistence;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Data source which sends the read-only transactions to a replica, and everything else to the primary database.
+ * <p>
+ * The route is chosen when the connection is requested, from the current transaction. Spring requests it when the
+ * transaction begins, before marking it as read-only, so this data source should be wrapped in a
+ * {@code LazyConnectionDataSourceProxy}. This way the connection is taken when the first statement is run.
+ * <p>
+ * Queries outside a transaction go to the primary database.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+public final class ReadOnlyRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * Key for the primary data source.
+     */
+    private static final String PRIMARY = "primary";
+
+    /**
+     * Key for the replica data source.
+     */
+    private static final String REPLICA = "replica";
+
+    /**
+     * Constructs a routing data source.
+     *
+     * @param primary
+     *            data source for the primary database
+     * @param replica
+     *            data source for the replica
+     */
+    public ReadOnlyRoutingDataSource(final DataSource primary, final DataSource replica) {
+        super();
+
+        final Map<Object, Object> targets;
+
+        targets = new HashMap<>();
+        targets.put(PRIMARY, Objects.requireNonNull(primary, "Received a null pointer as primary data source"));
+        targets.put(REPLICA, Objects.requireNonNull(replica, "Received a null pointer as replica data source"));
+
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected final Object determineCurrentLookupKey() {
+        final String key;
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            key = REPLICA;
+        } else {
+            key = PRIMARY;
+        }
+
+        return key;
+    }
+
+}
@@ -0,0 +1,552 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.audit;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.boot.actuate.audit.AuditEventRepository;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Audit event repository which stores the events in the database, without making the publisher wait for it.
+ * <p>
+ * Events are added to a bounded queue, and a background thread takes them from it and writes them in JDBC batches. The
+ * queue is lock-free, so adding an event never blocks, which matters as events are published during the login.
+ * <p>
+ * When the queue is full new events are dropped, instead of slowing down the publishers. Dropped events are counted, and
+ * the count can be read to size the queue. Events are also lost when they can't be written, these are counted as
+ * dropped too.
+ * <p>
+ * A bad event can't make the rest of its batch be lost. Principals and types longer than their columns are truncated
+ * when added. And if a batch fails anyway, the events which weren't stored are written again one by one, so only the
+ * events which fail on their own are dropped.
+ * <p>
+ * Event data is stored as JSON. Values which can't be serialized are stored as their string representation.
+ * <p>
+ * The session id is removed from the authentication details before storing them, as it would allow taking over the
+ * session. Only the remote address is kept.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Slf4j
+public final class AsyncJdbcAuditEventRepository implements AuditEventRepository, SmartLifecycle {
+
+    /**
+     * Type for reading the event data.
+     */
+    private static final TypeReference<Map<String, Object>> DATA_TYPE        = new TypeReference<>() {};
+
+    /**
+     * Key for the authentication details in the event data.
+     */
+    private static final String                             DETAILS          = "details";
+
+    /**
+     * Query to store an event.
+     */
+    private static final String                             INSERT_SQL       = "INSERT INTO audit_events "
+            + "(event_date, principal, type, data) VALUES (?, ?, ?, ?)";
+
+    /**
+     * Lifecycle phase. Before the web server, so the events from the last requests are written.
+     */
+    private static final int                                PHASE            = SmartLifecycle.DEFAULT_PHASE - 2048;
+
+    /**
+     * Maximum length for the principal, the width of its column.
+     */
+    private static final int                                PRINCIPAL_LENGTH = 255;
+
+    /**
+     * Base query to read events.
+     */
+    private static final String                             SELECT_SQL       = "SELECT event_date, principal, type, "
+            + "data FROM audit_events";
+
+    /**
+     * Maximum length for the type, the width of its column.
+     */
+    private static final int                                TYPE_LENGTH      = 100;
+
+    /**
+     * Maximum number of events written in each batch.
+     */
+    private final int                                       batchSize;
+
+    /**
+     * Maximum number of events in the queue.
+     */
+    private final int                                       capacity;
+
+    /**
+     * Events dropped, either because the queue was full or because they couldn't be written.
+     */
+    private final AtomicLong                                dropped          = new AtomicLong();
+
+    /**
+     * Delay between writes.
+     */
+    private final Duration                                  flushInterval;
+
+    /**
+     * JDBC template for the event queries.
+     */
+    private final JdbcTemplate                              jdbcTemplate;
+
+    /**
+     * Mapper for the event data.
+     */
+    private final ObjectMapper                              objectMapper;
+
+    /**
+     * Events waiting to be written.
+     */
+    private final Queue<AuditEvent>                         queue            = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Number of events in the queue. Kept apart, as the queue size is not a constant time operation.
+     */
+    private final AtomicInteger                             queued           = new AtomicInteger();
+
+    /**
+     * Scheduler for the writes.
+     */
+    private ScheduledExecutorService                        scheduler;
+
+    /**
+     * Events written.
+     */
+    private final AtomicLong                                written          = new AtomicLong();
+
+    /**
+     * Constructs an audit event repository.
+     *
+     * @param template
+     *            JDBC template for the event queries
+     * @param mapper
+     *            mapper for the event data
+     * @param queueSize
+     *            maximum number of events in the queue
+     * @param size
+     *            maximum number of events written in each batch
+     * @param interval
+     *            delay between writes
+     */
+    public AsyncJdbcAuditEventRepository(final JdbcTemplate template, final ObjectMapper mapper, final int queueSize,
+            final int size, final Duration interval) {
+        super();
+
+        jdbcTemplate = Objects.requireNonNull(template, "Received a null pointer as JDBC template");
+        objectMapper = Objects.requireNonNull(mapper, "Received a null pointer as object mapper");
+        flushInterval = Objects.requireNonNull(interval, "Received a null pointer as flush interval");
+        capacity = queueSize;
+        batchSize = size;
+    }
+
+    @Override
+    public final void add(final AuditEvent event) {
+        final String     principal;
+        final String     type;
+        final AuditEvent fitted;
+
+        Objects.requireNonNull(event, "Received a null pointer as event");
+
+        principal = event.getPrincipal();
+        type = event.getType();
+
+        // The principal comes from the login form, so it may be longer than its column
+        if ((principal.length() > PRINCIPAL_LENGTH) || (type.length() > TYPE_LENGTH)) {
+            fitted = new AuditEvent(event.getTimestamp(), truncate(principal, PRINCIPAL_LENGTH),
+                truncate(type, TYPE_LENGTH), event.getData());
+        } else {
+            fitted = event;
+        }
+
+        if (queued.incrementAndGet() > capacity) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            log.debug("Audit queue full, dropped event {} for {}", fitted.getType(), fitted.getPrincipal());
+        } else {
+            queue.offer(fitted);
+        }
+    }
+
+    @Override
+    public final List<AuditEvent> find(final String principal, final Instant after, final String type) {
+        final Collection<String> conditions;
+        final List<Object>       arguments;
+        final StringBuilder      sql;
+
+        conditions = new ArrayList<>();
+        arguments = new ArrayList<>();
+        if (principal != null) {
+            conditions.add("principal = ?");
+            arguments.add(principal);
+        }
+        if (after != null) {
+            conditions.add("event_date > ?");
+            arguments.add(Timestamp.from(after));
+        }
+        if (type != null) {
+            conditions.add("type = ?");
+            arguments.add(type);
+        }
+
+        sql = new StringBuilder(SELECT_SQL);
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ");
+            sql.append(String.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY event_date");
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> toEvent(rs), arguments.toArray());
+    }
+
+    /**
+     * Writes all the queued events, batch by batch.
+     */
+    public final void flush() {
+        final List<AuditEvent> batch;
+        AuditEvent             event;
+
+        batch = new ArrayList<>(batchSize);
+        do {
+            batch.clear();
+            event = queue.poll();
+            while (event != null) {
+                batch.add(event);
+                if (batch.size() < batchSize) {
+                    event = queue.poll();
+                } else {
+                    event = null;
+                }
+            }
+            queued.addAndGet(-batch.size());
+
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    /**
+     * Returns the number of events dropped.
+     *
+     * @return the number of events dropped
+     */
+    public final long getDroppedEvents() {
+        return dropped.get();
+    }
+
+    @Override
+    public final int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Returns the number of events waiting to be written.
+     *
+     * @return the number of events waiting to be written
+     */
+    public final int getQueuedEvents() {
+        return queued.get();
+    }
+
+    /**
+     * Returns the number of events written.
+     *
+     * @return the number of events written
+     */
+    public final long getWrittenEvents() {
+        return written.get();
+    }
+
+    @Override
+    public final boolean isRunning() {
+        return (scheduler != null) && !scheduler.isShutdown();
+    }
+
+    /**
+     * Starts writing the queued events.
+     */
+    @Override
+    public final void start() {
+        final CustomizableThreadFactory threadFactory;
+
+        threadFactory = new CustomizableThreadFactory("audit-writer-");
+        threadFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        scheduler.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(),
+            TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the scheduled writes, and writes the events still queued.
+     */
+    @Override
+    public final void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread()
+                    .interrupt();
+            }
+        }
+
+        flush();
+    }
+
+    /**
+     * Reads the event data from JSON.
+     *
+     * @param json
+     *            JSON to read
+     * @return the event data
+     */
+    private final Map<String, Object> fromJson(final String json) {
+        Map<String, Object> data;
+
+        if (json == null) {
+            data = Collections.emptyMap();
+        } else {
+            try {
+                data = objectMapper.readValue(json, DATA_TYPE);
+            } catch (final JsonProcessingException e) {
+                log.warn("Invalid audit event data {}", json);
+                data = Collections.emptyMap();
+            }
+        }
+
+        return data;
+    }
+
+    /**
+     * Maps the current row into an event.
+     *
+     * @param rs
+     *            result set with the row
+     * @return the event for the row
+     * @throws SQLException
+     *             if the row can't be read
+     */
+    private final AuditEvent toEvent(final ResultSet rs) throws SQLException {
+        return new AuditEvent(rs.getTimestamp(1)
+            .toInstant(), rs.getString(2), rs.getString(3), fromJson(rs.getString(4)));
+    }
+
+    /**
+     * Returns the events from a failed batch which weren't stored. These are found from the update counts of the batch
+     * exception. If there is none, all the events are returned.
+     *
+     * @param batch
+     *            events in the batch
+     * @param exception
+     *            exception thrown by the batch
+     * @return the events which weren't stored
+     */
+    private final List<AuditEvent> getUnwritten(final List<AuditEvent> batch, final RuntimeException exception) {
+        final List<AuditEvent> unwritten;
+        final int[]            counts;
+        Throwable              cause;
+
+        cause = exception;
+        while ((cause != null) && !(cause instanceof BatchUpdateException)) {
+            cause = cause.getCause();
+        }
+
+        if (cause == null) {
+            unwritten = batch;
+        } else {
+            // Drivers which stop on the first failure only return the counts before it
+            counts = ((BatchUpdateException) cause).getUpdateCounts();
+            unwritten = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                if ((i >= counts.length) || (counts[i] == Statement.EXECUTE_FAILED)) {
+                    unwritten.add(batch.get(i));
+                }
+            }
+        }
+
+        return unwritten;
+    }
+
+    /**
+     * Returns the event data without the session id. Web authentication details are replaced by their remote address,
+     * and the session id is removed from details stored as a map.
+     *
+     * @param data
+     *            data to clean
+     * @return the data without the session id
+     */
+    private final Map<String, Object> removeSessionId(final Map<String, Object> data) {
+        final Object              details;
+        final Map<String, Object> cleaned;
+        final Map<String, Object> cleanedDetails;
+
+        details = data.get(DETAILS);
+        if (details instanceof WebAuthenticationDetails) {
+            cleaned = new LinkedHashMap<>(data);
+            cleaned.put(DETAILS, Collections.singletonMap("remoteAddress",
+                ((WebAuthenticationDetails) details).getRemoteAddress()));
+        } else if ((details instanceof Map) && ((Map<?, ?>) details).containsKey("sessionId")) {
+            cleanedDetails = new LinkedHashMap<>();
+            ((Map<?, ?>) details).forEach((key, value) -> cleanedDetails.put(String.valueOf(key), value));
+            cleanedDetails.remove("sessionId");
+            cleaned = new LinkedHashMap<>(data);
+            cleaned.put(DETAILS, cleanedDetails);
+        } else {
+            cleaned = data;
+        }
+
+        return cleaned;
+    }
+
+    /**
+     * Sets the event values into the insert statement.
+     *
+     * @param statement
+     *            statement to set
+     * @param event
+     *            event to store
+     * @throws SQLException
+     *             if the values can't be set
+     */
+    private final void setValues(final PreparedStatement statement, final AuditEvent event) throws SQLException {
+        statement.setTimestamp(1, Timestamp.from(event.getTimestamp()));
+        statement.setString(2, event.getPrincipal());
+        statement.setString(3, event.getType());
+        statement.setString(4, toJson(removeSessionId(event.getData())));
+    }
+
+    /**
+     * Writes the event data as JSON.
+     *
+     * @param data
+     *            data to write
+     * @return the data as JSON
+     */
+    private final String toJson(final Map<String, Object> data) {
+        final ObjectNode node;
+        String           json;
+
+        try {
+            json = objectMapper.writeValueAsString(data);
+        } catch (final JsonProcessingException e) {
+            log.debug("Audit event data can't be serialized, storing the values as strings", e);
+            node = objectMapper.createObjectNode();
+            data.forEach((key, value) -> node.put(key, String.valueOf(value)));
+            json = node.toString();
+        }
+
+        return json;
+    }
+
+    /**
+     * Returns the value cut to the maximum length.
+     *
+     * @param value
+     *            value to cut
+     * @param length
+     *            maximum length
+     * @return the value cut to the maximum length
+     */
+    private final String truncate(final String value, final int length) {
+        return value.length() > length ? value.substring(0, length) : value;
+    }
+
+    /**
+     * Writes a batch of events. If it fails, the events which weren't stored are written one by one.
+     *
+     * @param batch
+     *            events to write
+     */
+    private final void write(final List<AuditEvent> batch) {
+        final List<AuditEvent> unwritten;
+
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), this::setValues);
+            written.addAndGet(batch.size());
+        } catch (final RuntimeException e) {
+            log.warn("Failed writing {} audit events in a batch, writing them one by one", batch.size(), e);
+            unwritten = getUnwritten(batch, e);
+            written.addAndGet(batch.size() - unwritten.size());
+            for (final AuditEvent event : unwritten) {
+                writeEvent(event);
+            }
+        }
+    }
+
+    /**
+     * Writes a single event. If it fails the event is lost, and counted as dropped.
+     *
+     * @param event
+     *            event to write
+     */
+    private final void writeEvent(final AuditEvent event) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, statement -> setValues(statement, event));
+            written.incrementAndGet();
+        } catch (final RuntimeException e) {
+            dropped.incrementAndGet();
+            log.warn("Failed writing audit event {} for {}", event.getType(), event.getPrincipal(), e);
+        }
+    }
+
+}
@@ -24,68 +24,65 @@
 
 package com.bernardomg.example.spring.security.mvc.security.audit;
 
-import java.util.Map;
-
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.MarkerManager;
 import org.springframework.boot.actuate.audit.AuditEvent;
 import org.springframework.boot.actuate.audit.listener.AuditApplicationEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.stereotype.Component;
 
-import lombok.extern.slf4j.Slf4j;
+import lombok.extern.log4j.Log4j2;
 
 /**
  * Listens for audit events and logs them.
+ * <p>
+ * Each event is logged as a single line of key/value fields, so the audit log can be parsed:
+ * <p>
+ * {@code type=AUTHENTICATION_SUCCESS principal=admin session=... address=127.0.0.1 message=null}
+ * <p>
+ * The level is checked before reading the event, so nothing is done when the log is disabled. The message is built by
+ * Log4j2 from its parameters, using the overloads which take them one by one, so there is no array or string built in
+ * this class. Lines are tagged with the {@code AUDIT} marker, which allows routing them to their own appender.
  *
  * @author Bernardo Mart&iacute;nez Garrido
  *
  */
 @Component
-@Slf4j
+@Log4j2
 public class AuditEventLogger {
 
+    /**
+     * Marker for the audit log lines.
+     */
+    private static final Marker AUDIT = MarkerManager.getMarker("AUDIT");
+
     @EventListener
     public void auditEventHappened(final AuditApplicationEvent auditApplicationEvent) {
         final AuditEvent               auditEvent;
         final Object                   details;
         final WebAuthenticationDetails webDetails;
-        final Object                   message;
-        final Map<String, Object>      data;
-        final StringBuilder            messageBuilder;
+        final String                   sessionId;
+        final String                   remoteAddress;
 
-        auditEvent = auditApplicationEvent.getAuditEvent();
-        data = auditEvent.getData();
+        if (log.isDebugEnabled(AUDIT)) {
+            auditEvent = auditApplicationEvent.getAuditEvent();
 
-        messageBuilder = new StringBuilder();
-
-        messageBuilder.append("Audit event ");
-        messageBuilder.append(auditEvent.getType());
-        messageBuilder.append(" for ");
-        messageBuilder.append(auditEvent.getPrincipal());
-
-        if (data.containsKey("details")) {
-            details = data.get("details");
+            details = auditEvent.getData()
+                .get("details");
             if (details instanceof WebAuthenticationDetails) {
                 webDetails = (WebAuthenticationDetails) details;
-                if (webDetails.getSessionId() != null) {
-                    messageBuilder.append(" with session id ");
-                    messageBuilder.append(webDetails.getSessionId());
-                }
-                if (webDetails.getRemoteAddress() != null) {
-                    messageBuilder.append(" from address ");
-                    messageBuilder.append(webDetails.getRemoteAddress());
-                }
+                sessionId = webDetails.getSessionId();
+                remoteAddress = webDetails.getRemoteAddress();
+            } else {
+                sessionId = null;
+                remoteAddress = null;
             }
-        }
 
-        if (data.containsKey("message")) {
-            message = data.get("message");
-            messageBuilder.append(" (");
-            messageBuilder.append(message);
-            messageBuilder.append(")");
+            log.debug(AUDIT, "type={} principal={} session={} address={} message={}", auditEvent.getType(),
+                auditEvent.getPrincipal(), sessionId, remoteAddress, auditEvent.getData()
+                    .get("message"));
         }
-
-        log.debug(messageBuilder.toString());
     }
 
 }
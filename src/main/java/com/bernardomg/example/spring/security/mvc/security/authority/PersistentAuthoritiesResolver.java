@@ -0,0 +1,76 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.authority;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentPrivilege;
+import com.bernardomg.example.spring.security.mvc.security.user.repository.PrivilegeRepository;
+
+/**
+ * Authorities resolver which reads the privileges from the persistence layer each time.
+ * <p>
+ * Privileges are read moving through the model, in a single query:
+ * <p>
+ * {@code user -> role -> privileges}
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+public final class PersistentAuthoritiesResolver implements AuthoritiesResolver {
+
+    /**
+     * Repository for the privileges.
+     */
+    private final PrivilegeRepository privilegeRepository;
+
+    /**
+     * Constructs a resolver.
+     *
+     * @param privilegeRepo
+     *            repository for privileges
+     */
+    public PersistentAuthoritiesResolver(final PrivilegeRepository privilegeRepo) {
+        super();
+
+        privilegeRepository = Objects.requireNonNull(privilegeRepo, "Received a null pointer as repository");
+    }
+
+    @Override
+    public final Collection<GrantedAuthority> getAuthorities(final Long userId) {
+        return privilegeRepository.findForUser(userId)
+            .stream()
+            .map(PersistentPrivilege::getName)
+            .distinct()
+            .map(SimpleGrantedAuthority::new)
+            .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,143 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.authority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import com.bernardomg.example.spring.security.mvc.security.user.model.RolePrivilegeRelation;
+import com.bernardomg.example.spring.security.mvc.security.user.repository.PrivilegeRepository;
+import com.bernardomg.example.spring.security.mvc.security.user.repository.RoleRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Authorities resolver which keeps the role to privileges graph in memory.
+ * <p>
+ * Roles and privileges rarely change, so the full graph is read once and kept as an immutable snapshot. Resolving the
+ * authorities for a user only requires reading his role ids, which are then merged with the snapshot.
+ * <p>
+ * The snapshot is replaced atomically by {@link #reload()}, which is scheduled to run periodically. Until then the
+ * old privileges are used. Readers never see a partially loaded graph.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Slf4j
+public final class RoleGraphAuthoritiesResolver implements AuthoritiesResolver {
+
+    /**
+     * Repository for the privileges.
+     */
+    private final PrivilegeRepository                            privilegeRepository;
+
+    /**
+     * Repository for the roles.
+     */
+    private final RoleRepository                                 roleRepository;
+
+    /**
+     * Snapshot of the privileges for each role, by role id.
+     */
+    private final AtomicReference<Map<Long, Collection<String>>> snapshot = new AtomicReference<>(
+        Collections.emptyMap());
+
+    /**
+     * Constructs a resolver. The graph is not loaded until {@link #reload()} is called.
+     *
+     * @param roleRepo
+     *            repository for roles
+     * @param privilegeRepo
+     *            repository for privileges
+     */
+    public RoleGraphAuthoritiesResolver(final RoleRepository roleRepo, final PrivilegeRepository privilegeRepo) {
+        super();
+
+        roleRepository = Objects.requireNonNull(roleRepo, "Received a null pointer as roles repository");
+        privilegeRepository = Objects.requireNonNull(privilegeRepo, "Received a null pointer as privileges repository");
+    }
+
+    @Override
+    public final Collection<GrantedAuthority> getAuthorities(final Long userId) {
+        final Map<Long, Collection<String>> graph;
+        final Set<String>                   privileges;
+
+        graph = snapshot.get();
+
+        privileges = new LinkedHashSet<>();
+        for (final Long roleId : roleRepository.findIdsForUser(userId)) {
+            privileges.addAll(graph.getOrDefault(roleId, Collections.emptyList()));
+        }
+
+        return privileges.stream()
+            .map(SimpleGrantedAuthority::new)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the number of roles in the snapshot.
+     *
+     * @return the number of roles in the snapshot
+     */
+    public final int getRoleCount() {
+        return snapshot.get()
+            .size();
+    }
+
+    /**
+     * Reads the role to privileges graph, and replaces the current snapshot with it.
+     */
+    public final void reload() {
+        final Map<Long, List<String>>       read;
+        final Map<Long, Collection<String>> graph;
+
+        read = new HashMap<>();
+        for (final RolePrivilegeRelation relation : privilegeRepository.findAllRelations()) {
+            read.computeIfAbsent(relation.getRoleId(), k -> new ArrayList<>())
+                .add(relation.getPrivilegeName());
+        }
+
+        graph = read.entrySet()
+            .stream()
+            .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> List.copyOf(e.getValue())));
+
+        snapshot.set(graph);
+
+        log.debug("Loaded privileges for {} roles", graph.size());
+    }
+
+}
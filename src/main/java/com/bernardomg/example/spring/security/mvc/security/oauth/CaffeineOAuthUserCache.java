@@ -0,0 +1,152 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.oauth;
+
+import java.time.Duration;
+import java.util.Objects;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * OAUTH user cache backed by Caffeine. It is bounded both in size and in time.
+ * <p>
+ * Entries are removed by the local user id when the user, or his roles, change. As the cache is keyed by the provider
+ * id, this goes through all the entries, which is acceptable as users change rarely compared to logins. The time to
+ * live covers changes done outside the application.
+ * <p>
+ * Hits, misses and evictions are recorded, and can be read to size the cache.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Slf4j
+public final class CaffeineOAuthUserCache implements OAuthUserCache {
+
+    /**
+     * Wrapped cache.
+     */
+    private final Cache<String, OAuthLocalUser> cache;
+
+    /**
+     * Constructs an OAUTH user cache.
+     *
+     * @param maxSize
+     *            maximum number of users in the cache
+     * @param ttl
+     *            time a user is kept in the cache after being stored
+     */
+    public CaffeineOAuthUserCache(final long maxSize, final Duration ttl) {
+        super();
+
+        Objects.requireNonNull(ttl, "Received a null pointer as time to live");
+
+        cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Removes all the users from the cache.
+     */
+    public final void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the number of evicted users. This includes both users discarded due to size and expired users.
+     *
+     * @return the number of evicted users
+     */
+    public final long getEvictionCount() {
+        return getStats().evictionCount();
+    }
+
+    /**
+     * Returns the number of cache hits.
+     *
+     * @return the number of cache hits
+     */
+    public final long getHitCount() {
+        return getStats().hitCount();
+    }
+
+    /**
+     * Returns the number of cache misses.
+     *
+     * @return the number of cache misses
+     */
+    public final long getMissCount() {
+        return getStats().missCount();
+    }
+
+    /**
+     * Returns the approximate number of users in the cache.
+     *
+     * @return the number of users in the cache
+     */
+    public final long getSize() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Returns all the cache statistics.
+     *
+     * @return the cache statistics
+     */
+    public final CacheStats getStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public final OAuthLocalUser getUserFromCache(final String providerId) {
+        final OAuthLocalUser user;
+
+        user = cache.getIfPresent(providerId);
+        if (user != null) {
+            log.trace("Found OAUTH user {} in cache", providerId);
+        }
+
+        return user;
+    }
+
+    @Override
+    public final void putUserInCache(final String providerId, final OAuthLocalUser user) {
+        cache.put(providerId, user);
+    }
+
+    @Override
+    public final void removeUserFromCache(final Long userId) {
+        cache.asMap()
+            .values()
+            .removeIf(user -> userId.equals(user.getId()));
+    }
+
+}
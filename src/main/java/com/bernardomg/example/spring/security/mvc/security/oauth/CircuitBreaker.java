@@ -0,0 +1,176 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.oauth;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Circuit breaker for calls to a remote service. After a number of consecutive failures the circuit opens, and requests
+ * are rejected without calling the service.
+ * <p>
+ * Once the open duration passes, a single trial request is allowed. If it succeeds the circuit closes, otherwise it is
+ * kept open for another period.
+ * <p>
+ * The current time is received as an argument, in milliseconds, so the breaker doesn't depend on the clock.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+public final class CircuitBreaker {
+
+    /**
+     * Value for the opening time when the circuit is closed.
+     */
+    private static final long   CLOSED   = -1;
+
+    /**
+     * Consecutive failures.
+     */
+    private final AtomicInteger failures = new AtomicInteger();
+
+    /**
+     * Consecutive failures which open the circuit.
+     */
+    private final int           failureThreshold;
+
+    /**
+     * Time the circuit is kept open, in milliseconds.
+     */
+    private final long          openDuration;
+
+    /**
+     * Time when the circuit was opened, in milliseconds.
+     */
+    private final AtomicLong    openedAt = new AtomicLong(CLOSED);
+
+    /**
+     * Requests rejected due to the circuit being open.
+     */
+    private final AtomicLong    rejected = new AtomicLong();
+
+    /**
+     * Flags a trial request is running.
+     */
+    private final AtomicBoolean trial    = new AtomicBoolean();
+
+    /**
+     * Constructs a circuit breaker.
+     *
+     * @param threshold
+     *            consecutive failures which open the circuit
+     * @param duration
+     *            time the circuit is kept open
+     */
+    public CircuitBreaker(final int threshold, final Duration duration) {
+        super();
+
+        Objects.requireNonNull(duration, "Received a null pointer as open duration");
+
+        failureThreshold = threshold;
+        openDuration = duration.toMillis();
+    }
+
+    /**
+     * Checks if a request can be sent. While the circuit is open only a single trial request is allowed, once the open
+     * duration passes.
+     *
+     * @param now
+     *            current time, in milliseconds
+     * @return {@code true} if the request can be sent, {@code false} otherwise
+     */
+    public final boolean allowRequest(final long now) {
+        final long    opened;
+        final boolean allowed;
+
+        opened = openedAt.get();
+        if (opened == CLOSED) {
+            allowed = true;
+        } else if ((now - opened) < openDuration) {
+            allowed = false;
+        } else {
+            allowed = trial.compareAndSet(false, true);
+        }
+
+        if (!allowed) {
+            rejected.incrementAndGet();
+        }
+
+        return allowed;
+    }
+
+    /**
+     * Returns the number of requests rejected due to the circuit being open.
+     *
+     * @return the number of rejected requests
+     */
+    public final long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Checks if the circuit is open.
+     *
+     * @return {@code true} if the circuit is open, {@code false} otherwise
+     */
+    public final boolean isOpen() {
+        return openedAt.get() != CLOSED;
+    }
+
+    /**
+     * Registers a failed request. This opens the circuit if there are too many consecutive failures, or if it was a
+     * trial request.
+     *
+     * @param now
+     *            current time, in milliseconds
+     */
+    public final void recordFailure(final long now) {
+        if ((failures.incrementAndGet() >= failureThreshold) || trial.get()) {
+            openedAt.set(now);
+            trial.set(false);
+        }
+    }
+
+    /**
+     * Registers a successful request. This closes the circuit.
+     */
+    public final void recordSuccess() {
+        failures.set(0);
+        openedAt.set(CLOSED);
+        trial.set(false);
+    }
+
+    /**
+     * Closes the circuit, and clears the failures.
+     */
+    public final void reset() {
+        recordSuccess();
+        rejected.set(0);
+    }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.oauth;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies a {@link CircuitBreaker} to HTTP requests, one for each host. Connection errors, timeouts, server errors and
+ * any other exception thrown while sending the request are failures. This way a trial request always ends with its
+ * result recorded, and the circuit can close again.
+ * <p>
+ * Requests rejected by the breaker throw an {@code IOException}, the same as if the remote service can't be reached.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Slf4j
+public final class CircuitBreakerInterceptor implements ClientHttpRequestInterceptor {
+
+    /**
+     * Circuit breakers for the requests, by host.
+     */
+    private final CircuitBreakers circuitBreakers;
+
+    /**
+     * Constructs an interceptor.
+     *
+     * @param breakers
+     *            circuit breakers for the requests, by host
+     */
+    public CircuitBreakerInterceptor(final CircuitBreakers breakers) {
+        super();
+
+        circuitBreakers = Objects.requireNonNull(breakers, "Received a null pointer as circuit breakers");
+    }
+
+    @Override
+    public final ClientHttpResponse intercept(final HttpRequest request, final byte[] body,
+            final ClientHttpRequestExecution execution) throws IOException {
+        final String             host;
+        final CircuitBreaker     circuitBreaker;
+        final ClientHttpResponse response;
+        final boolean            failed;
+
+        host = String.valueOf(request.getURI()
+            .getHost());
+        circuitBreaker = circuitBreakers.getCircuitBreaker(host);
+
+        if (!circuitBreaker.allowRequest(System.currentTimeMillis())) {
+            log.warn("Rejected request to {}, as the circuit is open", host);
+            throw new IOException("Circuit open for " + host);
+        }
+
+        try {
+            response = execution.execute(request, body);
+            failed = response.getStatusCode()
+                .is5xxServerError();
+        } catch (final IOException | RuntimeException e) {
+            log.warn("Failed request to {}", host, e);
+            circuitBreaker.recordFailure(System.currentTimeMillis());
+            throw e;
+        }
+
+        if (failed) {
+            circuitBreaker.recordFailure(System.currentTimeMillis());
+        } else {
+            circuitBreaker.recordSuccess();
+        }
+
+        return response;
+    }
+
+}
@@ -0,0 +1,115 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.oauth;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a {@link CircuitBreaker} for each remote service, so a failing service doesn't block the calls to the others.
+ * <p>
+ * Breakers are created on the first call for each key, all of them with the same configuration. The keys are expected
+ * to come from a fixed set, such as the hosts of the configured providers, as the breakers are never removed.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+public final class CircuitBreakers {
+
+    /**
+     * Circuit breakers, by key.
+     */
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * Consecutive failures which open each circuit.
+     */
+    private final int                         failureThreshold;
+
+    /**
+     * Time each circuit is kept open.
+     */
+    private final Duration                    openDuration;
+
+    /**
+     * Constructs the circuit breakers.
+     *
+     * @param threshold
+     *            consecutive failures which open each circuit
+     * @param duration
+     *            time each circuit is kept open
+     */
+    public CircuitBreakers(final int threshold, final Duration duration) {
+        super();
+
+        failureThreshold = threshold;
+        openDuration = Objects.requireNonNull(duration, "Received a null pointer as open duration");
+    }
+
+    /**
+     * Returns the circuit breaker for the key, creating it if needed.
+     *
+     * @param key
+     *            key for the remote service
+     * @return the circuit breaker for the key
+     */
+    public final CircuitBreaker getCircuitBreaker(final String key) {
+        return breakers.computeIfAbsent(key, k -> new CircuitBreaker(failureThreshold, openDuration));
+    }
+
+    /**
+     * Returns the number of open circuits.
+     *
+     * @return the number of open circuits
+     */
+    public final long getOpenCount() {
+        return breakers.values()
+            .stream()
+            .filter(CircuitBreaker::isOpen)
+            .count();
+    }
+
+    /**
+     * Returns the number of requests rejected by all the circuits.
+     *
+     * @return the number of rejected requests
+     */
+    public final long getRejectedCount() {
+        return breakers.values()
+            .stream()
+            .mapToLong(CircuitBreaker::getRejectedCount)
+            .sum();
+    }
+
+    /**
+     * Removes all the circuit breakers.
+     */
+    public final void reset() {
+        breakers.clear();
+    }
+
+}
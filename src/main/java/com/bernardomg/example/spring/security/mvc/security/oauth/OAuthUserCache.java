@@ -0,0 +1,62 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.oauth;
+
+/**
+ * Cache for the local users linked to OAUTH users. The keys are the ids given by the OAUTH provider.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+public interface OAuthUserCache {
+
+    /**
+     * Returns the local user linked to the OAUTH user, or {@code null} if it is not in the cache.
+     *
+     * @param providerId
+     *            id of the user in the OAUTH provider
+     * @return the cached local user, or {@code null}
+     */
+    public OAuthLocalUser getUserFromCache(final String providerId);
+
+    /**
+     * Stores the local user linked to the OAUTH user.
+     *
+     * @param providerId
+     *            id of the user in the OAUTH provider
+     * @param user
+     *            local user to store
+     */
+    public void putUserInCache(final String providerId, final OAuthLocalUser user);
+
+    /**
+     * Removes all the entries for the local user. This should be called whenever the user, or his roles, change.
+     *
+     * @param userId
+     *            id of the local user
+     */
+    public void removeUserFromCache(final Long userId);
+
+}
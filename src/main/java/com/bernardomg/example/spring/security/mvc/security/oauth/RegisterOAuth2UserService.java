@@ -26,32 +26,41 @@
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.Lock;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserService;
 import org.springframework.security.oauth2.core.OAuth2AccessToken;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
 import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentPrivilege;
+import com.bernardomg.example.spring.security.mvc.security.authority.AuthoritiesResolver;
 import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentRole;
 import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentUser;
-import com.bernardomg.example.spring.security.mvc.security.user.repository.PrivilegeRepository;
 import com.bernardomg.example.spring.security.mvc.security.user.repository.RoleRepository;
 import com.bernardomg.example.spring.security.mvc.security.user.repository.UserRepository;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * OAUTH 2 user service linked to the DB users. It registers any new user based on his email.
+ * <p>
+ * The local user found for each OAUTH user is kept in an {@link OAuthUserCache}, keyed by the provider and the id given
+ * by it. Repeated logins take the authorities from the cache, and don't read the DB.
+ * <p>
+ * Reading the user, and registering him when he doesn't exist, is done in a single transaction. Concurrent first logins
+ * for the same email are serialized with a lock, so only one of them registers the user, while the others take it from
+ * the cache once it is done.
  *
  * @author Bernardo Mart&iacute;nez Garrido
  *
@@ -59,56 +68,92 @@
 @Slf4j
 public final class RegisterOAuth2UserService implements OAuth2UserService<OAuth2UserRequest, OAuth2User> {
 
+    /**
+     * Number of locks for registering users.
+     */
+    private static final int                                       LOCK_STRIPES = 64;
+
+    /**
+     * Resolver for the user authorities.
+     */
+    private final AuthoritiesResolver                              authoritiesResolver;
+
     /**
      * Base service. Applies inheritance through composition.
      */
-    private final DefaultOAuth2UserService delegate = new DefaultOAuth2UserService();
+    private final OAuth2UserService<OAuth2UserRequest, OAuth2User> delegate;
 
     /**
-     * Repository for the privileges.
+     * Locks for registering users, by email.
      */
-    private final PrivilegeRepository      privilegeRepository;
+    private final StripedLocks                                     emailLocks = new StripedLocks(LOCK_STRIPES);
 
     /**
      * Roles repository.
      */
-    private final RoleRepository           roleRepository;
+    private final RoleRepository                                   roleRepository;
+
+    /**
+     * Transaction for reading and registering the user.
+     */
+    private final TransactionTemplate                              transactionTemplate;
+
+    /**
+     * Cache for the local users.
+     */
+    private final OAuthUserCache                                   userCache;
 
     /**
      * Users repository.
      */
-    private final UserRepository           userRepository;
+    private final UserRepository                                   userRepository;
 
     /**
      * Constructs a service.
      *
+     * @param wrapped
+     *            base service, which reads the user from the OAUTH provider
      * @param userRepo
      *            users repository
      * @param roleRepo
      *            roles repository
-     * @param privilegeRepo
-     *            privileges repository
+     * @param resolver
+     *            resolver for the user authorities
+     * @param cache
+     *            cache for the local users
+     * @param transactionManager
+     *            transaction manager for registering users
      */
-    public RegisterOAuth2UserService(final UserRepository userRepo, final RoleRepository roleRepo,
-            final PrivilegeRepository privilegeRepo) {
+    public RegisterOAuth2UserService(final OAuth2UserService<OAuth2UserRequest, OAuth2User> wrapped,
+            final UserRepository userRepo, final RoleRepository roleRepo, final AuthoritiesResolver resolver,
+            final OAuthUserCache cache, final PlatformTransactionManager transactionManager) {
         super();
 
+        delegate = Objects.requireNonNull(wrapped, "Received a null pointer as base service");
         userRepository = Objects.requireNonNull(userRepo, "Received a null pointer as users repository");
         roleRepository = Objects.requireNonNull(roleRepo, "Received a null pointer as roles repository");
-        privilegeRepository = Objects.requireNonNull(privilegeRepo, "Received a null pointer as privileges repository");
+        authoritiesResolver = Objects.requireNonNull(resolver, "Received a null pointer as authorities resolver");
+        userCache = Objects.requireNonNull(cache, "Received a null pointer as cache");
+        transactionTemplate = new TransactionTemplate(
+            Objects.requireNonNull(transactionManager, "Received a null pointer as transaction manager"));
     }
 
     @Override
+    @Timed(value = "security.oauth.user.load", description = "Time to load the user for an OAuth login",
+            histogram = true)
     public final OAuth2User loadUser(final OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
         final Map<String, Object>          attributes;
         final OAuth2AccessToken            accessToken;
         final Collection<GrantedAuthority> mappedAuthorities;
         final OAuth2User                   oauthuser;
+        final String                       providerId;
 
         oauthuser = delegate.loadUser(userRequest);
 
         accessToken = userRequest.getAccessToken();
-        mappedAuthorities = loadUser(oauthuser);
+        providerId = userRequest.getClientRegistration()
+            .getRegistrationId() + ":" + oauthuser.getName();
+        mappedAuthorities = loadAuthorities(providerId, oauthuser);
 
         log.debug("User {}", oauthuser);
         log.debug("Access token {}", accessToken);
@@ -122,78 +167,177 @@ public final OAuth2User loadUser(final OAuth2UserRequest userRequest) throws OAu
     }
 
     /**
-     * Returns all the authorities for the user.
+     * Returns the authorities for the OAUTH user. They are taken from the cache, if possible, otherwise the local user
+     * is loaded and stored in the cache.
      *
-     * @param id
-     *            id of the user
-     * @return all the authorities for the user
+     * @param providerId
+     *            key for the user in the cache
+     * @param oauthuser
+     *            user to load
+     * @return the user authorities
      */
-    private final Collection<GrantedAuthority> getAuthorities(final Long id) {
-        return privilegeRepository.findForUser(id)
-            .stream()
-            .map(PersistentPrivilege::getName)
-            .distinct()
-            .map(SimpleGrantedAuthority::new)
-            .collect(Collectors.toList());
+    private final Collection<GrantedAuthority> loadAuthorities(final String providerId, final OAuth2User oauthuser) {
+        final Collection<GrantedAuthority> authorities;
+        final OAuthLocalUser               cached;
+        final OAuthLocalUser               user;
+        final String                       email;
+
+        cached = userCache.getUserFromCache(providerId);
+        if (cached != null) {
+            log.trace("Read user for {} from cache", providerId);
+            authorities = cached.getAuthorities();
+        } else if (oauthuser.getAttributes()
+            .containsKey("email")) {
+            // TODO: What if somebody creates a fake account with the email? Is it
+            // possible?
+            email = String.valueOf(oauthuser.getAttributes()
+                .get("email"));
+            user = loadUserLocked(providerId, oauthuser, email);
+            authorities = user.getAuthorities();
+        } else {
+            log.warn("OAUTH user {} is missing email attribute", oauthuser.getName());
+            authorities = Collections.emptyList();
+        }
+
+        return authorities;
     }
 
     /**
-     * Loads the user and returns his authorities.
+     * Loads the local user for the email, along his authorities.
      * <p>
      * If the user exists on DB, the the authorities are taken from it. Otherwise, the user is created with default
      * authorities.
      *
      * @param oauthuser
      *            user to load
-     * @return the user authorities
+     * @param email
+     *            email of the user
+     * @return the local user
      */
-    private final Collection<GrantedAuthority> loadUser(final OAuth2User oauthuser) {
-        final Collection<GrantedAuthority> authorities;
-        final Optional<PersistentUser>     userOpt;
-        final PersistentUser               user;
-        final String                       email;
-        final Optional<PersistentRole>     role;
+    private final OAuthLocalUser loadUser(final OAuth2User oauthuser, final String email) {
+        final Optional<PersistentUser> userOpt;
+        final PersistentUser           user;
 
-        // TODO: What if somebody creates a fake account with the email? Is it
-        // possible?
-        if (oauthuser.getAttributes()
-            .containsKey("email")) {
-            email = String.valueOf(oauthuser.getAttributes()
-                .get("email"));
-            userOpt = userRepository.findOneByEmail(email);
-            if (userOpt.isPresent()) {
-                log.trace("Found user for email {}", email);
-                user = userOpt.get();
+        userOpt = userRepository.findOneByEmail(email);
+        if (userOpt.isPresent()) {
+            log.trace("Found user for email {}", email);
+            user = userOpt.get();
+        } else {
+            log.debug("No user found for email {}. Creating new user", email);
+            user = registerUser(oauthuser, email);
+        }
+
+        return new OAuthLocalUser(authoritiesResolver.getAuthorities(user.getId()), user.getId());
+    }
+
+    /**
+     * Loads the local user for the email, and stores it in the cache. Only one thread loads the user for an email at a
+     * time, the others wait and then take it from the cache.
+     *
+     * @param providerId
+     *            key for the user in the cache
+     * @param oauthuser
+     *            user to load
+     * @param email
+     *            email of the user
+     * @return the local user
+     */
+    private final OAuthLocalUser loadUserLocked(final String providerId, final OAuth2User oauthuser,
+            final String email) {
+        final Lock           lock;
+        final OAuthLocalUser cached;
+        final OAuthLocalUser user;
+
+        lock = emailLocks.getLock(email.toLowerCase(Locale.ROOT));
+        lock.lock();
+        try {
+            // Another thread may have loaded the user while this one was waiting
+            cached = userCache.getUserFromCache(providerId);
+            if (cached == null) {
+                user = upsertUser(oauthuser, email);
+                userCache.putUserInCache(providerId, user);
             } else {
-                log.debug("No user found for email {}. Creating new user", email);
-                user = new PersistentUser();
-                if (oauthuser.getAttributes()
-                    .containsKey("name")) {
-                    user.setUsername(oauthuser.getAttributes()
-                        .get("name")
-                        .toString());
-                } else {
-                    log.warn("OAUTH user {} is missing name field, applying email as name", oauthuser.getName());
-                    user.setUsername(email);
-                }
-                user.setEmail(email);
-
-                userRepository.save(user);
-
-                role = roleRepository.findByName("USER");
-                if (role.isPresent()) {
-                    roleRepository.registerForUser(user.getId(), role.get()
-                        .getId());
-                }
+                user = cached;
             }
+        } finally {
+            lock.unlock();
+        }
 
-            authorities = getAuthorities(user.getId());
+        return user;
+    }
+
+    /**
+     * Registers a new user for the OAUTH user, with the default role.
+     * <p>
+     * The user has no password, so he can only log in through OAUTH.
+     *
+     * @param oauthuser
+     *            user to register
+     * @param email
+     *            email of the user
+     * @return the new user
+     */
+    private final PersistentUser registerUser(final OAuth2User oauthuser, final String email) {
+        final PersistentUser           user;
+        final Optional<PersistentRole> role;
+        final String                   name;
+
+        if (oauthuser.getAttributes()
+            .containsKey("name")) {
+            name = oauthuser.getAttributes()
+                .get("name")
+                .toString();
         } else {
-            log.warn("OAUTH user {} is missing email attribute", oauthuser.getName());
-            authorities = Collections.emptyList();
+            log.warn("OAUTH user {} is missing name field, applying email as name", oauthuser.getName());
+            name = email;
         }
 
-        return authorities;
+        user = new PersistentUser();
+        user.setUsername(name);
+        user.setName(name);
+        user.setEmail(email);
+        user.setPassword("");
+        user.setEnabled(true);
+        user.setExpired(false);
+        user.setLocked(false);
+        user.setCredentialsExpired(false);
+
+        // Flushed so the role relationship can reference the user
+        userRepository.saveAndFlush(user);
+
+        role = roleRepository.findByName("USER");
+        if (role.isPresent()) {
+            roleRepository.registerForUser(user.getId(), role.get()
+                .getId());
+        }
+
+        return user;
+    }
+
+    /**
+     * Loads the local user for the email, registering it if needed. Running it again for the same email gives the same
+     * result.
+     * <p>
+     * The lock only works inside this instance, if another one registers the same email at the same time the unique
+     * constraint rejects one of the inserts. In that case the user is read again, as it now exists.
+     *
+     * @param oauthuser
+     *            user to load
+     * @param email
+     *            email of the user
+     * @return the local user
+     */
+    private final OAuthLocalUser upsertUser(final OAuth2User oauthuser, final String email) {
+        OAuthLocalUser user;
+
+        try {
+            user = transactionTemplate.execute(status -> loadUser(oauthuser, email));
+        } catch (final DataIntegrityViolationException e) {
+            log.debug("User for email {} registered concurrently, reading it again", email);
+            user = transactionTemplate.execute(status -> loadUser(oauthuser, email));
+        }
+
+        return user;
     }
 
 }
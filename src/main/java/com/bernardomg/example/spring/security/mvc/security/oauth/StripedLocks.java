@@ -0,0 +1,88 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.oauth;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks, shared by keys. The same key always receives the same lock, while different keys usually receive
+ * different ones.
+ * <p>
+ * This allows locking by key without keeping a lock for each key. Two keys may share a lock, but this only makes them
+ * wait for each other.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+public final class StripedLocks {
+
+    /**
+     * Locks, the number of them is a power of two.
+     */
+    private final Lock[] locks;
+
+    /**
+     * Mask to find the lock for a hash.
+     */
+    private final int    mask;
+
+    /**
+     * Constructs a set of locks. The number of locks is rounded up to a power of two.
+     *
+     * @param stripes
+     *            minimum number of locks
+     */
+    public StripedLocks(final int stripes) {
+        super();
+
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Received " + stripes + " stripes, at least one is required");
+        }
+
+        locks = new Lock[Math.max(Integer.highestOneBit(stripes - 1) << 1, 1)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = locks.length - 1;
+    }
+
+    /**
+     * Returns the lock for the key.
+     *
+     * @param key
+     *            key to lock
+     * @return the lock for the key
+     */
+    public final Lock getLock(final Object key) {
+        final int hash;
+
+        hash = key.hashCode();
+
+        // Spreads the high bits, as only the low ones are used
+        return locks[(hash ^ (hash >>> 16)) & mask];
+    }
+
+}
@@ -0,0 +1,145 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.password;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Password encoder which runs the hashing on a separate executor.
+ * <p>
+ * Password hashing is CPU bound and slow by design. Running it on the request threads means that a burst of logins
+ * can take all of them, leaving no threads for any other request. Instead, all the hashing is sent to an executor with
+ * a fixed number of workers and a bounded queue. The request thread just waits for the result.
+ * <p>
+ * When the executor is saturated the work is rejected right away, and a {@link PasswordHashingRejectedException} is
+ * thrown. So requests fail fast, instead of piling up.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Slf4j
+public final class BoundedPasswordEncoder implements PasswordEncoder {
+
+    /**
+     * Wrapped encoder, which does the actual hashing.
+     */
+    private final PasswordEncoder delegate;
+
+    /**
+     * Executor for the hashing.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Time after which clients may retry rejected requests.
+     */
+    private final Duration        retryAfter;
+
+    /**
+     * Constructs an encoder.
+     *
+     * @param encoder
+     *            wrapped encoder
+     * @param hashingExecutor
+     *            executor for the hashing, which should reject work when saturated
+     * @param retry
+     *            time after which clients may retry rejected requests
+     */
+    public BoundedPasswordEncoder(final PasswordEncoder encoder, final ExecutorService hashingExecutor,
+            final Duration retry) {
+        super();
+
+        delegate = Objects.requireNonNull(encoder, "Received a null pointer as encoder");
+        executor = Objects.requireNonNull(hashingExecutor, "Received a null pointer as executor");
+        retryAfter = Objects.requireNonNull(retry, "Received a null pointer as retry time");
+    }
+
+    @Override
+    public final String encode(final CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public final boolean matches(final CharSequence rawPassword, final String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public final boolean upgradeEncoding(final String encodedPassword) {
+        // Doesn't hash anything
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Runs the task in the executor, and waits for the result.
+     *
+     * @param <T>
+     *            type of the result
+     * @param task
+     *            task to run
+     * @return the task result
+     * @throws PasswordHashingRejectedException
+     *             if the executor is saturated
+     */
+    private final <T> T execute(final Callable<T> task) {
+        final Future<T> future;
+        final Throwable cause;
+
+        try {
+            future = executor.submit(task);
+        } catch (final RejectedExecutionException e) {
+            log.warn("Password hashing rejected, the executor is saturated");
+            throw new PasswordHashingRejectedException(retryAfter);
+        }
+
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread()
+                .interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the password hashing", e);
+        } catch (final ExecutionException e) {
+            cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.password;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.bernardomg.example.spring.security.mvc.security.property.PasswordEncodingProperties;
+
+/**
+ * Builds the password encoder for the configured hash formats.
+ * <p>
+ * Hashes are stored with a prefix telling which format they use, such as {@code {bcrypt}$2a$10$...}. New passwords are
+ * always encoded with the configured format, but any of the supported formats is accepted when matching. Hashes without
+ * a prefix are taken as BCrypt, as this is how passwords were stored before.
+ * <p>
+ * A hash is outdated when it uses another format, or the same format with weaker parameters. These hashes are
+ * re-encoded on login, through the {@code UserDetailsPasswordService}.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+public final class PasswordEncoderFactory {
+
+    /**
+     * Id for Argon2 hashes.
+     */
+    public static final String ARGON2      = "argon2";
+
+    /**
+     * Id for BCrypt hashes.
+     */
+    public static final String BCRYPT      = "bcrypt";
+
+    /**
+     * Argon2 hash length, in bytes.
+     */
+    private static final int   HASH_LENGTH = 32;
+
+    /**
+     * Argon2 salt length, in bytes.
+     */
+    private static final int   SALT_LENGTH = 16;
+
+    /**
+     * Private constructor to avoid initialization.
+     */
+    private PasswordEncoderFactory() {
+        super();
+    }
+
+    /**
+     * Returns a password encoder for the received properties.
+     *
+     * @param properties
+     *            encoding properties
+     * @return a password encoder for the properties
+     */
+    public static final PasswordEncoder getPasswordEncoder(final PasswordEncodingProperties properties) {
+        final Map<String, PasswordEncoder> encoders;
+        final PasswordEncoder              bcrypt;
+        final DelegatingPasswordEncoder    encoder;
+
+        bcrypt = new BCryptPasswordEncoder(properties.getBcryptStrength());
+
+        encoders = new HashMap<>();
+        encoders.put(BCRYPT, bcrypt);
+        encoders.put(ARGON2, new Argon2PasswordEncoder(SALT_LENGTH, HASH_LENGTH, properties.getArgon2Parallelism(),
+            properties.getArgon2Memory(), properties.getArgon2Iterations()));
+
+        if (!encoders.containsKey(properties.getEncoder())) {
+            throw new IllegalArgumentException("Unknown password encoder " + properties.getEncoder());
+        }
+
+        encoder = new DelegatingPasswordEncoder(properties.getEncoder(), encoders);
+        // Hashes stored before the prefixes were added
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        return encoder;
+    }
+
+}
@@ -0,0 +1,64 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.password;
+
+import java.time.Duration;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a password can't be hashed, as the hashing workers are saturated.
+ * <p>
+ * This is not a failure of the request, the client is expected to retry after a while.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Getter
+public final class PasswordHashingRejectedException extends RuntimeException {
+
+    /**
+     * Serialization id.
+     */
+    private static final long serialVersionUID = 2392740914426245153L;
+
+    /**
+     * Time after which the client may retry.
+     */
+    private final Duration    retryAfter;
+
+    /**
+     * Constructs an exception.
+     *
+     * @param retry
+     *            time after which the client may retry
+     */
+    public PasswordHashingRejectedException(final Duration retry) {
+        super("Password hashing rejected, all the workers are busy");
+
+        retryAfter = retry;
+    }
+
+}
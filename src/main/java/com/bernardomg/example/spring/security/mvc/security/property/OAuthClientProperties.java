@@ -0,0 +1,73 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.property;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * OAUTH provider client configuration properties. This client is used for the token and user info endpoints.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Data
+@ConfigurationProperties(prefix = "security.oauth.client")
+public final class OAuthClientProperties {
+
+    /**
+     * Time to wait for a connection to the provider.
+     */
+    private Duration connectTimeout           = Duration.ofSeconds(2);
+
+    /**
+     * Time to wait for a free connection from the pool.
+     */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Time an idle connection is kept in the pool.
+     */
+    private Duration idleTimeout              = Duration.ofMinutes(1);
+
+    /**
+     * Maximum number of connections in the pool.
+     */
+    private int      maxConnections           = 50;
+
+    /**
+     * Maximum number of connections to each host.
+     */
+    private int      maxConnectionsPerRoute   = 20;
+
+    /**
+     * Time to wait for the provider response.
+     */
+    private Duration readTimeout              = Duration.ofSeconds(5);
+
+}
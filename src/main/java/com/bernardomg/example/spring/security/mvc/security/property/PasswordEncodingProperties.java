@@ -0,0 +1,73 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.property;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.bernardomg.example.spring.security.mvc.security.password.PasswordEncoderFactory;
+
+import lombok.Data;
+
+/**
+ * Password encoding configuration properties.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Data
+@ConfigurationProperties(prefix = "security.password.encoding")
+public final class PasswordEncodingProperties {
+
+    /**
+     * Argon2 iterations.
+     */
+    private int     argon2Iterations  = 2;
+
+    /**
+     * Argon2 memory cost, in kibibytes.
+     */
+    private int     argon2Memory      = 16384;
+
+    /**
+     * Argon2 parallelism.
+     */
+    private int     argon2Parallelism = 1;
+
+    /**
+     * BCrypt strength, as the log2 of the number of rounds.
+     */
+    private int     bcryptStrength    = 10;
+
+    /**
+     * Id of the encoder for new passwords. Either 'bcrypt' or 'argon2'.
+     */
+    private String  encoder           = PasswordEncoderFactory.BCRYPT;
+
+    /**
+     * Persists upgraded password hashes on a background thread, instead of the login request.
+     */
+    private boolean upgradeAsync      = true;
+
+}
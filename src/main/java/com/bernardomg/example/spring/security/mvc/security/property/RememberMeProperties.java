@@ -24,12 +24,14 @@
 
 package com.bernardomg.example.spring.security.mvc.security.property;
 
+import java.time.Duration;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import lombok.Data;
 
 /**
- * JWT configuration properties.
+ * Remember-me configuration properties.
  *
  * @author Bernardo Mart&iacute;nez Garrido
  *
@@ -38,6 +40,24 @@
 @ConfigurationProperties(prefix = "security.rememberme")
 public final class RememberMeProperties {
 
-    private String key;
+    /**
+     * Delay between writes of the token updates, when writing behind.
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * Key to identify the remember-me tokens.
+     */
+    private String   key;
+
+    /**
+     * Time after which remember-me tokens expire.
+     */
+    private Duration tokenValidity = Duration.ofDays(1);
+
+    /**
+     * Keeps the tokens in memory, and writes the updates in batches.
+     */
+    private boolean  writeBehind   = true;
 
 }
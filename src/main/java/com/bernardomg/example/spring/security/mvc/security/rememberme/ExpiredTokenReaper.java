@@ -0,0 +1,180 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.rememberme;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deletes the expired remember-me tokens from the database.
+ * <p>
+ * Expired tokens are never used again, but nothing else removes them, so without this the table only grows. They are
+ * deleted in bounded batches. Each batch reads the series of the oldest expired tokens, and deletes them by primary key.
+ * Each statement runs on its own, so locks are only held for a single batch.
+ * <p>
+ * The rows purged are counted, both for the last run and in total, and can be read to check the table growth.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Slf4j
+public final class ExpiredTokenReaper implements Runnable {
+
+    /**
+     * Query to delete a token.
+     */
+    private static final String DELETE_SQL = "DELETE FROM persistent_logins WHERE series = ?";
+
+    /**
+     * Query to read the series of the oldest expired tokens.
+     */
+    private static final String SELECT_SQL = "SELECT series FROM persistent_logins WHERE last_used < ? "
+            + "ORDER BY last_used FETCH FIRST ? ROWS ONLY";
+
+    /**
+     * Maximum number of rows deleted in each batch.
+     */
+    private final int           batchSize;
+
+    /**
+     * JDBC template for the token queries.
+     */
+    private final JdbcTemplate  jdbcTemplate;
+
+    /**
+     * Rows purged in the last run.
+     */
+    private final AtomicLong    lastPurged  = new AtomicLong();
+
+    /**
+     * Number of runs.
+     */
+    private final AtomicLong    runs        = new AtomicLong();
+
+    /**
+     * Time after which tokens expire.
+     */
+    private final Duration      tokenValidity;
+
+    /**
+     * Rows purged since starting.
+     */
+    private final AtomicLong    totalPurged = new AtomicLong();
+
+    /**
+     * Constructs a token reaper.
+     *
+     * @param template
+     *            JDBC template for the token queries
+     * @param validity
+     *            time after which tokens expire
+     * @param size
+     *            maximum number of rows deleted in each batch
+     */
+    public ExpiredTokenReaper(final JdbcTemplate template, final Duration validity, final int size) {
+        super();
+
+        jdbcTemplate = Objects.requireNonNull(template, "Received a null pointer as JDBC template");
+        tokenValidity = Objects.requireNonNull(validity, "Received a null pointer as token validity");
+        batchSize = size;
+    }
+
+    /**
+     * Returns the number of rows purged in the last run.
+     *
+     * @return the number of rows purged in the last run
+     */
+    public final long getLastPurged() {
+        return lastPurged.get();
+    }
+
+    /**
+     * Returns the number of runs.
+     *
+     * @return the number of runs
+     */
+    public final long getRuns() {
+        return runs.get();
+    }
+
+    /**
+     * Returns the number of rows purged since starting.
+     *
+     * @return the number of rows purged since starting
+     */
+    public final long getTotalPurged() {
+        return totalPurged.get();
+    }
+
+    /**
+     * Deletes all the expired tokens, batch by batch.
+     *
+     * @return the number of rows purged
+     */
+    public final long purge() {
+        final Timestamp expiration;
+        List<String>    series;
+        long            purged;
+
+        expiration = Timestamp.from(Instant.now()
+            .minus(tokenValidity));
+
+        purged = 0;
+        do {
+            series = jdbcTemplate.queryForList(SELECT_SQL, String.class, expiration, batchSize);
+            if (!series.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_SQL, series, series.size(),
+                    (statement, value) -> statement.setString(1, value));
+                purged += series.size();
+            }
+        } while (series.size() == batchSize);
+
+        lastPurged.set(purged);
+        totalPurged.addAndGet(purged);
+        runs.incrementAndGet();
+
+        log.info("Purged {} expired remember-me tokens", purged);
+
+        return purged;
+    }
+
+    @Override
+    public final void run() {
+        try {
+            purge();
+        } catch (final RuntimeException e) {
+            log.warn("Failed purging expired remember-me tokens", e);
+        }
+    }
+
+}
@@ -0,0 +1,333 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.rememberme;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.web.authentication.rememberme.PersistentRememberMeToken;
+import org.springframework.security.web.authentication.rememberme.PersistentTokenRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Remember-me token repository which keeps the active tokens in memory, and writes token rotations to the database in
+ * batches.
+ * <p>
+ * Each remember-me login reads the token for a series, and then replaces its value. Here the read never touches the
+ * database, and the replacement is stored as a pending update. Pending updates are written with a single batch, on a
+ * fixed delay. If a series is updated several times before the next write, only the latest value is written.
+ * <p>
+ * New tokens and removals are written to the database at once, as these happen only on login and logout.
+ * <h2>Index</h2>
+ * <p>
+ * The index is built from the table when starting, taking all the tokens which haven't expired. From then on all the
+ * changes go through it, so a series missing from the index doesn't exist. This only holds while a single instance of
+ * the application uses the table.
+ * <p>
+ * Expired tokens are removed from the index on each write, so it doesn't grow forever.
+ * <h2>Concurrency</h2>
+ * <p>
+ * Requests for the same series may update it concurrently. Each update replaces the token in the index atomically, and
+ * queues it as the pending update while doing so. The pending update is always the token in the index, so the database
+ * ends with the same value as the index. After
+ * writing a batch only the updates which haven't been replaced since are discarded, newer ones are kept for the next
+ * batch.
+ * <p>
+ * Pending updates are lost if the application stops abruptly. In this case the users affected will have to log in
+ * again, as their cookies won't match the stored tokens.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Slf4j
+public final class WriteBehindTokenRepository implements PersistentTokenRepository, SmartLifecycle {
+
+    /**
+     * Query to delete the tokens for a user.
+     */
+    private static final String                          DELETE_SQL = "DELETE FROM persistent_logins "
+            + "WHERE username = ?";
+
+    /**
+     * Query to store a new token.
+     */
+    private static final String                          INSERT_SQL = "INSERT INTO persistent_logins "
+            + "(username, series, token, last_used) VALUES (?, ?, ?, ?)";
+
+    /**
+     * Lifecycle phase. Before the web server, so the index is ready before the first request, and the last updates are
+     * written after the last request.
+     */
+    private static final int                             PHASE      = SmartLifecycle.DEFAULT_PHASE - 2048;
+
+    /**
+     * Query to read the tokens which haven't expired.
+     */
+    private static final String                          SELECT_SQL = "SELECT username, series, token, last_used "
+            + "FROM persistent_logins WHERE last_used > ?";
+
+    /**
+     * Query to update a token.
+     */
+    private static final String                          UPDATE_SQL = "UPDATE persistent_logins "
+            + "SET token = ?, last_used = ? WHERE series = ?";
+
+    /**
+     * Delay between writes.
+     */
+    private final Duration                               flushInterval;
+
+    /**
+     * JDBC template for the token queries.
+     */
+    private final JdbcTemplate                           jdbcTemplate;
+
+    /**
+     * Token updates waiting to be written, by series.
+     */
+    private final Map<String, PersistentRememberMeToken> pending    = new ConcurrentHashMap<>();
+
+    /**
+     * Scheduler for the writes.
+     */
+    private ScheduledExecutorService                     scheduler;
+
+    /**
+     * Active tokens, by series.
+     */
+    private final Map<String, PersistentRememberMeToken> tokens     = new ConcurrentHashMap<>();
+
+    /**
+     * Time after which tokens expire.
+     */
+    private final Duration                               tokenValidity;
+
+    /**
+     * Constructs a token repository.
+     *
+     * @param template
+     *            JDBC template for the token queries
+     * @param validity
+     *            time after which tokens expire
+     * @param interval
+     *            delay between writes
+     */
+    public WriteBehindTokenRepository(final JdbcTemplate template, final Duration validity,
+            final Duration interval) {
+        super();
+
+        jdbcTemplate = Objects.requireNonNull(template, "Received a null pointer as JDBC template");
+        tokenValidity = Objects.requireNonNull(validity, "Received a null pointer as token validity");
+        flushInterval = Objects.requireNonNull(interval, "Received a null pointer as flush interval");
+    }
+
+    @Override
+    public final void createNewToken(final PersistentRememberMeToken token) {
+        jdbcTemplate.update(INSERT_SQL, token.getUsername(), token.getSeries(), token.getTokenValue(),
+            new Timestamp(token.getDate()
+                .getTime()));
+        tokens.put(token.getSeries(), token);
+    }
+
+    /**
+     * Writes all the pending updates, and removes the expired tokens from the index.
+     */
+    public final void flush() {
+        final Collection<PersistentRememberMeToken> batch;
+        final Instant                               expiration;
+
+        batch = new ArrayList<>(pending.values());
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(), (statement, token) -> {
+                statement.setString(1, token.getTokenValue());
+                statement.setTimestamp(2, new Timestamp(token.getDate()
+                    .getTime()));
+                statement.setString(3, token.getSeries());
+            });
+
+            // Updates replaced during the write are kept
+            batch.forEach(token -> pending.remove(token.getSeries(), token));
+
+            log.debug("Written {} remember-me token updates", batch.size());
+        }
+
+        expiration = Instant.now()
+            .minus(tokenValidity);
+        tokens.values()
+            .removeIf(token -> token.getDate()
+                .toInstant()
+                .isBefore(expiration));
+    }
+
+    /**
+     * Returns the number of tokens in the index.
+     *
+     * @return the number of tokens in the index
+     */
+    public final int getActiveTokens() {
+        return tokens.size();
+    }
+
+    @Override
+    public final int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Returns the number of updates waiting to be written.
+     *
+     * @return the number of updates waiting to be written
+     */
+    public final int getPendingUpdates() {
+        return pending.size();
+    }
+
+    @Override
+    public final PersistentRememberMeToken getTokenForSeries(final String seriesId) {
+        return tokens.get(seriesId);
+    }
+
+    /**
+     * Builds the index from the database.
+     */
+    public final void load() {
+        final Timestamp expiration;
+
+        expiration = Timestamp.from(Instant.now()
+            .minus(tokenValidity));
+        jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new PersistentRememberMeToken(rs.getString(1),
+            rs.getString(2), rs.getString(3), rs.getTimestamp(4)), expiration)
+            .forEach(token -> tokens.put(token.getSeries(), token));
+
+        log.info("Loaded {} remember-me tokens", tokens.size());
+    }
+
+    @Override
+    public final boolean isRunning() {
+        return (scheduler != null) && !scheduler.isShutdown();
+    }
+
+    @Override
+    public final void removeUserTokens(final String username) {
+        final Collection<String> removed;
+
+        removed = new ArrayList<>();
+        // Removed from the index first, so no new updates are queued for these series
+        tokens.values()
+            .removeIf(token -> {
+                final boolean matches;
+
+                matches = username.equals(token.getUsername());
+                if (matches) {
+                    removed.add(token.getSeries());
+                }
+
+                return matches;
+            });
+        removed.forEach(pending::remove);
+
+        jdbcTemplate.update(DELETE_SQL, username);
+    }
+
+    /**
+     * Builds the index, and starts writing the pending updates.
+     */
+    @Override
+    public final void start() {
+        final CustomizableThreadFactory threadFactory;
+
+        load();
+
+        threadFactory = new CustomizableThreadFactory("remember-me-flush-");
+        threadFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        scheduler.scheduleWithFixedDelay(this::flushSafely, flushInterval.toMillis(), flushInterval.toMillis(),
+            TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the scheduled writes, and writes the updates still pending.
+     */
+    @Override
+    public final void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread()
+                    .interrupt();
+            }
+        }
+
+        flush();
+    }
+
+    @Override
+    public final void updateToken(final String series, final String tokenValue, final Date lastUsed) {
+        final PersistentRememberMeToken updated;
+
+        // The pending update is queued while holding the index entry, so both always end with the same token
+        updated = tokens.computeIfPresent(series, (key, token) -> {
+            final PersistentRememberMeToken next;
+
+            next = new PersistentRememberMeToken(token.getUsername(), series, tokenValue, lastUsed);
+            pending.put(series, next);
+
+            return next;
+        });
+
+        if (updated == null) {
+            // Not in the index, written at once
+            jdbcTemplate.update(UPDATE_SQL, tokenValue, new Timestamp(lastUsed.getTime()), series);
+        }
+    }
+
+    /**
+     * Writes the pending updates, logging any error. Failed updates are kept for the next write.
+     */
+    private final void flushSafely() {
+        try {
+            flush();
+        } catch (final RuntimeException e) {
+            log.warn("Failed writing remember-me token updates", e);
+        }
+    }
+
+}
@@ -0,0 +1,309 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.throttle;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tracks the failed logins, by username and by remote address, and tells when they should be throttled.
+ * <p>
+ * Failures are taken from the authentication events. Only bad credentials are counted, so logins rejected for any other
+ * reason, such as a saturated password hashing, don't count against the user. A successful login clears the failures
+ * for its username, but not for its address.
+ * <p>
+ * Each username and address has a {@link SlidingWindowCounter}. These are kept in Caffeine caches, bounded in size and
+ * discarded once they are not used for a full window, so the memory used is bounded no matter how many usernames or
+ * addresses are tried.
+ * <p>
+ * A login is throttled once either its username or its address reaches the threshold of failures inside the window.
+ * Throttling is temporary, users are not locked, so it can't be used to lock users out permanently.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Slf4j
+public final class LoginAttemptTracker {
+
+    /**
+     * Number of buckets each window is split into.
+     */
+    private static final int                          BUCKETS   = 10;
+
+    /**
+     * Failure counters by remote address.
+     */
+    private final Cache<String, SlidingWindowCounter> addresses;
+
+    /**
+     * Failures allowed for an address inside the window.
+     */
+    private final int                                 addressThreshold;
+
+    /**
+     * Logins rejected.
+     */
+    private final AtomicLong                          throttled = new AtomicLong();
+
+    /**
+     * Failure counters by username.
+     */
+    private final Cache<String, SlidingWindowCounter> usernames;
+
+    /**
+     * Failures allowed for a username inside the window.
+     */
+    private final int                                 usernameThreshold;
+
+    /**
+     * Time window for counting failures.
+     */
+    private final Duration                            window;
+
+    /**
+     * Constructs a login attempt tracker.
+     *
+     * @param usernameMax
+     *            failures allowed for a username inside the window
+     * @param addressMax
+     *            failures allowed for an address inside the window
+     * @param timeWindow
+     *            time window for counting failures
+     * @param maxEntries
+     *            maximum number of usernames, and of addresses, tracked
+     */
+    public LoginAttemptTracker(final int usernameMax, final int addressMax, final Duration timeWindow,
+            final long maxEntries) {
+        super();
+
+        window = Objects.requireNonNull(timeWindow, "Received a null pointer as window");
+        usernameThreshold = usernameMax;
+        addressThreshold = addressMax;
+
+        usernames = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterAccess(timeWindow)
+            .build();
+        addresses = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterAccess(timeWindow)
+            .build();
+    }
+
+    /**
+     * Returns the number of logins throttled.
+     *
+     * @return the number of logins throttled
+     */
+    public final long getThrottledLogins() {
+        return throttled.get();
+    }
+
+    /**
+     * Returns the approximate number of addresses tracked.
+     *
+     * @return the number of addresses tracked
+     */
+    public final long getTrackedAddresses() {
+        return addresses.estimatedSize();
+    }
+
+    /**
+     * Returns the approximate number of usernames tracked.
+     *
+     * @return the number of usernames tracked
+     */
+    public final long getTrackedUsernames() {
+        return usernames.estimatedSize();
+    }
+
+    /**
+     * Returns the time window for counting failures. Throttled clients can retry after it.
+     *
+     * @return the time window
+     */
+    public final Duration getWindow() {
+        return window;
+    }
+
+    /**
+     * Checks if a login should be throttled. This is the case when either the username or the address reached their
+     * threshold of failures.
+     *
+     * @param username
+     *            username trying to log in, may be {@code null}
+     * @param address
+     *            remote address of the login, may be {@code null}
+     * @return {@code true} if the login should be rejected
+     */
+    public final boolean isThrottled(final String username, final String address) {
+        final long    now;
+        final boolean rejected;
+
+        now = System.currentTimeMillis();
+        rejected = isExceeded(usernames, normalize(username), usernameThreshold, now)
+                || isExceeded(addresses, address, addressThreshold, now);
+
+        if (rejected) {
+            throttled.incrementAndGet();
+            log.debug("Throttled login for {} from {}", username, address);
+        }
+
+        return rejected;
+    }
+
+    /**
+     * Counts a failed login.
+     *
+     * @param event
+     *            failure event
+     */
+    @EventListener
+    public final void onFailure(final AuthenticationFailureBadCredentialsEvent event) {
+        final Authentication authentication;
+        final long           now;
+
+        authentication = event.getAuthentication();
+        now = System.currentTimeMillis();
+
+        increment(usernames, normalize(authentication.getName()), now);
+        increment(addresses, getAddress(authentication), now);
+    }
+
+    /**
+     * Clears the failures for the username of a successful login.
+     *
+     * @param event
+     *            success event
+     */
+    @EventListener
+    public final void onSuccess(final AuthenticationSuccessEvent event) {
+        final String username;
+
+        username = normalize(event.getAuthentication()
+            .getName());
+        if (username != null) {
+            usernames.invalidate(username);
+        }
+    }
+
+    /**
+     * Returns the remote address of the authentication, if it was done through the web.
+     *
+     * @param authentication
+     *            authentication to read
+     * @return the remote address, or {@code null} if there is none
+     */
+    private final String getAddress(final Authentication authentication) {
+        final String address;
+
+        if (authentication.getDetails() instanceof WebAuthenticationDetails) {
+            address = ((WebAuthenticationDetails) authentication.getDetails()).getRemoteAddress();
+        } else {
+            address = null;
+        }
+
+        return address;
+    }
+
+    /**
+     * Counts a failure for the received key.
+     *
+     * @param counters
+     *            counters to update
+     * @param key
+     *            key to count for, ignored if {@code null}
+     * @param now
+     *            current time, in milliseconds
+     */
+    private final void increment(final Cache<String, SlidingWindowCounter> counters, final String key,
+            final long now) {
+        if (key != null) {
+            counters.get(key, k -> new SlidingWindowCounter(window, BUCKETS))
+                .increment(now);
+        }
+    }
+
+    /**
+     * Checks if the key reached the threshold of failures.
+     *
+     * @param counters
+     *            counters to check
+     * @param key
+     *            key to check, ignored if {@code null}
+     * @param threshold
+     *            failures allowed
+     * @param now
+     *            current time, in milliseconds
+     * @return {@code true} if the threshold was reached
+     */
+    private final boolean isExceeded(final Cache<String, SlidingWindowCounter> counters, final String key,
+            final int threshold, final long now) {
+        final SlidingWindowCounter counter;
+        final boolean              exceeded;
+
+        if (key == null) {
+            exceeded = false;
+        } else {
+            counter = counters.getIfPresent(key);
+            exceeded = (counter != null) && (counter.getCount(now) >= threshold);
+        }
+
+        return exceeded;
+    }
+
+    /**
+     * Normalizes the username, in the same way as the user details service.
+     *
+     * @param username
+     *            username to normalize
+     * @return the normalized username, or {@code null} if there is none
+     */
+    private final String normalize(final String username) {
+        final String normalized;
+
+        if (username == null) {
+            normalized = null;
+        } else {
+            normalized = username.toLowerCase(Locale.getDefault());
+        }
+
+        return normalized;
+    }
+
+}
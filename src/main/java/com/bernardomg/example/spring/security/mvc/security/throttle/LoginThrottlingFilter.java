@@ -0,0 +1,98 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.throttle;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Answers with a 429 status the logins which the {@link LoginAttemptTracker} throttles.
+ * <p>
+ * It should be placed before the authentication filters. Throttled logins are rejected without reading the user or
+ * hashing the password, so repeated attempts cost almost nothing.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+public final class LoginThrottlingFilter extends OncePerRequestFilter {
+
+    /**
+     * Matcher for the login requests.
+     */
+    private final RequestMatcher      loginMatcher;
+
+    /**
+     * Tracker for the failed logins.
+     */
+    private final LoginAttemptTracker tracker;
+
+    /**
+     * Constructs a login throttling filter.
+     *
+     * @param loginUrl
+     *            URL processing the logins
+     * @param attemptTracker
+     *            tracker for the failed logins
+     */
+    public LoginThrottlingFilter(final String loginUrl, final LoginAttemptTracker attemptTracker) {
+        super();
+
+        loginMatcher = new AntPathRequestMatcher(loginUrl, "POST");
+        tracker = Objects.requireNonNull(attemptTracker, "Received a null pointer as tracker");
+    }
+
+    @Override
+    protected final void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+            final FilterChain filterChain) throws ServletException, IOException {
+        final String username;
+
+        username = request.getParameter(UsernamePasswordAuthenticationFilter.SPRING_SECURITY_FORM_USERNAME_KEY);
+        if (tracker.isThrottled(username, request.getRemoteAddr())) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(tracker.getWindow()
+                .toSeconds()));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value());
+        } else {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    @Override
+    protected final boolean shouldNotFilter(final HttpServletRequest request) {
+        return !loginMatcher.matches(request);
+    }
+
+}
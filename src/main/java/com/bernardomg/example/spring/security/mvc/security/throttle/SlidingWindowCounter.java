@@ -0,0 +1,154 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.throttle;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts the events in a sliding time window, without locks.
+ * <p>
+ * The window is split into a fixed number of buckets, each covering a slice of time. Each bucket is a single long,
+ * which keeps the slice it belongs to in its upper half and the count in its lower half. Increments are done with a
+ * compare-and-set, and a bucket from an old slice is reset by the first increment in the new one. The count is the sum
+ * of the buckets inside the window.
+ * <p>
+ * Memory is fixed by the number of buckets, no matter how many events are counted. The window moves one bucket at a
+ * time, so the count is precise up to the bucket length.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+public final class SlidingWindowCounter {
+
+    /**
+     * Mask for the count in a bucket, and for the slice once shifted.
+     */
+    private static final long     LOWER_MASK = 0xFFFFFFFFL;
+
+    /**
+     * Length of the time slice covered by each bucket.
+     */
+    private final long            bucketMillis;
+
+    /**
+     * Buckets, each with its slice and count.
+     */
+    private final AtomicLongArray buckets;
+
+    /**
+     * Constructs a counter.
+     *
+     * @param window
+     *            time window to count
+     * @param bucketCount
+     *            number of buckets the window is split into
+     */
+    public SlidingWindowCounter(final Duration window, final int bucketCount) {
+        super();
+
+        Objects.requireNonNull(window, "Received a null pointer as window");
+
+        buckets = new AtomicLongArray(bucketCount);
+        bucketMillis = Math.max(1, window.toMillis() / bucketCount);
+    }
+
+    /**
+     * Returns the number of events in the window ending at the received time.
+     *
+     * @param now
+     *            current time, in milliseconds
+     * @return the number of events in the window
+     */
+    public final int getCount(final long now) {
+        final long slice;
+        long       bucket;
+        int        count;
+
+        slice = (now / bucketMillis) & LOWER_MASK;
+        count = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            bucket = buckets.get(i);
+            if (isInWindow(bucket >>> 32, slice)) {
+                count += (int) (bucket & LOWER_MASK);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Counts an event, and returns the number of events in the window ending at the received time.
+     *
+     * @param now
+     *            current time, in milliseconds
+     * @return the number of events in the window, including this one
+     */
+    public final int increment(final long now) {
+        final long slice;
+        final int  index;
+        long       current;
+        long       updated;
+
+        slice = (now / bucketMillis) & LOWER_MASK;
+        index = (int) (slice % buckets.length());
+        do {
+            current = buckets.get(index);
+            if ((current >>> 32) == slice) {
+                updated = current + 1;
+            } else {
+                // The bucket belongs to an old slice
+                updated = (slice << 32) | 1;
+            }
+        } while (!buckets.compareAndSet(index, current, updated));
+
+        return getCount(now);
+    }
+
+    /**
+     * Removes all the events.
+     */
+    public final void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+    }
+
+    /**
+     * Checks if a bucket slice is inside the window ending at the current slice. The slices are truncated, so the
+     * distance between them is computed modulo the slice range.
+     *
+     * @param bucketSlice
+     *            slice of the bucket
+     * @param slice
+     *            current slice
+     * @return {@code true} if the bucket is inside the window
+     */
+    private final boolean isInWindow(final long bucketSlice, final long slice) {
+        return ((slice - bucketSlice) & LOWER_MASK) < buckets.length();
+    }
+
+}
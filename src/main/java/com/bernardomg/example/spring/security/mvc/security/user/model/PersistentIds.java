@@ -0,0 +1,53 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.user.model;
+
+/**
+ * Id generation settings shared by the persistent entities.
+ * <p>
+ * Ids come from database sequences, which are read in blocks. Each call to a sequence reserves a full block of ids, which
+ * are then handed out in memory, so inserts don't need a round trip to the database for each id.
+ * <p>
+ * The block size is the sequence increment. The value here is just the default, as Hibernate is configured to take the
+ * increment from the sequence itself when they don't match. So the block size can be changed by altering the sequences.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+final class PersistentIds {
+
+    /**
+     * Default number of ids reserved with each call to a sequence.
+     */
+    public static final int BLOCK_SIZE = 50;
+
+    /**
+     * Private constructor to avoid initialization.
+     */
+    private PersistentIds() {
+        super();
+    }
+
+}
@@ -26,13 +26,17 @@
 
 import java.io.Serializable;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
-import jakarta.persistence.TableGenerator;
 import lombok.Data;
 
 /**
@@ -42,10 +46,12 @@
  *
  */
 @Data
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "privileges")
 @Entity(name = "Privilege")
 @Table(name = "privileges")
-@TableGenerator(name = "seq_privileges_id", table = "sequences", pkColumnName = "sequence", valueColumnName = "count",
-        allocationSize = 1)
+@SequenceGenerator(name = "seq_privileges_id", sequenceName = "seq_privileges_id",
+        allocationSize = PersistentIds.BLOCK_SIZE)
 public class PersistentPrivilege implements Serializable {
 
     /**
@@ -57,7 +63,7 @@ public class PersistentPrivilege implements Serializable {
      * Entity id.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.TABLE, generator = "seq_privileges_id")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_privileges_id")
     @Column(name = "id", nullable = false, unique = true)
     private Long              id;
 
@@ -26,13 +26,17 @@
 
 import java.io.Serializable;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
-import jakarta.persistence.TableGenerator;
 import lombok.Data;
 
 /**
@@ -42,10 +46,12 @@
  *
  */
 @Data
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "roles")
 @Entity(name = "Role")
 @Table(name = "roles")
-@TableGenerator(name = "seq_roles_id", table = "sequences", pkColumnName = "sequence", valueColumnName = "count",
-        allocationSize = 1)
+@SequenceGenerator(name = "seq_roles_id", sequenceName = "seq_roles_id",
+        allocationSize = PersistentIds.BLOCK_SIZE)
 public class PersistentRole implements Serializable {
 
     /**
@@ -57,7 +63,7 @@ public class PersistentRole implements Serializable {
      * Entity id.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.TABLE, generator = "seq_roles_id")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_roles_id")
     @Column(name = "id", nullable = false, unique = true)
     private Long              id;
 
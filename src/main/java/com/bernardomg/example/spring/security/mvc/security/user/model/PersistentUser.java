@@ -31,8 +31,8 @@
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
-import jakarta.persistence.TableGenerator;
 import jakarta.persistence.Transient;
 import lombok.Data;
 
@@ -45,8 +45,8 @@
 @Data
 @Entity(name = "User")
 @Table(name = "users")
-@TableGenerator(name = "seq_DATAs_id", table = "sequences", pkColumnName = "sequence", valueColumnName = "count",
-        allocationSize = 1)
+@SequenceGenerator(name = "seq_users_id", sequenceName = "seq_users_id",
+        allocationSize = PersistentIds.BLOCK_SIZE)
 public class PersistentUser implements Serializable {
 
     /**
@@ -83,7 +83,7 @@ public class PersistentUser implements Serializable {
      * Entity id.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.TABLE, generator = "seq_DATAs_id")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_users_id")
     @Column(name = "id", nullable = false, unique = true)
     private Long              id;
 
@@ -102,7 +102,7 @@ public class PersistentUser implements Serializable {
     /**
      * User password.
      */
-    @Column(name = "password", nullable = false, length = 60)
+    @Column(name = "password", nullable = false, length = 255)
     private String            password;
 
     /**
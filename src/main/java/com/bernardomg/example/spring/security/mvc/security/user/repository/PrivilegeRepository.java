@@ -31,6 +31,7 @@
 import org.springframework.data.repository.query.Param;
 
 import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentPrivilege;
+import com.bernardomg.example.spring.security.mvc.security.user.model.RolePrivilegeRelation;
 
 /**
  * Repository for privileges.
@@ -51,4 +52,26 @@ public interface PrivilegeRepository extends JpaRepository<PersistentPrivilege,
             nativeQuery = true)
     public Collection<PersistentPrivilege> findForUser(@Param("id") final Long id);
 
+    /**
+     * Returns all the privileges for all the roles, as role to privilege pairs. This is the full role to privileges
+     * graph.
+     *
+     * @return all the role to privilege pairs
+     */
+    @Query(value = "SELECT rp.role_id AS roleId, p.id AS privilegeId, p.name AS privilegeName FROM privileges p JOIN role_privileges rp ON p.id = rp.privilege_id ORDER BY rp.role_id, p.id",
+            nativeQuery = true)
+    public Collection<RolePrivilegeRelation> findAllRelations();
+
+    /**
+     * Returns all the privileges for the received roles, as role to privilege pairs. This allows reading the privileges
+     * for any number of roles in a single query.
+     *
+     * @param ids
+     *            role ids
+     * @return all the role to privilege pairs for the roles
+     */
+    @Query(value = "SELECT rp.role_id AS roleId, p.id AS privilegeId, p.name AS privilegeName FROM privileges p JOIN role_privileges rp ON p.id = rp.privilege_id WHERE rp.role_id IN :ids ORDER BY rp.role_id, p.id",
+            nativeQuery = true)
+    public Collection<RolePrivilegeRelation> findForRoles(@Param("ids") final Collection<Long> ids);
+
 }
@@ -25,23 +25,37 @@
 package com.bernardomg.example.spring.security.mvc.security.user.repository;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentRole;
+import com.bernardomg.example.spring.security.mvc.security.user.model.UserRoleRelation;
+
+import jakarta.persistence.QueryHint;
 
 /**
- * Repository for users.
+ * Repository for roles.
+ * <p>
+ * Roles barely change, so the queries reading them by name are stored in the query cache. The native queries writing
+ * to the user roles table declare it as their only affected table. Otherwise Hibernate would clear all the cached
+ * entities and queries after each of them.
  *
  * @author Bernardo Mart&iacute;nez Garrido
  *
  */
 public interface RoleRepository extends JpaRepository<PersistentRole, Long> {
 
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    public List<PersistentRole> findAll();
+
     /**
      * Returns the roles with the name received.
      *
@@ -49,6 +63,7 @@ public interface RoleRepository extends JpaRepository<PersistentRole, Long> {
      *            name of the role
      * @return roles names in the input
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     public Optional<PersistentRole> findByName(final String name);
 
     /**
@@ -58,6 +73,7 @@ public interface RoleRepository extends JpaRepository<PersistentRole, Long> {
      *            names of the roles
      * @return roles names in the input
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     public Collection<PersistentRole> findByNameIn(final Collection<String> names);
 
     /**
@@ -71,6 +87,44 @@ public interface RoleRepository extends JpaRepository<PersistentRole, Long> {
             nativeQuery = true)
     public Collection<PersistentRole> findForUser(@Param("id") final Long id);
 
+    /**
+     * Returns all the roles for the received users, as user to role pairs. This allows reading the roles for any
+     * number of users in a single query.
+     *
+     * @param ids
+     *            user ids
+     * @return all the user to role pairs for the users
+     */
+    @Query(value = "SELECT ur.user_id AS userId, r.id AS roleId, r.name AS roleName FROM roles r JOIN user_roles ur ON r.id = ur.role_id WHERE ur.user_id IN :ids ORDER BY ur.user_id, r.id",
+            nativeQuery = true)
+    public Collection<UserRoleRelation> findForUsers(@Param("ids") final Collection<Long> ids);
+
+    /**
+     * Returns the ids of all the roles for a user. This reads only the relationship table.
+     *
+     * @param id
+     *            user id
+     * @return the ids of the roles for the user
+     */
+    @Query(value = "SELECT ur.role_id FROM user_roles ur WHERE ur.user_id = :id ORDER BY ur.role_id", nativeQuery = true)
+    public Collection<Long> findIdsForUser(@Param("id") final Long id);
+
+    /**
+     * Registers all the received roles for the specified user, in a single statement. Ids which don't belong to a role
+     * are ignored.
+     *
+     * @param userId
+     *            id for the user to receive the roles
+     * @param roleIds
+     *            ids of the roles for the user
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_roles"))
+    @Query(value = "INSERT INTO user_roles (user_id, role_id) SELECT :userId, r.id FROM roles r WHERE r.id IN :roleIds",
+            nativeQuery = true)
+    public void registerAllForUser(@Param("userId") final Long userId,
+            @Param("roleIds") final Collection<Long> roleIds);
+
     /**
      * Registers a role for the specified user. This will update the relationship table for user roles.
      *
@@ -80,7 +134,22 @@ public interface RoleRepository extends JpaRepository<PersistentRole, Long> {
      *            id of the role for the user
      */
     @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_roles"))
     @Query(value = "INSERT INTO user_roles (user_id, role_id) VALUES (:userId, :roleId)", nativeQuery = true)
     public void registerForUser(@Param("userId") final Long userId, @Param("roleId") final Long roleId);
 
+    /**
+     * Removes all the received roles from the specified user, in a single statement.
+     *
+     * @param userId
+     *            id for the user losing the roles
+     * @param roleIds
+     *            ids of the roles to remove
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_roles"))
+    @Query(value = "DELETE FROM user_roles WHERE user_id = :userId AND role_id IN :roleIds", nativeQuery = true)
+    public void unregisterAllForUser(@Param("userId") final Long userId,
+            @Param("roleIds") final Collection<Long> roleIds);
+
 }
@@ -24,9 +24,16 @@
 
 package com.bernardomg.example.spring.security.mvc.security.user.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentUser;
 
@@ -38,6 +45,66 @@
  */
 public interface UserRepository extends JpaRepository<PersistentUser, Long> {
 
+    /**
+     * Returns the first users, sorted by username.
+     * <p>
+     * Only the first page of the received pageable is used, as this is the start for keyset pagination.
+     *
+     * @param page
+     *            pagination to apply
+     * @return the first users
+     */
+    public List<PersistentUser> findAllByOrderByUsernameAsc(final Pageable page);
+
+    /**
+     * Returns the users with a username after the received one, sorted by username.
+     * <p>
+     * This is a keyset query, which seeks directly into the username index. Only the first page of the received
+     * pageable should be used, as any offset would defeat the purpose.
+     *
+     * @param username
+     *            username after which to start reading
+     * @param page
+     *            pagination to apply
+     * @return the users after the username
+     */
+    public List<PersistentUser> findByUsernameGreaterThanOrderByUsernameAsc(final String username,
+            final Pageable page);
+
+    /**
+     * Returns the users with a username before the received one, sorted by username in descending order.
+     * <p>
+     * This is a keyset query, which seeks directly into the username index. Only the first page of the received
+     * pageable should be used, as any offset would defeat the purpose.
+     *
+     * @param username
+     *            username before which to start reading
+     * @param page
+     *            pagination to apply
+     * @return the users before the username, in reverse order
+     */
+    public List<PersistentUser> findByUsernameLessThanOrderByUsernameDesc(final String username, final Pageable page);
+
+    /**
+     * Returns which of the received emails are already in use.
+     *
+     * @param emails
+     *            emails to check
+     * @return the emails which already exist
+     */
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    public Collection<String> findExistingEmails(@Param("emails") final Collection<String> emails);
+
+    /**
+     * Returns which of the received usernames are already in use.
+     *
+     * @param usernames
+     *            usernames to check
+     * @return the usernames which already exist
+     */
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    public Collection<String> findExistingUsernames(@Param("usernames") final Collection<String> usernames);
+
     /**
      * Returns the user details for the received email.
      *
@@ -56,4 +123,20 @@ public interface UserRepository extends JpaRepository<PersistentUser, Long> {
      */
     public Optional<PersistentUser> findOneByUsername(final String username);
 
+    /**
+     * Replaces the password for the received username.
+     * <p>
+     * Starts a transaction if there is none, as password upgrades are persisted outside the login request.
+     *
+     * @param username
+     *            user to update
+     * @param password
+     *            new encoded password
+     * @return the number of updated users
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :password WHERE u.username = :username")
+    public int updatePassword(@Param("username") final String username, @Param("password") final String password);
+
 }
@@ -0,0 +1,178 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.security.userdetails;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * User cache backed by Caffeine. It is bounded both in size and in time, so stale entries are eventually discarded even
+ * if nobody evicts them.
+ * <p>
+ * The keys are the usernames, normalized in the same way as the user details service does, so the same user is always
+ * stored under the same key.
+ * <p>
+ * Spring erases the credentials of the authenticated user details, so the cache never returns the stored instance.
+ * Instead it returns a copy, which can be modified without affecting the cached data.
+ * <p>
+ * Hits, misses and evictions are recorded, and can be read to size the cache.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@Slf4j
+public final class CaffeineUserCache implements UserCache {
+
+    /**
+     * Wrapped cache.
+     */
+    private final Cache<String, UserDetails> cache;
+
+    /**
+     * Constructs a user cache.
+     *
+     * @param maxSize
+     *            maximum number of users in the cache
+     * @param ttl
+     *            time a user is kept in the cache after being stored
+     */
+    public CaffeineUserCache(final long maxSize, final Duration ttl) {
+        super();
+
+        Objects.requireNonNull(ttl, "Received a null pointer as time to live");
+
+        cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Removes all the users from the cache.
+     */
+    public final void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the number of evicted users. This includes both users discarded due to size and expired users, but not
+     * those removed explicitly.
+     *
+     * @return the number of evicted users
+     */
+    public final long getEvictionCount() {
+        return getStats().evictionCount();
+    }
+
+    /**
+     * Returns the number of cache hits.
+     *
+     * @return the number of cache hits
+     */
+    public final long getHitCount() {
+        return getStats().hitCount();
+    }
+
+    /**
+     * Returns the number of cache misses.
+     *
+     * @return the number of cache misses
+     */
+    public final long getMissCount() {
+        return getStats().missCount();
+    }
+
+    /**
+     * Returns the approximate number of users in the cache.
+     *
+     * @return the number of users in the cache
+     */
+    public final long getSize() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Returns all the cache statistics.
+     *
+     * @return the cache statistics
+     */
+    public final CacheStats getStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public final UserDetails getUserFromCache(final String username) {
+        final UserDetails cached;
+        final UserDetails user;
+
+        cached = cache.getIfPresent(normalize(username));
+        if (cached == null) {
+            user = null;
+        } else {
+            log.trace("Found user {} in cache", username);
+            user = User.withUserDetails(cached)
+                .build();
+        }
+
+        return user;
+    }
+
+    @Override
+    public final void putUserInCache(final UserDetails user) {
+        // Stores a copy, in case the received user is modified
+        cache.put(normalize(user.getUsername()), User.withUserDetails(user)
+            .build());
+    }
+
+    @Override
+    public final void removeUserFromCache(final String username) {
+        log.trace("Removing user {} from cache", username);
+        cache.invalidate(normalize(username));
+    }
+
+    /**
+     * Returns the normalized username, to be used as key.
+     *
+     * @param username
+     *            username to normalize
+     * @return the normalized username
+     */
+    private final String normalize(final String username) {
+        return username.toLowerCase(Locale.getDefault());
+    }
+
+}
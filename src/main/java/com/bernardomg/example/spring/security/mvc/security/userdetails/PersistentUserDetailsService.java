@@ -28,26 +28,29 @@
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
-import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentPrivilege;
+import com.bernardomg.example.spring.security.mvc.security.authority.AuthoritiesResolver;
 import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentUser;
-import com.bernardomg.example.spring.security.mvc.security.user.repository.PrivilegeRepository;
 import com.bernardomg.example.spring.security.mvc.security.user.repository.UserRepository;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * User details service which takes the user data from the persistence layer.
  * <p>
- * Makes use of repositories, which will return the user and his privileges.
+ * Makes use of a repository, which will return the user, and an {@link AuthoritiesResolver}, which will return his
+ * privileges.
  * <p>
  * The user search is based on the username, and is case insensitive. As the persisted user details are expected to
  * contain the username in lower case.
@@ -59,6 +62,20 @@
  * {@code user -> role -> privileges}
  * <p>
  * These privileges are used to create the granted authorities.
+ * <h2>Cache</h2>
+ * <p>
+ * Loaded users are stored in a {@link UserCache}, and further requests for the same username are taken from it. This
+ * way repeated logins don't hit the database each time. Whoever modifies a user is expected to remove it from the
+ * cache.
+ * <h2>Password upgrades</h2>
+ * <p>
+ * When a user logs in with a password hash in an outdated format, the authentication provider re-encodes the password
+ * and sends it to this service. The new hash is persisted through an executor, so the login doesn't wait for it, and
+ * the user is then removed from the cache. If the upgrade can't be persisted, it will be tried again on the next login.
+ * <h2>Metrics</h2>
+ * <p>
+ * Loading the user is timed. The timer is tagged with the exception thrown, so logins for existing users can be told
+ * apart from those for unknown users.
  * <h2>Exceptions</h2>
  * <p>
  * When loading users any of these cases throws a {@code UsernameNotFoundException}:
@@ -71,12 +88,22 @@
  *
  */
 @Slf4j
-public final class PersistentUserDetailsService implements UserDetailsService {
+public final class PersistentUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+    /**
+     * Resolver for the user authorities.
+     */
+    private final AuthoritiesResolver authoritiesResolver;
+
+    /**
+     * Cache for the loaded users.
+     */
+    private final UserCache           userCache;
 
     /**
-     * Repository for the privileges.
+     * Executor which persists the upgraded passwords.
      */
-    private final PrivilegeRepository privilegeRepo;
+    private final Executor            upgradeExecutor;
 
     /**
      * Repository for the user data.
@@ -88,31 +115,86 @@ public final class PersistentUserDetailsService implements UserDetailsService {
      *
      * @param userRepository
      *            repository for user details
-     * @param privilegeRepository
-     *            repository for privileges
+     * @param resolver
+     *            resolver for the user authorities
+     * @param cache
+     *            cache for the loaded users
+     * @param executor
+     *            executor which persists the upgraded passwords
      */
-    public PersistentUserDetailsService(final UserRepository userRepository,
-            final PrivilegeRepository privilegeRepository) {
+    public PersistentUserDetailsService(final UserRepository userRepository, final AuthoritiesResolver resolver,
+            final UserCache cache, final Executor executor) {
         super();
 
         userRepo = Objects.requireNonNull(userRepository, "Received a null pointer as repository");
-        privilegeRepo = Objects.requireNonNull(privilegeRepository, "Received a null pointer as repository");
+        authoritiesResolver = Objects.requireNonNull(resolver, "Received a null pointer as authorities resolver");
+        userCache = Objects.requireNonNull(cache, "Received a null pointer as cache");
+        upgradeExecutor = Objects.requireNonNull(executor, "Received a null pointer as executor");
     }
 
     @Override
+    @Timed(value = "security.userdetails.load", description = "Time to load the user details for a login",
+            histogram = true)
     public final UserDetails loadUserByUsername(final String username) throws UsernameNotFoundException {
+        final UserDetails cached;
+        final UserDetails details;
+        final String      normalizedUsername;
+
+        normalizedUsername = username.toLowerCase(Locale.getDefault());
+
+        cached = userCache.getUserFromCache(normalizedUsername);
+        if (cached == null) {
+            details = loadFromPersistence(username, normalizedUsername);
+            userCache.putUserInCache(details);
+        } else {
+            log.debug("User {} read from cache", username);
+            details = cached;
+        }
+
+        return details;
+    }
+
+    @Override
+    public final UserDetails updatePassword(final UserDetails user, final String newPassword) {
+        final String username;
+
+        username = user.getUsername();
+
+        try {
+            upgradeExecutor.execute(() -> persistPassword(username, newPassword));
+        } catch (final RejectedExecutionException e) {
+            log.debug("Skipped password upgrade for {}", username);
+        }
+
+        return User.withUserDetails(user)
+            .password(newPassword)
+            .build();
+    }
+
+    /**
+     * Loads the user details from the persistence layer.
+     *
+     * @param username
+     *            username as received
+     * @param normalizedUsername
+     *            username to search for
+     * @return the user details for the username
+     * @throws UsernameNotFoundException
+     *             if the user doesn't exist, or has no authorities
+     */
+    private final UserDetails loadFromPersistence(final String username, final String normalizedUsername) {
         final Optional<PersistentUser>               user;
         final Collection<? extends GrantedAuthority> authorities;
         final UserDetails                            details;
 
-        user = userRepo.findOneByUsername(username.toLowerCase(Locale.getDefault()));
+        user = userRepo.findOneByUsername(normalizedUsername);
 
         if (!user.isPresent()) {
             log.warn("Username {} not found in DB", username);
             throw new UsernameNotFoundException(username);
         }
 
-        authorities = getAuthorities(user.get()
+        authorities = authoritiesResolver.getAuthorities(user.get()
             .getId());
 
         if (authorities.isEmpty()) {
@@ -132,19 +214,23 @@ public final UserDetails loadUserByUsername(final String username) throws Userna
     }
 
     /**
-     * Returns all the authorities for the user.
+     * Persists the password for the user, and removes it from the cache.
      *
-     * @param id
-     *            id of the user
-     * @return all the authorities for the user
+     * @param username
+     *            user to update
+     * @param password
+     *            new encoded password
      */
-    private final Collection<GrantedAuthority> getAuthorities(final Long id) {
-        return privilegeRepo.findForUser(id)
-            .stream()
-            .map(PersistentPrivilege::getName)
-            .distinct()
-            .map(SimpleGrantedAuthority::new)
-            .collect(Collectors.toList());
+    private final void persistPassword(final String username, final String password) {
+        final int updated;
+
+        try {
+            updated = userRepo.updatePassword(username, password);
+            userCache.removeUserFromCache(username);
+            log.debug("Upgraded password for {}. Updated rows: {}", username, updated);
+        } catch (final RuntimeException e) {
+            log.warn("Failed upgrading password for {}", username, e);
+        }
     }
 
     /**
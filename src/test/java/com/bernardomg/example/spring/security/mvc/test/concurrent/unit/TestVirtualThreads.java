@@ -0,0 +1,99 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.concurrent.unit;
+
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.bernardomg.example.spring.security.mvc.concurrent.VirtualThreads;
+
+/**
+ * Unit tests for the virtual threads creation.
+ * <p>
+ * The results depend on the JVM running the tests, virtual threads were added in Java 21.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@DisplayName("Virtual threads")
+public final class TestVirtualThreads {
+
+    /**
+     * First Java version with virtual threads.
+     */
+    private static final int VIRTUAL_THREADS_VERSION = 21;
+
+    /**
+     * Default constructor.
+     */
+    public TestVirtualThreads() {
+        super();
+    }
+
+    @Test
+    @DisplayName("Virtual threads are supported on Java 21")
+    public final void testIsSupported() {
+        Assumptions.assumeTrue(Runtime.version()
+            .feature() >= VIRTUAL_THREADS_VERSION);
+
+        Assertions.assertTrue(VirtualThreads.isSupported());
+    }
+
+    @Test
+    @DisplayName("Tasks run on named virtual threads")
+    public final void testNewThreadPerTaskExecutor() throws Exception {
+        final ExecutorService executor;
+        final String          name;
+
+        Assumptions.assumeTrue(Runtime.version()
+            .feature() >= VIRTUAL_THREADS_VERSION);
+
+        executor = VirtualThreads.newThreadPerTaskExecutor("test-");
+        try {
+            name = executor.submit(() -> Thread.currentThread()
+                .getName())
+                .get();
+        } finally {
+            executor.shutdown();
+        }
+
+        Assertions.assertEquals("test-0", name);
+    }
+
+    @Test
+    @DisplayName("Older JVMs don't support virtual threads")
+    public final void testNewThreadPerTaskExecutor_Unsupported() {
+        Assumptions.assumeTrue(Runtime.version()
+            .feature() < VIRTUAL_THREADS_VERSION);
+
+        Assertions.assertFalse(VirtualThreads.isSupported());
+        Assertions.assertThrows(IllegalStateException.class, () -> VirtualThreads.newThreadPerTaskExecutor("test-"));
+    }
+
+}
@@ -0,0 +1,156 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.domain.audit.controller.integration;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.MvcIntegrationTest;
+
+/**
+ * Integration tests for the audit events controller, verifying that it returns the events.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@MvcIntegrationTest
+@Sql("/db/queries/audit/events.sql")
+@DisplayName("Audit event controller read operations")
+public class ITAuditEventController {
+
+    /**
+     * Mock MVC for the requests.
+     */
+    private MockMvc               mockMvc;
+
+    /**
+     * Web application context.
+     */
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    /**
+     * Default constructor.
+     */
+    public ITAuditEventController() {
+        super();
+    }
+
+    /**
+     * Sets up the mock MVC.
+     */
+    @BeforeEach
+    public final void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+            .apply(springSecurity())
+            .build();
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_AUDIT" })
+    @DisplayName("The events are returned as JSON")
+    public final void testGetEvents() throws Exception {
+        final RequestBuilder request;
+
+        request = MockMvcRequestBuilders.get("/audit/events")
+            .param("principal", "audit-query")
+            .param("type", "AUTHENTICATION_FAILURE")
+            .param("from", "2020-01-01T11:30:00");
+
+        mockMvc.perform(request)
+            .andExpect(MockMvcResultMatchers.status()
+                .isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.events.length()")
+                .value(1))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.events[0].eventDate")
+                .value("2020-01-01T12:00:00"));
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_DATA" })
+    @DisplayName("The events can't be read without the audit privilege")
+    public final void testGetEvents_NoAuditPrivilege() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/audit/events"))
+            .andExpect(MockMvcResultMatchers.status()
+                .isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_AUDIT" })
+    @DisplayName("The session id is not returned with the event data")
+    public final void testGetEvents_NoSessionId() throws Exception {
+        final RequestBuilder request;
+
+        request = MockMvcRequestBuilders.get("/audit/events")
+            .param("principal", "audit-session");
+
+        mockMvc.perform(request)
+            .andExpect(MockMvcResultMatchers.status()
+                .isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.events[0].data")
+                .value("{\"details\":{\"remoteAddress\":\"127.0.0.1\"}}"));
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_AUDIT" })
+    @DisplayName("The events page is shown")
+    public final void testShowEventsList() throws Exception {
+        final RequestBuilder request;
+
+        request = MockMvcRequestBuilders.get("/audit")
+            .param("principal", "audit-query")
+            .param("from", "");
+
+        mockMvc.perform(request)
+            .andExpect(MockMvcResultMatchers.status()
+                .isOk())
+            .andExpect(MockMvcResultMatchers.view()
+                .name("audit/list"))
+            .andExpect(MockMvcResultMatchers.model()
+                .attributeExists("page"));
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_DATA" })
+    @DisplayName("The events page can't be shown without the audit privilege")
+    public final void testShowEventsList_NoAuditPrivilege() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/audit"))
+            .andExpect(MockMvcResultMatchers.status()
+                .isForbidden());
+    }
+
+}
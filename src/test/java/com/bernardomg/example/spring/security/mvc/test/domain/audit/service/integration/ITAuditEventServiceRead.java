@@ -0,0 +1,179 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.domain.audit.service.integration;
+
+import java.time.LocalDateTime;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.bernardomg.example.spring.security.mvc.domain.audit.model.AuditEventData;
+import com.bernardomg.example.spring.security.mvc.domain.audit.model.AuditEventPage;
+import com.bernardomg.example.spring.security.mvc.domain.audit.service.AuditEventService;
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.IntegrationTest;
+
+/**
+ * Integration tests for the audit event service, verifying that events can be filtered and read by pages.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@IntegrationTest
+@Sql("/db/queries/audit/events.sql")
+@DisplayName("Audit event service read operations")
+public class ITAuditEventServiceRead {
+
+    /**
+     * Audit event service being tested.
+     */
+    @Autowired
+    private AuditEventService service;
+
+    /**
+     * Default constructor.
+     */
+    public ITAuditEventServiceRead() {
+        super();
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_AUDIT" })
+    @DisplayName("The page after a cursor contains the older events")
+    public void testGetEvents_After() {
+        final AuditEventPage first;
+        final AuditEventPage page;
+
+        first = service.getEvents("audit-query", null, null, null, null, 2);
+        page = service.getEvents("audit-query", null, null, null, first.getNext(), 2);
+
+        Assertions.assertEquals("11:00,10:00", getTimes(page));
+        Assertions.assertNull(page.getNext());
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_AUDIT" })
+    @DisplayName("The page size is capped")
+    public void testGetEvents_Capped() {
+        final AuditEventPage page;
+
+        page = service.getEvents("audit-query", null, null, null, null, 1000);
+
+        Assertions.assertEquals(100, page.getSize());
+        Assertions.assertEquals(4, page.getEvents()
+            .size());
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_AUDIT" })
+    @DisplayName("The first page contains the newest events")
+    public void testGetEvents_First() {
+        final AuditEventPage page;
+
+        page = service.getEvents("audit-query", null, null, null, null, 2);
+
+        Assertions.assertEquals("12:00,12:00", getTimes(page));
+        Assertions.assertNotNull(page.getNext());
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_AUDIT" })
+    @DisplayName("Events with the same date are split between pages")
+    public void testGetEvents_SameDate() {
+        final AuditEventPage first;
+        final AuditEventPage page;
+
+        first = service.getEvents("audit-query", null, null, null, null, 1);
+        page = service.getEvents("audit-query", null, null, null, first.getNext(), 1);
+
+        Assertions.assertEquals("12:00", getTimes(page));
+        Assertions.assertNotEquals(first.getEvents()
+            .iterator()
+            .next()
+            .getId(),
+            page.getEvents()
+                .iterator()
+                .next()
+                .getId());
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_AUDIT" })
+    @DisplayName("Events can be filtered by time window")
+    public void testGetEvents_TimeWindow() {
+        final AuditEventPage page;
+
+        page = service.getEvents(null, null, LocalDateTime.of(2020, 1, 1, 11, 0), LocalDateTime.of(2020, 1, 1, 13, 0),
+            null, null);
+
+        Assertions.assertEquals("12:00,12:00,11:00", getTimes(page));
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_AUDIT" })
+    @DisplayName("Events can be filtered by type")
+    public void testGetEvents_Type() {
+        final AuditEventPage page;
+
+        page = service.getEvents(null, "AUTHENTICATION_FAILURE", LocalDateTime.of(2020, 1, 1, 0, 0),
+            LocalDateTime.of(2020, 1, 2, 0, 0), null, null);
+
+        Assertions.assertEquals("13:00,12:00,11:00", getTimes(page));
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_AUDIT" })
+    @DisplayName("An unknown cursor returns an empty page")
+    public void testGetEvents_UnknownCursor() {
+        final AuditEventPage page;
+
+        page = service.getEvents("audit-query", null, null, null, -1L, null);
+
+        Assertions.assertTrue(page.getEvents()
+            .isEmpty());
+        Assertions.assertNull(page.getNext());
+    }
+
+    /**
+     * Returns the times of the events in the page, joined by commas.
+     *
+     * @param page
+     *            page to read
+     * @return the times of the events in the page
+     */
+    private final String getTimes(final AuditEventPage page) {
+        return page.getEvents()
+            .stream()
+            .map(AuditEventData::getEventDate)
+            .map(LocalDateTime::toLocalTime)
+            .map(String::valueOf)
+            .collect(Collectors.joining(","));
+    }
+
+}
@@ -0,0 +1,84 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.domain.audit.service.integration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import com.bernardomg.example.spring.security.mvc.domain.audit.service.AuditEventService;
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.IntegrationTest;
+
+/**
+ * Integration tests for the audit event service, verifying that events can't be read with an invalid authentication.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@IntegrationTest
+@DisplayName("Audit event service invalid authentication read operations")
+public class ITAuditEventServiceReadInvalidAuth {
+
+    /**
+     * Audit event service being tested.
+     */
+    @Autowired
+    private AuditEventService service;
+
+    /**
+     * Default constructor.
+     */
+    public ITAuditEventServiceReadInvalidAuth() {
+        super();
+    }
+
+    @Test
+    @DisplayName("Unauthenticated users can't read events")
+    public final void testGetEvents_NoAuth_Exception() {
+        Assertions.assertThrows(AuthenticationCredentialsNotFoundException.class,
+            () -> service.getEvents(null, null, null, null, null, null));
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_DATA" })
+    @DisplayName("Users without the audit privilege can't read events")
+    public final void testGetEvents_NoAuditPrivilege_Exception() {
+        Assertions.assertThrows(AccessDeniedException.class,
+            () -> service.getEvents(null, null, null, null, null, null));
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Users with no privileges can't read events")
+    public final void testGetEvents_NoPrivileges_Exception() {
+        Assertions.assertThrows(AccessDeniedException.class,
+            () -> service.getEvents(null, null, null, null, null, null));
+    }
+
+}
@@ -29,6 +29,7 @@
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
 import org.mockito.Mockito;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.RequestBuilder;
@@ -36,6 +37,7 @@
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import com.bernardomg.example.spring.security.mvc.domain.user.controller.UserController;
+import com.bernardomg.example.spring.security.mvc.domain.user.mapper.UserFormMapper;
 import com.bernardomg.example.spring.security.mvc.domain.user.service.UserService;
 
 /**
@@ -93,7 +95,7 @@ private final UserController getController() {
 
         service = Mockito.mock(UserService.class);
 
-        return new UserController(service);
+        return new UserController(Mappers.getMapper(UserFormMapper.class), service);
     }
 
 }
@@ -0,0 +1,128 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.domain.user.mapper.unit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+
+import com.bernardomg.example.spring.security.mvc.domain.user.mapper.UserMapper;
+import com.bernardomg.example.spring.security.mvc.domain.user.model.DtoUserData;
+import com.bernardomg.example.spring.security.mvc.domain.user.model.form.DefaultUserForm;
+import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentUser;
+
+/**
+ * Unit tests for the user mapper.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@DisplayName("User mapper")
+public final class TestUserMapper {
+
+    /**
+     * Mapper to test.
+     */
+    private final UserMapper mapper = Mappers.getMapper(UserMapper.class);
+
+    /**
+     * Default constructor.
+     */
+    public TestUserMapper() {
+        super();
+    }
+
+    @Test
+    @DisplayName("Mapping an entity copies all the user data, and no roles")
+    public final void testToDto_User() {
+        final DtoUserData data;
+
+        data = mapper.toDto(getEntity());
+
+        Assertions.assertEquals(1L, data.getId());
+        Assertions.assertEquals("admin", data.getUsername());
+        Assertions.assertEquals("admin@somewhere.com", data.getEmail());
+        Assertions.assertEquals("password", data.getPassword());
+        Assertions.assertTrue(data.getCredentialsExpired());
+        Assertions.assertFalse(data.getEnabled());
+        Assertions.assertTrue(data.getExpired());
+        Assertions.assertTrue(data.getLocked());
+        Assertions.assertTrue(data.getRoles()
+            .isEmpty());
+    }
+
+    @Test
+    @DisplayName("Updating an entity copies the form flags and username, and keeps the other fields")
+    public final void testUpdateEntity() {
+        final PersistentUser  entity;
+        final DefaultUserForm form;
+
+        entity = getEntity();
+
+        form = new DefaultUserForm();
+        form.setUsername("user");
+        form.setPassword("new");
+        form.setEnabled(true);
+        form.setExpired(false);
+        form.setLocked(false);
+
+        mapper.updateEntity(form, entity);
+
+        Assertions.assertEquals("user", entity.getUsername());
+        Assertions.assertTrue(entity.getEnabled());
+        Assertions.assertFalse(entity.getExpired());
+        Assertions.assertFalse(entity.getLocked());
+
+        Assertions.assertEquals(1L, entity.getId());
+        Assertions.assertEquals("Admin", entity.getName());
+        Assertions.assertEquals("admin@somewhere.com", entity.getEmail());
+        Assertions.assertEquals("password", entity.getPassword());
+        Assertions.assertTrue(entity.getCredentialsExpired());
+    }
+
+    /**
+     * Returns a user entity with all the fields set.
+     *
+     * @return a user entity
+     */
+    private final PersistentUser getEntity() {
+        final PersistentUser entity;
+
+        entity = new PersistentUser();
+        entity.setId(1L);
+        entity.setUsername("admin");
+        entity.setName("Admin");
+        entity.setEmail("admin@somewhere.com");
+        entity.setPassword("password");
+        entity.setCredentialsExpired(true);
+        entity.setEnabled(false);
+        entity.setExpired(true);
+        entity.setLocked(true);
+
+        return entity;
+    }
+
+}
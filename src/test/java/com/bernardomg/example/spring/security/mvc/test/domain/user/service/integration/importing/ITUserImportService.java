@@ -0,0 +1,225 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.domain.user.service.integration.importing;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.bernardomg.example.spring.security.mvc.domain.user.model.UserImportFailure;
+import com.bernardomg.example.spring.security.mvc.domain.user.model.UserImportResult;
+import com.bernardomg.example.spring.security.mvc.domain.user.service.UserImportService;
+import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentUser;
+import com.bernardomg.example.spring.security.mvc.security.user.repository.UserRepository;
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.IntegrationTest;
+
+/**
+ * Integration tests for the user import service, verifying that users can be imported.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@IntegrationTest
+@DisplayName("User import service")
+public class ITUserImportService {
+
+    /**
+     * Executor for the login password hashing.
+     */
+    @Autowired
+    @Qualifier("passwordHashingExecutor")
+    private ExecutorService   hashingExecutor;
+
+    /**
+     * Password encoder.
+     */
+    @Autowired
+    private PasswordEncoder   passwordEncoder;
+
+    /**
+     * User repository.
+     */
+    @Autowired
+    private UserRepository    repository;
+
+    /**
+     * User import service being tested.
+     */
+    @Autowired
+    private UserImportService service;
+
+    /**
+     * Default constructor.
+     */
+    public ITUserImportService() {
+        super();
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "CREATE_DATA" })
+    @DisplayName("Valid rows are imported")
+    public final void testImport() {
+        final UserImportResult result;
+        final PersistentUser   user;
+
+        result = service.importUsers(toInput("username,email,password,name,enabled,locked,expired",
+            "user1,user1@somewhere.com,pass1,User One,true,false,false", "User2,user2@somewhere.com,pass2"));
+
+        Assertions.assertEquals(2, result.getImported());
+        Assertions.assertEquals(0, result.getFailed());
+        Assertions.assertEquals(2, repository.count());
+
+        user = repository.findOneByUsername("user2")
+            .get();
+        Assertions.assertEquals("User2", user.getName());
+        Assertions.assertEquals("user2@somewhere.com", user.getEmail());
+        Assertions.assertTrue(user.getEnabled());
+        Assertions.assertFalse(user.getLocked());
+        Assertions.assertFalse(user.getExpired());
+        Assertions.assertTrue(passwordEncoder.matches("pass2", user.getPassword()));
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "CREATE_DATA" })
+    @Sql({ "/db/queries/user/single.sql" })
+    @DisplayName("Users which already exist are rejected")
+    public final void testImport_Existing() {
+        final UserImportResult result;
+
+        result = service.importUsers(toInput("username,email,password", "admin,other@somewhere.com,pass",
+            "other,admin@somewhere.com,pass", "user,user@somewhere.com,pass"));
+
+        Assertions.assertEquals(1, result.getImported());
+        Assertions.assertEquals(2, result.getFailed());
+        Assertions.assertEquals("Username already exists", getFailure(result, 0).getReason());
+        Assertions.assertEquals("Email already exists", getFailure(result, 1).getReason());
+        Assertions.assertEquals(2, repository.count());
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "CREATE_DATA" })
+    @DisplayName("Users are imported while the login hashing executor is saturated")
+    public final void testImport_HashingSaturated() {
+        final CountDownLatch   release;
+        final UserImportResult result;
+
+        release = new CountDownLatch(1);
+
+        // Fills the threads and the queue of the login hashing, until it rejects new work
+        try {
+            while (true) {
+                hashingExecutor.submit(() -> {
+                    release.await();
+                    return null;
+                });
+            }
+        } catch (final RejectedExecutionException e) {
+            // Saturated
+        }
+
+        try {
+            result = service.importUsers(toInput("username,email,password", "user1,user1@somewhere.com,pass1",
+                "user2,user2@somewhere.com,pass2"));
+        } finally {
+            release.countDown();
+        }
+
+        Assertions.assertEquals(2, result.getImported());
+        Assertions.assertEquals(0, result.getFailed());
+        Assertions.assertEquals(2, repository.count());
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "CREATE_DATA" })
+    @DisplayName("Invalid rows are rejected, and reported along their line")
+    public final void testImport_Invalid() {
+        final UserImportResult  result;
+        final UserImportFailure missing;
+        final UserImportFailure invalidFlag;
+        final UserImportFailure repeated;
+
+        result = service.importUsers(toInput("username,email,password", "user1,,pass", "",
+            "user2,user2@somewhere.com,pass,name,maybe", "user3,user3@somewhere.com,pass",
+            "user3,other@somewhere.com,pass"));
+
+        Assertions.assertEquals(1, result.getImported());
+        Assertions.assertEquals(3, result.getFailed());
+
+        missing = getFailure(result, 0);
+        Assertions.assertEquals(2, missing.getLine());
+        Assertions.assertEquals("user1", missing.getUsername());
+        Assertions.assertEquals("Missing email", missing.getReason());
+
+        invalidFlag = getFailure(result, 1);
+        Assertions.assertEquals(4, invalidFlag.getLine());
+        Assertions.assertEquals("Invalid flag", invalidFlag.getReason());
+
+        repeated = getFailure(result, 2);
+        Assertions.assertEquals(6, repeated.getLine());
+        Assertions.assertEquals("Username repeated in the file", repeated.getReason());
+    }
+
+    /**
+     * Returns the failure in the received position.
+     *
+     * @param result
+     *            import result
+     * @param index
+     *            position of the failure
+     * @return the failure in the position
+     */
+    private final UserImportFailure getFailure(final UserImportResult result, final int index) {
+        return result.getFailures()
+            .stream()
+            .skip(index)
+            .findFirst()
+            .get();
+    }
+
+    /**
+     * Returns the received lines as CSV input.
+     *
+     * @param lines
+     *            lines for the input
+     * @return the lines as input
+     */
+    private final InputStream toInput(final String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines)
+            .getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,80 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.domain.user.service.integration.importing;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import com.bernardomg.example.spring.security.mvc.domain.user.service.UserImportService;
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.IntegrationTest;
+
+/**
+ * Integration tests for the user import service, verifying that users can't be imported with an invalid
+ * authentication.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@IntegrationTest
+@DisplayName("User import service invalid credentials")
+public class ITUserImportServiceInvalidAuth {
+
+    /**
+     * User import service being tested.
+     */
+    @Autowired
+    private UserImportService service;
+
+    /**
+     * Default constructor.
+     */
+    public ITUserImportServiceInvalidAuth() {
+        super();
+    }
+
+    @Test
+    @DisplayName("Unauthenticated users can't import users")
+    public final void testImport_NoAuth_Exception() {
+        Assertions.assertThrows(AuthenticationCredentialsNotFoundException.class,
+            () -> service.importUsers(new ByteArrayInputStream("".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Users with no privileges can't import users")
+    public final void testImport_NoPrivileges_Exception() {
+        Assertions.assertThrows(AccessDeniedException.class,
+            () -> service.importUsers(new ByteArrayInputStream("".getBytes(StandardCharsets.UTF_8))));
+    }
+
+}
@@ -0,0 +1,156 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.domain.user.service.integration.read;
+
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.bernardomg.example.spring.security.mvc.domain.user.model.UserData;
+import com.bernardomg.example.spring.security.mvc.domain.user.model.UserPage;
+import com.bernardomg.example.spring.security.mvc.domain.user.service.UserService;
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.IntegrationTest;
+
+/**
+ * Integration tests for the persistent user service, verifying that users can be read by pages.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@IntegrationTest
+@Sql("/db/queries/security/full.sql")
+@DisplayName("User service paged read operations")
+public class ITUserServiceReadPage {
+
+    /**
+     * User service being tested.
+     */
+    @Autowired
+    private UserService service;
+
+    /**
+     * Default constructor.
+     */
+    public ITUserServiceReadPage() {
+        super();
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_DATA" })
+    @DisplayName("The page after a cursor can be read")
+    public void testGetUsers_After() {
+        final UserPage page;
+
+        page = service.getUsers("disabled", null, 2);
+
+        Assertions.assertEquals("expCreds,expired", getUsernames(page));
+        Assertions.assertEquals("expCreds", page.getPrevious());
+        Assertions.assertEquals("expired", page.getNext());
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_DATA" })
+    @DisplayName("The page before a cursor can be read")
+    public void testGetUsers_Before() {
+        final UserPage page;
+
+        page = service.getUsers(null, "expCreds", 2);
+
+        Assertions.assertEquals("admin,disabled", getUsernames(page));
+        Assertions.assertNull(page.getPrevious());
+        Assertions.assertEquals("disabled", page.getNext());
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_DATA" })
+    @DisplayName("The page size is capped")
+    public void testGetUsers_Capped() {
+        final UserPage page;
+
+        page = service.getUsers(null, null, 1000);
+
+        Assertions.assertEquals(100, page.getSize());
+        Assertions.assertEquals(6, page.getUsers()
+            .size());
+        Assertions.assertNull(page.getNext());
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_DATA" })
+    @DisplayName("The default page size is used when there is no size")
+    public void testGetUsers_DefaultSize() {
+        final UserPage page;
+
+        page = service.getUsers(null, null, null);
+
+        Assertions.assertEquals(20, page.getSize());
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_DATA" })
+    @DisplayName("The first page can be read")
+    public void testGetUsers_First() {
+        final UserPage page;
+
+        page = service.getUsers(null, null, 2);
+
+        Assertions.assertEquals("admin,disabled", getUsernames(page));
+        Assertions.assertNull(page.getPrevious());
+        Assertions.assertEquals("disabled", page.getNext());
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_DATA" })
+    @DisplayName("The last page has no next cursor")
+    public void testGetUsers_Last() {
+        final UserPage page;
+
+        page = service.getUsers("expired", null, 2);
+
+        Assertions.assertEquals("locked,noroles", getUsernames(page));
+        Assertions.assertEquals("locked", page.getPrevious());
+        Assertions.assertNull(page.getNext());
+    }
+
+    /**
+     * Returns the usernames in the page, joined by commas.
+     *
+     * @param page
+     *            page to read
+     * @return the usernames in the page
+     */
+    private final String getUsernames(final UserPage page) {
+        return page.getUsers()
+            .stream()
+            .map(UserData::getUsername)
+            .collect(Collectors.joining(","));
+    }
+
+}
@@ -0,0 +1,178 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.domain.user.service.integration.read;
+
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.apache.commons.collections4.IterableUtils;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.bernardomg.example.spring.security.mvc.domain.user.model.PrivilegeData;
+import com.bernardomg.example.spring.security.mvc.domain.user.model.RoleData;
+import com.bernardomg.example.spring.security.mvc.domain.user.model.UserData;
+import com.bernardomg.example.spring.security.mvc.domain.user.service.UserService;
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.IntegrationTest;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Integration tests for the persistent user service, verifying the number of queries used when reading users.
+ * <p>
+ * The roles and privileges should be read in batches, so the number of queries doesn't depend on the number of users.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@IntegrationTest
+@DisplayName("User service read operations queries")
+public class ITUserServiceReadQueries {
+
+    /**
+     * Entity manager factory, used to access the Hibernate statistics.
+     */
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * User service being tested.
+     */
+    @Autowired
+    private UserService          service;
+
+    /**
+     * Hibernate statistics.
+     */
+    private Statistics           statistics;
+
+    /**
+     * Default constructor.
+     */
+    public ITUserServiceReadQueries() {
+        super();
+    }
+
+    /**
+     * Resets the statistics.
+     */
+    @BeforeEach
+    public final void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class)
+            .getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_DATA" })
+    @DisplayName("Reading all the roles takes a constant number of queries")
+    @Sql({ "/db/queries/user/multiple_roles.sql" })
+    public void testGetAllRoles_Queries() {
+        final Iterable<RoleData> roles;
+
+        roles = service.getAllRoles();
+
+        Assertions.assertEquals(3, IterableUtils.size(roles));
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_DATA" })
+    @DisplayName("Reading all the users takes a constant number of queries")
+    @Sql("/db/queries/security/full.sql")
+    public void testGetAllUsers_Queries() {
+        final Iterable<UserData> users;
+
+        users = service.getAllUsers();
+
+        Assertions.assertEquals(6, IterableUtils.size(users));
+        Assertions.assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_DATA" })
+    @DisplayName("Reading all the users with multiple roles takes a constant number of queries")
+    @Sql({ "/db/queries/user/multiple_roles.sql" })
+    public void testGetAllUsers_MultipleRoles_Queries() {
+        final Iterable<UserData> users;
+
+        users = service.getAllUsers();
+
+        Assertions.assertEquals(3, IterableUtils.size(users));
+        Assertions.assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_DATA" })
+    @DisplayName("The roles and privileges are assigned to the correct users")
+    @Sql({ "/db/queries/user/multiple_roles.sql" })
+    public void testGetAllUsers_MultipleRoles_Relations() {
+        final Iterable<UserData> users;
+        final UserData           user;
+        final RoleData           role;
+
+        users = service.getAllUsers();
+
+        user = StreamSupport.stream(users.spliterator(), false)
+            .filter((u) -> "user".equals(u.getUsername()))
+            .findFirst()
+            .get();
+
+        Assertions.assertEquals(2, IterableUtils.size(user.getRoles()));
+        Assertions.assertEquals("USER,READER", user.getRoles()
+            .stream()
+            .map(RoleData::getName)
+            .collect(Collectors.joining(",")));
+
+        role = user.getRoles()
+            .iterator()
+            .next();
+        Assertions.assertEquals("READ_DATA,UPDATE_DATA", role.getPrivileges()
+            .stream()
+            .map(PrivilegeData::getName)
+            .collect(Collectors.joining(",")));
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "READ_DATA" })
+    @DisplayName("Reading a single user takes a constant number of queries")
+    @Sql({ "/db/queries/user/multiple_roles.sql" })
+    public void testGetUser_Queries() {
+        final UserData user;
+
+        user = service.getUser("admin");
+
+        Assertions.assertEquals(2, IterableUtils.size(user.getRoles()));
+        Assertions.assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+}
@@ -0,0 +1,138 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.domain.user.service.integration.update;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.bernardomg.example.spring.security.mvc.domain.user.model.form.DefaultUserForm;
+import com.bernardomg.example.spring.security.mvc.domain.user.model.form.DefaultUserRolesForm;
+import com.bernardomg.example.spring.security.mvc.domain.user.service.UserService;
+import com.bernardomg.example.spring.security.mvc.security.oauth.CaffeineOAuthUserCache;
+import com.bernardomg.example.spring.security.mvc.security.oauth.OAuthLocalUser;
+import com.bernardomg.example.spring.security.mvc.security.oauth.OAuthUserCache;
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.IntegrationTest;
+
+/**
+ * Integration tests for the persistent user service, verifying that updated users are removed from the OAUTH user
+ * cache.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@IntegrationTest
+@TestPropertySource(properties = { "security.oauth.cache.enabled=true" })
+@Sql({ "/db/queries/user/multiple_roles.sql" })
+@DisplayName("User service OAUTH cache eviction")
+public class ITUserServiceUpdateOAuthCache {
+
+    /**
+     * OAUTH user cache.
+     */
+    @Autowired
+    private OAuthUserCache cache;
+
+    /**
+     * User service being tested.
+     */
+    @Autowired
+    private UserService    service;
+
+    /**
+     * Default constructor.
+     */
+    public ITUserServiceUpdateOAuthCache() {
+        super();
+    }
+
+    /**
+     * Stores OAUTH logins for the admin and for the user.
+     */
+    @BeforeEach
+    public final void setup() {
+        ((CaffeineOAuthUserCache) cache).clear();
+
+        cache.putUserInCache("github:1", new OAuthLocalUser(Collections.emptyList(), 1L));
+        cache.putUserInCache("google:1", new OAuthLocalUser(Collections.emptyList(), 1L));
+        cache.putUserInCache("github:2", new OAuthLocalUser(Collections.emptyList(), 2L));
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "UPDATE_DATA" })
+    @DisplayName("Updating a user removes all his OAUTH logins from the cache")
+    public final void testUpdate_Evicted() {
+        final DefaultUserForm user;
+
+        user = new DefaultUserForm();
+        user.setUsername("admin");
+        user.setEnabled(false);
+
+        service.update(user);
+
+        Assertions.assertNull(cache.getUserFromCache("github:1"));
+        Assertions.assertNull(cache.getUserFromCache("google:1"));
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "UPDATE_DATA" })
+    @DisplayName("Updating a user keeps the OAUTH logins of other users")
+    public final void testUpdate_OtherUserKept() {
+        final DefaultUserForm user;
+
+        user = new DefaultUserForm();
+        user.setUsername("admin");
+        user.setEnabled(false);
+
+        service.update(user);
+
+        Assertions.assertNotNull(cache.getUserFromCache("github:2"));
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "UPDATE_DATA" })
+    @DisplayName("Updating the roles of a user removes his OAUTH logins from the cache")
+    public final void testUpdateRoles_Evicted() {
+        final DefaultUserRolesForm form;
+
+        form = new DefaultUserRolesForm();
+        form.setUsername("user");
+        form.setRoles(Arrays.asList("USER"));
+
+        service.updateRoles(form);
+
+        Assertions.assertNull(cache.getUserFromCache("github:2"));
+        Assertions.assertNotNull(cache.getUserFromCache("github:1"));
+    }
+
+}
@@ -0,0 +1,166 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.domain.user.service.integration.update;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.bernardomg.example.spring.security.mvc.domain.user.model.form.DefaultUserRolesForm;
+import com.bernardomg.example.spring.security.mvc.domain.user.service.UserService;
+import com.bernardomg.example.spring.security.mvc.security.user.repository.RoleRepository;
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.IntegrationTest;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Integration tests for the persistent user service, verifying that user roles can be updated.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@IntegrationTest
+@Sql({ "/db/queries/user/multiple_roles.sql" })
+@DisplayName("User service roles update operations")
+public class ITUserServiceUpdateRoles {
+
+    /**
+     * Entity manager factory, used to access the Hibernate statistics.
+     */
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Role repository.
+     */
+    @Autowired
+    private RoleRepository       roleRepository;
+
+    /**
+     * User service being tested.
+     */
+    @Autowired
+    private UserService          service;
+
+    /**
+     * Hibernate statistics.
+     */
+    private Statistics           statistics;
+
+    /**
+     * Default constructor.
+     */
+    public ITUserServiceUpdateRoles() {
+        super();
+    }
+
+    /**
+     * Resets the statistics.
+     */
+    @BeforeEach
+    public final void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class)
+            .getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "UPDATE_DATA" })
+    @DisplayName("The received roles replace the existing ones")
+    public final void testUpdateRoles() {
+        final DefaultUserRolesForm form;
+
+        form = new DefaultUserRolesForm();
+        form.setUsername("user");
+        form.setRoles(Arrays.asList("ADMIN", "USER"));
+
+        service.updateRoles(form);
+
+        Assertions.assertEquals(Set.of(1L, 2L), new HashSet<>(roleRepository.findIdsForUser(2L)));
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "UPDATE_DATA" })
+    @DisplayName("Updating with no roles removes all of them")
+    public final void testUpdateRoles_Empty() {
+        final DefaultUserRolesForm form;
+
+        form = new DefaultUserRolesForm();
+        form.setUsername("user");
+        form.setRoles(Collections.emptyList());
+
+        service.updateRoles(form);
+
+        Assertions.assertTrue(roleRepository.findIdsForUser(2L)
+            .isEmpty());
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "UPDATE_DATA" })
+    @DisplayName("Updating with the same roles doesn't change anything")
+    public final void testUpdateRoles_NoChanges() {
+        final DefaultUserRolesForm form;
+
+        form = new DefaultUserRolesForm();
+        form.setUsername("user");
+        form.setRoles(Arrays.asList("USER", "READER"));
+
+        service.updateRoles(form);
+
+        // Only the reads
+        Assertions.assertEquals(3, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(Set.of(2L, 3L), new HashSet<>(roleRepository.findIdsForUser(2L)));
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "UPDATE_DATA" })
+    @DisplayName("Updating the roles takes a constant number of queries")
+    public final void testUpdateRoles_Queries() {
+        final DefaultUserRolesForm form;
+
+        form = new DefaultUserRolesForm();
+        form.setUsername("noroles");
+        form.setRoles(Arrays.asList("ADMIN", "USER", "READER"));
+
+        service.updateRoles(form);
+
+        // Three reads and a single insert
+        Assertions.assertEquals(4, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(3, roleRepository.findIdsForUser(3L)
+            .size());
+    }
+
+}
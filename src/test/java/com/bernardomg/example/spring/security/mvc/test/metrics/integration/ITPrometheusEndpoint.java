@@ -0,0 +1,136 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.metrics.integration;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.MvcIntegrationTest;
+
+/**
+ * Integration tests for the Prometheus endpoint, verifying that the application metrics can be scraped, and only by
+ * users with the metrics privilege.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@MvcIntegrationTest
+@AutoConfigureObservability
+@Sql({ "/db/queries/user/single.sql", "/db/queries/security/default_role.sql",
+        "/db/queries/security/metrics_privilege.sql" })
+@DisplayName("Prometheus endpoint")
+public final class ITPrometheusEndpoint {
+
+    /**
+     * Mock MVC for the requests.
+     */
+    private MockMvc               mockMvc;
+
+    /**
+     * Web application context.
+     */
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    /**
+     * Default constructor.
+     */
+    public ITPrometheusEndpoint() {
+        super();
+    }
+
+    /**
+     * Sets up the mock MVC.
+     */
+    @BeforeEach
+    public final void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+            .apply(springSecurity())
+            .build();
+    }
+
+    @Test
+    @DisplayName("The health can be read without authentication")
+    public final void testHealth_NoAuth() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/health"))
+            .andExpect(MockMvcResultMatchers.status()
+                .isOk());
+    }
+
+    @Test
+    @DisplayName("The login metrics can be scraped with the metrics privilege")
+    public final void testScrape_Login() throws Exception {
+        mockMvc.perform(formLogin().user("admin")
+            .password("1234"))
+            .andExpect(authenticated());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus")
+            .with(httpBasic("admin", "1234")))
+            .andExpect(MockMvcResultMatchers.status()
+                .isOk())
+            .andExpect(MockMvcResultMatchers.content()
+                .string(Matchers.containsString("security_userdetails_load_seconds_bucket")))
+            .andExpect(MockMvcResultMatchers.content()
+                .string(Matchers.containsString("spring_data_repository_invocations_seconds_count")))
+            .andExpect(MockMvcResultMatchers.content()
+                .string(Matchers.containsString("hikaricp_connections{pool=\"mainPool\"")))
+            .andExpect(MockMvcResultMatchers.content()
+                .string(Matchers.containsString("hibernate_query_executions_total")));
+    }
+
+    @Test
+    @DisplayName("The metrics can't be scraped without authentication")
+    public final void testScrape_NoAuth() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+            .andExpect(MockMvcResultMatchers.status()
+                .isUnauthorized());
+    }
+
+    @Test
+    @Sql({ "/db/queries/user/single.sql", "/db/queries/security/default_role.sql" })
+    @DisplayName("The metrics can't be scraped without the metrics privilege")
+    public final void testScrape_NoPrivilege() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus")
+            .with(httpBasic("admin", "1234")))
+            .andExpect(MockMvcResultMatchers.status()
+                .isForbidden());
+    }
+
+}
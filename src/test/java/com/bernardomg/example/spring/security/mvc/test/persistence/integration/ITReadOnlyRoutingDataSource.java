@@ -0,0 +1,114 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.persistence.integration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.IntegrationTest;
+
+/**
+ * Integration tests for the read replica routing, verifying that read-only transactions go to the replica.
+ * <p>
+ * Both databases are in-memory H2 databases, which are told apart by their names.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@IntegrationTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = { "datasource.replica.enabled=true",
+        "datasource.replica.hikari.jdbc-url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "datasource.replica.hikari.username=sa" })
+@DisplayName("Read-only routing data source")
+public class ITReadOnlyRoutingDataSource {
+
+    /**
+     * Query returning the name of the database.
+     */
+    private static final String        DATABASE_SQL = "SELECT DATABASE()";
+
+    /**
+     * Replica database name.
+     */
+    private static final String        REPLICA      = "REPLICA";
+
+    /**
+     * JDBC template for the queries.
+     */
+    @Autowired
+    private JdbcTemplate               jdbcTemplate;
+
+    /**
+     * Transaction manager.
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Default constructor.
+     */
+    public ITReadOnlyRoutingDataSource() {
+        super();
+    }
+
+    @Test
+    @DisplayName("Queries outside a transaction go to the primary database")
+    public void testRoute_NoTransaction() {
+        Assertions.assertNotEquals(REPLICA, jdbcTemplate.queryForObject(DATABASE_SQL, String.class));
+    }
+
+    @Test
+    @DisplayName("Read-only transactions go to the replica")
+    public void testRoute_ReadOnly() {
+        final TransactionTemplate template;
+
+        template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+
+        Assertions.assertEquals(REPLICA,
+            template.execute(status -> jdbcTemplate.queryForObject(DATABASE_SQL, String.class)));
+    }
+
+    @Test
+    @DisplayName("Read-write transactions go to the primary database")
+    public void testRoute_ReadWrite() {
+        final TransactionTemplate template;
+
+        template = new TransactionTemplate(transactionManager);
+
+        Assertions.assertNotEquals(REPLICA,
+            template.execute(status -> jdbcTemplate.queryForObject(DATABASE_SQL, String.class)));
+    }
+
+}
@@ -0,0 +1,231 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.audit.integration;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import com.bernardomg.example.spring.security.mvc.security.audit.AsyncJdbcAuditEventRepository;
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.IntegrationTest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Integration tests for the asynchronous JDBC audit event repository.
+ * <p>
+ * The repository is created for each test, and it is never started. So the writes only happen when the tests flush
+ * it, inside the test transaction. The principals are unique to these tests, as the application stores its own events
+ * in the same table.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@IntegrationTest
+@DisplayName("Asynchronous JDBC audit event repository")
+public class ITAsyncJdbcAuditEventRepository {
+
+    /**
+     * Principal for the events.
+     */
+    private static final String PRINCIPAL = "audit-test";
+
+    /**
+     * JDBC template for the repository.
+     */
+    @Autowired
+    private JdbcTemplate        jdbcTemplate;
+
+    /**
+     * Mapper for the event data.
+     */
+    @Autowired
+    private ObjectMapper        objectMapper;
+
+    /**
+     * Default constructor.
+     */
+    public ITAsyncJdbcAuditEventRepository() {
+        super();
+    }
+
+    @Test
+    @DisplayName("Events are written in batches on flush")
+    public final void testFlush_Batches() {
+        final AsyncJdbcAuditEventRepository repository;
+
+        repository = getRepository(100);
+        for (int i = 0; i < 25; i++) {
+            repository.add(new AuditEvent(PRINCIPAL, "TYPE"));
+        }
+
+        Assertions.assertEquals(25, repository.getQueuedEvents());
+
+        repository.flush();
+
+        Assertions.assertEquals(0, repository.getQueuedEvents());
+        Assertions.assertEquals(25, repository.getWrittenEvents());
+        Assertions.assertEquals(25, repository.find(PRINCIPAL, null, null)
+            .size());
+    }
+
+    @Test
+    @DisplayName("Events are not written before flushing")
+    public final void testAdd_NotWritten() {
+        final AsyncJdbcAuditEventRepository repository;
+
+        repository = getRepository(100);
+        repository.add(new AuditEvent(PRINCIPAL, "TYPE"));
+
+        Assertions.assertTrue(repository.find(PRINCIPAL, null, null)
+            .isEmpty());
+    }
+
+    @Test
+    @DisplayName("When the queue is full new events are dropped")
+    public final void testAdd_QueueFull() {
+        final AsyncJdbcAuditEventRepository repository;
+
+        repository = getRepository(2);
+        repository.add(new AuditEvent(PRINCIPAL, "TYPE"));
+        repository.add(new AuditEvent(PRINCIPAL, "TYPE"));
+        repository.add(new AuditEvent(PRINCIPAL, "TYPE"));
+
+        Assertions.assertEquals(2, repository.getQueuedEvents());
+        Assertions.assertEquals(1, repository.getDroppedEvents());
+    }
+
+    @Test
+    @DisplayName("Events are read back with their data")
+    public final void testFind_Data() {
+        final AsyncJdbcAuditEventRepository repository;
+        final List<AuditEvent>              events;
+        final AuditEvent                    event;
+
+        repository = getRepository(100);
+        repository.add(new AuditEvent(PRINCIPAL, "TYPE", Map.of("message", "abc")));
+        repository.flush();
+
+        events = repository.find(PRINCIPAL, null, null);
+
+        Assertions.assertEquals(1, events.size());
+
+        event = events.iterator()
+            .next();
+        Assertions.assertEquals(PRINCIPAL, event.getPrincipal());
+        Assertions.assertEquals("TYPE", event.getType());
+        Assertions.assertEquals("abc", event.getData()
+            .get("message"));
+    }
+
+    @Test
+    @DisplayName("A principal longer than its column is truncated, and doesn't make the other events be lost")
+    public final void testFlush_LongPrincipal() {
+        final AsyncJdbcAuditEventRepository repository;
+        final String                        principal;
+
+        principal = PRINCIPAL.repeat(100);
+
+        repository = getRepository(100);
+        repository.add(new AuditEvent(PRINCIPAL, "TYPE"));
+        repository.add(new AuditEvent(principal, "AUTHENTICATION_FAILURE"));
+        repository.add(new AuditEvent(PRINCIPAL, "TYPE"));
+        repository.flush();
+
+        Assertions.assertEquals(3, repository.getWrittenEvents());
+        Assertions.assertEquals(0, repository.getDroppedEvents());
+        Assertions.assertEquals(2, repository.find(PRINCIPAL, null, null)
+            .size());
+        Assertions.assertEquals(1, repository.find(principal.substring(0, 255), null, null)
+            .size());
+    }
+
+    @Test
+    @DisplayName("The session id is not stored with the authentication details")
+    public final void testFlush_NoSessionId() {
+        final AsyncJdbcAuditEventRepository repository;
+        final String                        data;
+        final AuditEvent                    event;
+
+        repository = getRepository(100);
+        repository.add(new AuditEvent(PRINCIPAL, "TYPE",
+            Map.of("details", new WebAuthenticationDetails("127.0.0.1", "ABCDEF0123456789"))));
+        repository.flush();
+
+        data = jdbcTemplate.queryForObject("SELECT data FROM audit_events WHERE principal = ?", String.class,
+            PRINCIPAL);
+
+        Assertions.assertFalse(data.contains("sessionId"));
+        Assertions.assertFalse(data.contains("ABCDEF0123456789"));
+
+        event = repository.find(PRINCIPAL, null, null)
+            .iterator()
+            .next();
+        Assertions.assertEquals(Map.of("remoteAddress", "127.0.0.1"), event.getData()
+            .get("details"));
+    }
+
+    @Test
+    @DisplayName("Events can be filtered by date and type")
+    public final void testFind_Filters() {
+        final AsyncJdbcAuditEventRepository repository;
+        final Instant                       now;
+
+        now = Instant.now();
+
+        repository = getRepository(100);
+        repository.add(new AuditEvent(now.minus(Duration.ofDays(1)), PRINCIPAL, "TYPE", Map.of()));
+        repository.add(new AuditEvent(now, PRINCIPAL, "TYPE", Map.of()));
+        repository.add(new AuditEvent(now, PRINCIPAL, "OTHER", Map.of()));
+        repository.flush();
+
+        Assertions.assertEquals(3, repository.find(PRINCIPAL, null, null)
+            .size());
+        Assertions.assertEquals(2, repository.find(PRINCIPAL, now.minus(Duration.ofHours(1)), null)
+            .size());
+        Assertions.assertEquals(1, repository.find(PRINCIPAL, now.minus(Duration.ofHours(1)), "TYPE")
+            .size());
+    }
+
+    /**
+     * Returns a repository with the received queue size, writing batches of ten events.
+     *
+     * @param queueSize
+     *            maximum number of events in the queue
+     * @return a repository for the tests
+     */
+    private final AsyncJdbcAuditEventRepository getRepository(final int queueSize) {
+        return new AsyncJdbcAuditEventRepository(jdbcTemplate, objectMapper, queueSize, 10, Duration.ofSeconds(1));
+    }
+
+}
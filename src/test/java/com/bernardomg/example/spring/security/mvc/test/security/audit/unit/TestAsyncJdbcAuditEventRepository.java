@@ -0,0 +1,145 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.audit.unit;
+
+import java.sql.BatchUpdateException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+
+import com.bernardomg.example.spring.security.mvc.security.audit.AsyncJdbcAuditEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Unit tests for the asynchronous JDBC audit event repository, verifying how failed batches are handled.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@DisplayName("Asynchronous JDBC audit event repository failed batches")
+public final class TestAsyncJdbcAuditEventRepository {
+
+    /**
+     * JDBC template for the repository.
+     */
+    private JdbcTemplate                  jdbcTemplate;
+
+    /**
+     * Repository being tested.
+     */
+    private AsyncJdbcAuditEventRepository repository;
+
+    /**
+     * Default constructor.
+     */
+    public TestAsyncJdbcAuditEventRepository() {
+        super();
+    }
+
+    /**
+     * Creates the repository, with three events queued.
+     */
+    @BeforeEach
+    public final void setup() {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        repository = new AsyncJdbcAuditEventRepository(jdbcTemplate, new ObjectMapper(), 100, 10,
+            Duration.ofSeconds(1));
+
+        repository.add(new AuditEvent("user1", "TYPE"));
+        repository.add(new AuditEvent("user2", "TYPE"));
+        repository.add(new AuditEvent("user3", "TYPE"));
+    }
+
+    @Test
+    @DisplayName("When a batch fails only the events which weren't stored are written again, one by one")
+    public final void testFlush_BatchFailed() {
+        failBatch(new BatchUpdateException(new int[] { 1, Statement.EXECUTE_FAILED, 1 }));
+        Mockito
+            .when(jdbcTemplate.update(ArgumentMatchers.anyString(), ArgumentMatchers.any(PreparedStatementSetter.class)))
+            .thenReturn(1);
+
+        repository.flush();
+
+        Mockito.verify(jdbcTemplate, Mockito.times(1))
+            .update(ArgumentMatchers.anyString(), ArgumentMatchers.any(PreparedStatementSetter.class));
+        Assertions.assertEquals(3, repository.getWrittenEvents());
+        Assertions.assertEquals(0, repository.getDroppedEvents());
+    }
+
+    @Test
+    @DisplayName("When a batch fails the events which fail on their own are dropped")
+    public final void testFlush_BatchFailed_EventFailed() {
+        failBatch(new BatchUpdateException(new int[] { 1, Statement.EXECUTE_FAILED, 1 }));
+        Mockito
+            .when(jdbcTemplate.update(ArgumentMatchers.anyString(), ArgumentMatchers.any(PreparedStatementSetter.class)))
+            .thenThrow(new DataIntegrityViolationException("Invalid event"));
+
+        repository.flush();
+
+        Assertions.assertEquals(2, repository.getWrittenEvents());
+        Assertions.assertEquals(1, repository.getDroppedEvents());
+    }
+
+    @Test
+    @DisplayName("When a batch fails without update counts all the events are written again, one by one")
+    public final void testFlush_BatchFailed_NoCounts() {
+        failBatch(null);
+        Mockito
+            .when(jdbcTemplate.update(ArgumentMatchers.anyString(), ArgumentMatchers.any(PreparedStatementSetter.class)))
+            .thenReturn(1);
+
+        repository.flush();
+
+        Mockito.verify(jdbcTemplate, Mockito.times(3))
+            .update(ArgumentMatchers.anyString(), ArgumentMatchers.any(PreparedStatementSetter.class));
+        Assertions.assertEquals(3, repository.getWrittenEvents());
+        Assertions.assertEquals(0, repository.getDroppedEvents());
+    }
+
+    /**
+     * Makes the batch writes fail.
+     *
+     * @param cause
+     *            cause of the failure
+     */
+    @SuppressWarnings("unchecked")
+    private final void failBatch(final Exception cause) {
+        Mockito.when(jdbcTemplate.batchUpdate(ArgumentMatchers.anyString(), ArgumentMatchers.anyCollection(),
+            ArgumentMatchers.anyInt(), ArgumentMatchers.any(ParameterizedPreparedStatementSetter.class)))
+            .thenThrow(new DataIntegrityViolationException("Batch failed", cause));
+    }
+
+}
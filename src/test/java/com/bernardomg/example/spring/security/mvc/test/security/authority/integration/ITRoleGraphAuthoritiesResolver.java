@@ -0,0 +1,185 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.authority.integration;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTask;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.bernardomg.example.spring.security.mvc.security.authority.AuthoritiesResolver;
+import com.bernardomg.example.spring.security.mvc.security.authority.RoleGraphAuthoritiesResolver;
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.IntegrationTest;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Integration tests for the role graph authorities resolver.
+ * <p>
+ * The graph is loaded on startup, before the test data exists, so each test reloads it.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@IntegrationTest
+@TestPropertySource(properties = { "security.authorities.role-graph.enabled=true",
+        "security.authorities.role-graph.refresh-interval=7m" })
+@Sql({ "/db/queries/user/multiple_roles.sql" })
+@DisplayName("Role graph authorities resolver")
+public class ITRoleGraphAuthoritiesResolver {
+
+    /**
+     * Entity manager factory, used to access the Hibernate statistics.
+     */
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * JDBC template to modify the graph.
+     */
+    @Autowired
+    private JdbcTemplate         jdbcTemplate;
+
+    /**
+     * Resolver being tested.
+     */
+    @Autowired
+    private AuthoritiesResolver  resolver;
+
+    /**
+     * Holder of the scheduled tasks.
+     */
+    @Autowired
+    private ScheduledTaskHolder  scheduledTaskHolder;
+
+    /**
+     * Default constructor.
+     */
+    public ITRoleGraphAuthoritiesResolver() {
+        super();
+    }
+
+    /**
+     * Reloads the graph, to read the test data.
+     */
+    @BeforeEach
+    public final void setup() {
+        ((RoleGraphAuthoritiesResolver) resolver).reload();
+    }
+
+    @Test
+    @DisplayName("The privileges from all the roles are merged, without repetitions")
+    public final void testGetAuthorities() {
+        Assertions.assertEquals("CREATE_DATA,READ_DATA,UPDATE_DATA,DELETE_DATA", getAuthorities(1L));
+        Assertions.assertEquals("READ_DATA,UPDATE_DATA", getAuthorities(2L));
+    }
+
+    @Test
+    @DisplayName("A user with no roles has no authorities")
+    public final void testGetAuthorities_NoRoles() {
+        Assertions.assertEquals("", getAuthorities(3L));
+    }
+
+    @Test
+    @DisplayName("Resolving the authorities takes a single query")
+    public final void testGetAuthorities_Queries() {
+        final Statistics statistics;
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class)
+            .getStatistics();
+        statistics.clear();
+
+        resolver.getAuthorities(1L);
+
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Changes to the graph are not visible until reloading it")
+    public final void testReload() {
+        jdbcTemplate.update("INSERT INTO role_privileges (role_id, privilege_id) VALUES (3, 1)");
+
+        Assertions.assertEquals("READ_DATA,UPDATE_DATA", getAuthorities(2L));
+
+        ((RoleGraphAuthoritiesResolver) resolver).reload();
+
+        Assertions.assertEquals("READ_DATA,UPDATE_DATA,CREATE_DATA", getAuthorities(2L));
+    }
+
+    @Test
+    @DisplayName("The graph is reloaded by a scheduled task")
+    public final void testReload_Scheduled() {
+        final FixedDelayTask task;
+
+        task = scheduledTaskHolder.getScheduledTasks()
+            .stream()
+            .map(ScheduledTask::getTask)
+            .filter(FixedDelayTask.class::isInstance)
+            .map(FixedDelayTask.class::cast)
+            .filter(t -> Duration.ofMinutes(7)
+                .equals(t.getIntervalDuration()))
+            .findFirst()
+            .get();
+
+        jdbcTemplate.update("INSERT INTO role_privileges (role_id, privilege_id) VALUES (3, 1)");
+
+        task.getRunnable()
+            .run();
+
+        Assertions.assertEquals("READ_DATA,UPDATE_DATA,CREATE_DATA", getAuthorities(2L));
+    }
+
+    /**
+     * Returns the authorities for the user, joined by commas.
+     *
+     * @param userId
+     *            user id
+     * @return the authorities for the user
+     */
+    private final String getAuthorities(final Long userId) {
+        final Collection<GrantedAuthority> authorities;
+
+        authorities = resolver.getAuthorities(userId);
+
+        return authorities.stream()
+            .map(GrantedAuthority::getAuthority)
+            .collect(Collectors.joining(","));
+    }
+
+}
@@ -0,0 +1,123 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.login.controller.integration;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.bernardomg.example.spring.security.mvc.security.user.repository.UserRepository;
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.MvcIntegrationTest;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Integration tests for the login procedure, verifying that outdated password hashes are upgraded.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@MvcIntegrationTest
+@DisplayName("Application login password upgrade")
+public final class ITLoginPasswordUpgrade {
+
+    /**
+     * Entity manager, to read the user after the update.
+     */
+    @Autowired
+    private EntityManager         entityManager;
+
+    /**
+     * Mock MVC for the requests.
+     */
+    private MockMvc               mockMvc;
+
+    /**
+     * Password encoder.
+     */
+    @Autowired
+    private PasswordEncoder       passwordEncoder;
+
+    /**
+     * User repository.
+     */
+    @Autowired
+    private UserRepository        userRepository;
+
+    /**
+     * Web application context.
+     */
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    /**
+     * Default constructor.
+     */
+    public ITLoginPasswordUpgrade() {
+        super();
+    }
+
+    /**
+     * Sets up the mock MVC.
+     */
+    @BeforeEach
+    public final void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+            .apply(springSecurity())
+            .build();
+    }
+
+    @Test
+    @DisplayName("A login with an outdated hash stores the password with the current format")
+    @Sql({ "/db/queries/user/single.sql", "/db/queries/security/default_role.sql" })
+    public final void testLogin_OutdatedHash_Upgraded() throws Exception {
+        final String password;
+
+        mockMvc.perform(formLogin().user("admin")
+            .password("1234"))
+            .andExpect(authenticated());
+
+        entityManager.clear();
+        password = userRepository.findOneByUsername("admin")
+            .get()
+            .getPassword();
+
+        Assertions.assertTrue(password.startsWith("{bcrypt}"));
+        Assertions.assertTrue(passwordEncoder.matches("1234", password));
+        Assertions.assertFalse(passwordEncoder.upgradeEncoding(password));
+    }
+
+}
@@ -0,0 +1,289 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.oauth.integration;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.config.oauth2.client.CommonOAuth2Provider;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserService;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.bernardomg.example.spring.security.mvc.security.oauth.CircuitBreakers;
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.IntegrationTest;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Integration tests for the OAUTH provider client, calling a local stub provider.
+ * <p>
+ * The stub answers the user info requests after a delay, set by each test, to act as a slow provider. Slow providers
+ * take five times the read timeout, so a loaded JVM can't make a working call time out, or a slow one answer.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@IntegrationTest
+@TestPropertySource(properties = { "security.oauth.client.read-timeout=1s",
+        "security.oauth.client.circuit-breaker.failure-threshold=3" })
+@Sql({ "/db/queries/user/single.sql", "/db/queries/security/default_role.sql" })
+@DisplayName("OAuth provider client")
+public class ITOAuthProviderClient {
+
+    /**
+     * Delay for a slow provider, well above the read timeout.
+     */
+    private static final Duration SLOW      = Duration.ofSeconds(5);
+
+    /**
+     * User info returned by the stub provider.
+     */
+    private static final String   USER_INFO = "{\"id\": 1234, \"email\": \"admin@somewhere.com\", \"name\": \"admin\"}";
+
+    /**
+     * Circuit breakers for the providers.
+     */
+    @Autowired
+    private CircuitBreakers                                  circuitBreakers;
+
+    /**
+     * Delay before the stub provider answers.
+     */
+    private volatile Duration                                delay    = Duration.ZERO;
+
+    /**
+     * Stub provider executor.
+     */
+    private ExecutorService                                  executor;
+
+    /**
+     * Requests received by the stub provider.
+     */
+    private final AtomicInteger                              requests = new AtomicInteger();
+
+    /**
+     * Stub provider.
+     */
+    private HttpServer                                       server;
+
+    /**
+     * Service being tested.
+     */
+    @Autowired
+    private OAuth2UserService<OAuth2UserRequest, OAuth2User> service;
+
+    /**
+     * Default constructor.
+     */
+    public ITOAuthProviderClient() {
+        super();
+    }
+
+    /**
+     * Stops the stub provider.
+     */
+    @AfterEach
+    public final void cleanUp() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts the stub provider, and closes the circuit.
+     *
+     * @throws IOException
+     *             if the stub provider can't be started
+     */
+    @BeforeEach
+    public final void setup() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/user", this::answerUserInfo);
+        server.setExecutor(executor);
+        server.start();
+
+        circuitBreakers.reset();
+    }
+
+    @Test
+    @DisplayName("The user is read from a working provider")
+    public final void testLoadUser() {
+        final OAuth2User user;
+
+        user = service.loadUser(getRequest());
+
+        Assertions.assertEquals(4, user.getAuthorities()
+            .size());
+        Assertions.assertEquals(1, requests.get());
+    }
+
+    @Test
+    @DisplayName("Once the circuit opens the provider is not called")
+    public final void testLoadUser_CircuitOpen() {
+        delay = SLOW;
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertThrows(OAuth2AuthenticationException.class, () -> service.loadUser(getRequest()));
+        }
+
+        Assertions.assertThrows(OAuth2AuthenticationException.class, () -> service.loadUser(getRequest()));
+
+        Assertions.assertTrue(circuitBreakers.getCircuitBreaker("localhost")
+            .isOpen());
+        Assertions.assertEquals(3, requests.get());
+        Assertions.assertEquals(1, circuitBreakers.getRejectedCount());
+    }
+
+    @Test
+    @DisplayName("Concurrent logins to a slow provider don't keep the threads waiting")
+    public final void testLoadUser_Concurrent() throws Exception {
+        final ExecutorService               logins;
+        final Collection<Callable<Boolean>> tasks;
+
+        delay = SLOW;
+
+        tasks = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            tasks.add(() -> {
+                try {
+                    service.loadUser(getRequest());
+                    return true;
+                } catch (final OAuth2AuthenticationException e) {
+                    return false;
+                }
+            });
+        }
+
+        logins = Executors.newFixedThreadPool(8);
+        try {
+            for (final Future<Boolean> result : logins.invokeAll(tasks)) {
+                Assertions.assertFalse(result.get());
+            }
+        } finally {
+            logins.shutdown();
+        }
+
+        // Once the circuit opens, the logins are rejected without waiting for the provider
+        Assertions.assertTrue(circuitBreakers.getCircuitBreaker("localhost")
+            .isOpen());
+        Assertions.assertTrue(requests.get() < 40);
+        Assertions.assertEquals(40, requests.get() + circuitBreakers.getRejectedCount());
+    }
+
+    @Test
+    @DisplayName("A slow provider fails after the read timeout")
+    public final void testLoadUser_Slow() {
+        final OAuth2AuthenticationException exception;
+        Throwable                           cause;
+
+        delay = SLOW;
+
+        exception = Assertions.assertThrows(OAuth2AuthenticationException.class,
+            () -> service.loadUser(getRequest()));
+
+        cause = exception;
+        while ((cause != null) && !(cause instanceof SocketTimeoutException)) {
+            cause = cause.getCause();
+        }
+
+        Assertions.assertNotNull(cause, "Not failed by the read timeout");
+        Assertions.assertEquals(1, requests.get());
+        Assertions.assertFalse(circuitBreakers.getCircuitBreaker("localhost")
+            .isOpen());
+    }
+
+    /**
+     * Answers a user info request, after the delay.
+     *
+     * @param exchange
+     *            request to answer
+     * @throws IOException
+     *             if the response can't be written
+     */
+    private final void answerUserInfo(final HttpExchange exchange) throws IOException {
+        final byte[] body;
+
+        requests.incrementAndGet();
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (final InterruptedException e) {
+            Thread.currentThread()
+                .interrupt();
+            return;
+        }
+
+        body = USER_INFO.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders()
+            .add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (final OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    /**
+     * Returns a login request for the stub provider.
+     *
+     * @return a login request
+     */
+    private final OAuth2UserRequest getRequest() {
+        final OAuth2AccessToken token;
+
+        token = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "token", Instant.now(),
+            Instant.now()
+                .plusSeconds(60));
+
+        return new OAuth2UserRequest(CommonOAuth2Provider.GITHUB.getBuilder("github")
+            .clientId("client")
+            .clientSecret("secret")
+            .userInfoUri("http://localhost:" + server.getAddress()
+                .getPort() + "/user")
+            .build(), token);
+    }
+
+}
@@ -0,0 +1,217 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.oauth.integration;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.config.oauth2.client.CommonOAuth2Provider;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.bernardomg.example.spring.security.mvc.security.authority.AuthoritiesResolver;
+import com.bernardomg.example.spring.security.mvc.security.oauth.CaffeineOAuthUserCache;
+import com.bernardomg.example.spring.security.mvc.security.oauth.RegisterOAuth2UserService;
+import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentUser;
+import com.bernardomg.example.spring.security.mvc.security.user.repository.RoleRepository;
+import com.bernardomg.example.spring.security.mvc.security.user.repository.UserRepository;
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.IntegrationTest;
+
+/**
+ * Integration tests for the OAUTH user service.
+ * <p>
+ * The OAUTH provider is replaced by a stub, which returns the attributes set by each test.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@IntegrationTest
+@Sql({ "/db/queries/user/single.sql", "/db/queries/security/default_role.sql",
+        "/db/queries/security/user_role.sql" })
+@DisplayName("OAuth user service")
+public class ITRegisterOAuth2UserService {
+
+    /**
+     * Attributes returned by the OAUTH provider.
+     */
+    private final Map<String, Object>  attributes = new HashMap<>();
+
+    /**
+     * Authorities resolver.
+     */
+    @Autowired
+    private AuthoritiesResolver        authoritiesResolver;
+
+    /**
+     * OAUTH user cache.
+     */
+    private CaffeineOAuthUserCache     cache;
+
+    /**
+     * Roles repository.
+     */
+    @Autowired
+    private RoleRepository             roleRepository;
+
+    /**
+     * Service being tested.
+     */
+    private RegisterOAuth2UserService  service;
+
+    /**
+     * Transaction manager.
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Users repository.
+     */
+    @Autowired
+    private UserRepository             userRepository;
+
+    /**
+     * Default constructor.
+     */
+    public ITRegisterOAuth2UserService() {
+        super();
+    }
+
+    /**
+     * Creates the service, with a stub in place of the OAUTH provider.
+     */
+    @BeforeEach
+    public final void setup() {
+        cache = new CaffeineOAuthUserCache(100, Duration.ofMinutes(1));
+        service = new RegisterOAuth2UserService(
+            r -> new DefaultOAuth2User(AuthorityUtils.createAuthorityList("OAUTH2_USER"), attributes, "id"),
+            userRepository, roleRepository, authoritiesResolver, cache, transactionManager);
+
+        attributes.put("id", 1234);
+    }
+
+    @Test
+    @DisplayName("Repeated logins are taken from the cache")
+    public final void testLoadUser_Cached() {
+        final OAuth2User user;
+
+        attributes.put("email", "new@somewhere.com");
+
+        service.loadUser(getRequest());
+        user = service.loadUser(getRequest());
+
+        // The first login misses twice, before and after locking
+        Assertions.assertEquals(2, cache.getMissCount());
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(2, userRepository.count());
+        Assertions.assertEquals(1, user.getAuthorities()
+            .size());
+    }
+
+    @Test
+    @DisplayName("An existing user is read from the DB")
+    public final void testLoadUser_Existing() {
+        final OAuth2User user;
+
+        attributes.put("email", "admin@somewhere.com");
+
+        user = service.loadUser(getRequest());
+
+        Assertions.assertEquals(1, userRepository.count());
+        Assertions.assertEquals(4, user.getAuthorities()
+            .size());
+    }
+
+    @Test
+    @DisplayName("A user without email has no authorities")
+    public final void testLoadUser_NoEmail() {
+        final OAuth2User user;
+
+        user = service.loadUser(getRequest());
+
+        Assertions.assertEquals(1, userRepository.count());
+        Assertions.assertTrue(user.getAuthorities()
+            .isEmpty());
+        Assertions.assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    @DisplayName("A new user is registered with the default role")
+    public final void testLoadUser_Registered() {
+        final OAuth2User               user;
+        final Optional<PersistentUser> registered;
+
+        attributes.put("email", "new@somewhere.com");
+        attributes.put("name", "newuser");
+
+        user = service.loadUser(getRequest());
+
+        registered = userRepository.findOneByEmail("new@somewhere.com");
+
+        Assertions.assertTrue(registered.isPresent());
+        Assertions.assertEquals("newuser", registered.get()
+            .getUsername());
+        Assertions.assertTrue(registered.get()
+            .getEnabled());
+        Assertions.assertEquals("READ_DATA", user.getAuthorities()
+            .stream()
+            .map(GrantedAuthority::getAuthority)
+            .collect(Collectors.joining()));
+    }
+
+    /**
+     * Returns a login request for GitHub.
+     *
+     * @return a login request
+     */
+    private final OAuth2UserRequest getRequest() {
+        final OAuth2AccessToken token;
+
+        token = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "token", Instant.now(),
+            Instant.now()
+                .plusSeconds(60));
+
+        return new OAuth2UserRequest(CommonOAuth2Provider.GITHUB.getBuilder("github")
+            .clientId("client")
+            .clientSecret("secret")
+            .build(), token);
+    }
+
+}
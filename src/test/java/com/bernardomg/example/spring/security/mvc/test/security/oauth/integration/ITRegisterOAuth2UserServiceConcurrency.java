@@ -0,0 +1,228 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.oauth.integration;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.config.oauth2.client.CommonOAuth2Provider;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bernardomg.example.spring.security.mvc.security.authority.AuthoritiesResolver;
+import com.bernardomg.example.spring.security.mvc.security.oauth.CaffeineOAuthUserCache;
+import com.bernardomg.example.spring.security.mvc.security.oauth.RegisterOAuth2UserService;
+import com.bernardomg.example.spring.security.mvc.security.user.repository.RoleRepository;
+import com.bernardomg.example.spring.security.mvc.security.user.repository.UserRepository;
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.IntegrationTest;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Integration tests for the OAUTH user service, verifying concurrent first logins for the same user.
+ * <p>
+ * These tests run without a wrapping transaction, as each login should run in its own one, like concurrent requests
+ * would.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@IntegrationTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Sql({ "/db/queries/user/single.sql", "/db/queries/security/default_role.sql",
+        "/db/queries/security/user_role.sql" })
+@DisplayName("OAuth user service concurrency")
+public class ITRegisterOAuth2UserServiceConcurrency {
+
+    /**
+     * Number of logins.
+     */
+    private static final int           LOGINS  = 500;
+
+    /**
+     * Number of concurrent threads.
+     */
+    private static final int           THREADS = 32;
+
+    /**
+     * Authorities resolver.
+     */
+    @Autowired
+    private AuthoritiesResolver        authoritiesResolver;
+
+    /**
+     * Entity manager factory, used to access the Hibernate statistics.
+     */
+    @Autowired
+    private EntityManagerFactory       entityManagerFactory;
+
+    /**
+     * JDBC template to check and clean the DB.
+     */
+    @Autowired
+    private JdbcTemplate               jdbcTemplate;
+
+    /**
+     * Roles repository.
+     */
+    @Autowired
+    private RoleRepository             roleRepository;
+
+    /**
+     * Transaction manager.
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Users repository.
+     */
+    @Autowired
+    private UserRepository             userRepository;
+
+    /**
+     * Default constructor.
+     */
+    public ITRegisterOAuth2UserServiceConcurrency() {
+        super();
+    }
+
+    /**
+     * Removes the test data.
+     */
+    @AfterEach
+    public final void cleanUp() {
+        jdbcTemplate.update("DELETE FROM user_roles");
+        jdbcTemplate.update("DELETE FROM role_privileges");
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("DELETE FROM roles");
+        jdbcTemplate.update("DELETE FROM privileges");
+    }
+
+    @Test
+    @DisplayName("Concurrent first logins for the same user register it once, in a single transaction")
+    public final void testLoadUser_ConcurrentFirstLogins() throws Exception {
+        final RegisterOAuth2UserService    service;
+        final OAuth2UserRequest            request;
+        final CountDownLatch               start;
+        final Collection<Callable<String>> tasks;
+        final Collection<String>           authorities;
+        final ExecutorService              executor;
+        final Statistics                   statistics;
+        final long                         inserts;
+        final long                         transactions;
+
+        service = new RegisterOAuth2UserService(
+            r -> new DefaultOAuth2User(AuthorityUtils.createAuthorityList("OAUTH2_USER"),
+                Map.of("id", 1234, "email", "new@somewhere.com", "name", "newuser"), "id"),
+            userRepository, roleRepository, authoritiesResolver,
+            new CaffeineOAuthUserCache(100, Duration.ofMinutes(1)), transactionManager);
+        request = getRequest();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class)
+            .getStatistics();
+        inserts = statistics.getEntityInsertCount();
+        transactions = statistics.getTransactionCount();
+
+        // All the threads wait for the others, so the logins start at the same time
+        start = new CountDownLatch(THREADS);
+        tasks = new ArrayList<>();
+        for (int i = 0; i < LOGINS; i++) {
+            tasks.add(() -> {
+                start.countDown();
+                start.await();
+                return service.loadUser(request)
+                    .getAuthorities()
+                    .stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .collect(Collectors.joining());
+            });
+        }
+
+        executor = Executors.newFixedThreadPool(THREADS);
+        authorities = new ArrayList<>();
+        try {
+            for (final Future<String> result : executor.invokeAll(tasks)) {
+                authorities.add(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assertions.assertEquals(1, jdbcTemplate
+            .queryForObject("SELECT COUNT(*) FROM users WHERE email = 'new@somewhere.com'", Long.class));
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM user_roles ur JOIN users u ON u.id = ur.user_id WHERE u.email = 'new@somewhere.com'",
+            Long.class));
+        Assertions.assertEquals(1, statistics.getEntityInsertCount() - inserts);
+        // Only the first login reads the DB, the others wait for it and take the user from the cache
+        Assertions.assertEquals(1, statistics.getTransactionCount() - transactions);
+        Assertions.assertTrue(authorities.stream()
+            .allMatch("READ_DATA"::equals));
+    }
+
+    /**
+     * Returns a login request for GitHub.
+     *
+     * @return a login request
+     */
+    private final OAuth2UserRequest getRequest() {
+        final OAuth2AccessToken token;
+
+        token = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "token", Instant.now(),
+            Instant.now()
+                .plusSeconds(60));
+
+        return new OAuth2UserRequest(CommonOAuth2Provider.GITHUB.getBuilder("github")
+            .clientId("client")
+            .clientSecret("secret")
+            .build(), token);
+    }
+
+}
@@ -0,0 +1,142 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.oauth.unit;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.bernardomg.example.spring.security.mvc.security.oauth.CircuitBreaker;
+
+/**
+ * Unit tests for the circuit breaker.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@DisplayName("Circuit breaker")
+public final class TestCircuitBreaker {
+
+    /**
+     * Default constructor.
+     */
+    public TestCircuitBreaker() {
+        super();
+    }
+
+    @Test
+    @DisplayName("Requests are allowed while the failures are below the threshold")
+    public final void testAllowRequest_BelowThreshold() {
+        final CircuitBreaker breaker;
+
+        breaker = new CircuitBreaker(3, Duration.ofSeconds(10));
+
+        breaker.recordFailure(100_000);
+        breaker.recordFailure(100_000);
+
+        Assertions.assertTrue(breaker.allowRequest(100_000));
+        Assertions.assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    @DisplayName("A success clears the failures")
+    public final void testAllowRequest_FailuresCleared() {
+        final CircuitBreaker breaker;
+
+        breaker = new CircuitBreaker(3, Duration.ofSeconds(10));
+
+        breaker.recordFailure(100_000);
+        breaker.recordFailure(100_000);
+        breaker.recordSuccess();
+        breaker.recordFailure(100_000);
+
+        Assertions.assertTrue(breaker.allowRequest(100_000));
+    }
+
+    @Test
+    @DisplayName("Requests are rejected while the circuit is open")
+    public final void testAllowRequest_Open() {
+        final CircuitBreaker breaker;
+
+        breaker = new CircuitBreaker(3, Duration.ofSeconds(10));
+
+        breaker.recordFailure(100_000);
+        breaker.recordFailure(100_000);
+        breaker.recordFailure(100_000);
+
+        Assertions.assertTrue(breaker.isOpen());
+        Assertions.assertFalse(breaker.allowRequest(105_000));
+        Assertions.assertEquals(1, breaker.getRejectedCount());
+    }
+
+    @Test
+    @DisplayName("After the open duration a single trial request is allowed")
+    public final void testAllowRequest_Trial() {
+        final CircuitBreaker breaker;
+
+        breaker = new CircuitBreaker(1, Duration.ofSeconds(10));
+
+        breaker.recordFailure(100_000);
+
+        Assertions.assertTrue(breaker.allowRequest(110_000));
+        Assertions.assertFalse(breaker.allowRequest(110_000));
+    }
+
+    @Test
+    @DisplayName("A failed trial request opens the circuit again")
+    public final void testAllowRequest_TrialFailed() {
+        final CircuitBreaker breaker;
+
+        breaker = new CircuitBreaker(5, Duration.ofSeconds(10));
+
+        for (int i = 0; i < 5; i++) {
+            breaker.recordFailure(100_000);
+        }
+        breaker.allowRequest(110_000);
+        breaker.recordFailure(110_000);
+
+        Assertions.assertFalse(breaker.allowRequest(115_000));
+        Assertions.assertTrue(breaker.allowRequest(120_000));
+    }
+
+    @Test
+    @DisplayName("A successful trial request closes the circuit")
+    public final void testAllowRequest_TrialSucceeded() {
+        final CircuitBreaker breaker;
+
+        breaker = new CircuitBreaker(1, Duration.ofSeconds(10));
+
+        breaker.recordFailure(100_000);
+        breaker.allowRequest(110_000);
+        breaker.recordSuccess();
+
+        Assertions.assertFalse(breaker.isOpen());
+        Assertions.assertTrue(breaker.allowRequest(110_000));
+        Assertions.assertTrue(breaker.allowRequest(110_000));
+    }
+
+}
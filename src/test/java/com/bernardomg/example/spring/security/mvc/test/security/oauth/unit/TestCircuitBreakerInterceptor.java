@@ -0,0 +1,130 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.oauth.unit;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import com.bernardomg.example.spring.security.mvc.security.oauth.CircuitBreakerInterceptor;
+import com.bernardomg.example.spring.security.mvc.security.oauth.CircuitBreakers;
+
+/**
+ * Unit tests for the circuit breaker interceptor.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@DisplayName("Circuit breaker interceptor")
+public final class TestCircuitBreakerInterceptor {
+
+    /**
+     * Execution which fails with an unexpected exception.
+     */
+    private static final ClientHttpRequestExecution BROKEN  = (request, body) -> {
+        throw new IllegalStateException("Broken client");
+    };
+
+    /**
+     * Execution which answers with a success.
+     */
+    private static final ClientHttpRequestExecution WORKING = (request, body) -> new MockClientHttpResponse(
+        new byte[0], HttpStatus.OK);
+
+    /**
+     * Default constructor.
+     */
+    public TestCircuitBreakerInterceptor() {
+        super();
+    }
+
+    @Test
+    @DisplayName("A failing host doesn't open the circuit for the other hosts")
+    public final void testIntercept_OtherHost() throws IOException {
+        final CircuitBreakers           breakers;
+        final CircuitBreakerInterceptor interceptor;
+
+        breakers = new CircuitBreakers(1, Duration.ofSeconds(10));
+        interceptor = new CircuitBreakerInterceptor(breakers);
+
+        Assertions.assertThrows(IllegalStateException.class,
+            () -> interceptor.intercept(getRequest("failing"), new byte[0], BROKEN));
+
+        Assertions.assertThrows(IOException.class,
+            () -> interceptor.intercept(getRequest("failing"), new byte[0], WORKING));
+        Assertions.assertEquals(HttpStatus.OK, interceptor.intercept(getRequest("working"), new byte[0], WORKING)
+            .getStatusCode());
+
+        Assertions.assertEquals(1, breakers.getOpenCount());
+    }
+
+    @Test
+    @DisplayName("An unexpected exception on the trial request keeps the circuit open, and allows the next trial")
+    public final void testIntercept_TrialUnexpectedException() throws IOException {
+        final CircuitBreakers           breakers;
+        final CircuitBreakerInterceptor interceptor;
+
+        // The circuit can be tried again right away
+        breakers = new CircuitBreakers(1, Duration.ZERO);
+        interceptor = new CircuitBreakerInterceptor(breakers);
+
+        Assertions.assertThrows(IllegalStateException.class,
+            () -> interceptor.intercept(getRequest("host"), new byte[0], BROKEN));
+        // Trial request
+        Assertions.assertThrows(IllegalStateException.class,
+            () -> interceptor.intercept(getRequest("host"), new byte[0], BROKEN));
+
+        Assertions.assertTrue(breakers.getCircuitBreaker("host")
+            .isOpen());
+
+        // Next trial request
+        Assertions.assertEquals(HttpStatus.OK, interceptor.intercept(getRequest("host"), new byte[0], WORKING)
+            .getStatusCode());
+
+        Assertions.assertFalse(breakers.getCircuitBreaker("host")
+            .isOpen());
+    }
+
+    /**
+     * Returns a request to the host.
+     *
+     * @param host
+     *            host for the request
+     * @return a request to the host
+     */
+    private final MockClientHttpRequest getRequest(final String host) {
+        return new MockClientHttpRequest(HttpMethod.GET, URI.create("http://" + host + "/user"));
+    }
+
+}
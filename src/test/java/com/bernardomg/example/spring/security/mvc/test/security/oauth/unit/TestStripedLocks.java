@@ -0,0 +1,94 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.oauth.unit;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.bernardomg.example.spring.security.mvc.security.oauth.StripedLocks;
+
+/**
+ * Unit tests for the striped locks.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@DisplayName("Striped locks")
+public final class TestStripedLocks {
+
+    /**
+     * Default constructor.
+     */
+    public TestStripedLocks() {
+        super();
+    }
+
+    @Test
+    @DisplayName("Keys are spread through all the locks")
+    public final void testGetLock_Distributed() {
+        final StripedLocks locks;
+
+        locks = new StripedLocks(6);
+
+        Assertions.assertEquals(8, IntStream.range(0, 1000)
+            .mapToObj(i -> locks.getLock("user" + i + "@somewhere.com"))
+            .distinct()
+            .count());
+    }
+
+    @Test
+    @DisplayName("Equal keys receive the same lock")
+    public final void testGetLock_EqualKeys() {
+        final StripedLocks locks;
+
+        locks = new StripedLocks(64);
+
+        Assertions.assertSame(locks.getLock("user@somewhere.com"), locks.getLock(new String("user@somewhere.com")));
+    }
+
+    @Test
+    @DisplayName("With a single stripe all the keys share the lock")
+    public final void testGetLock_SingleStripe() {
+        final StripedLocks locks;
+
+        locks = new StripedLocks(1);
+
+        Assertions.assertEquals(1, IntStream.range(0, 100)
+            .mapToObj(i -> locks.getLock("user" + i))
+            .collect(Collectors.toSet())
+            .size());
+    }
+
+    @Test
+    @DisplayName("At least one stripe is required")
+    public final void testNew_NoStripes() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new StripedLocks(0));
+    }
+
+}
@@ -0,0 +1,178 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.password.unit;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.bernardomg.example.spring.security.mvc.security.password.BoundedPasswordEncoder;
+import com.bernardomg.example.spring.security.mvc.security.password.PasswordHashingRejectedException;
+
+/**
+ * Unit tests for the bounded password encoder.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@DisplayName("Bounded password encoder")
+public final class TestBoundedPasswordEncoder {
+
+    /**
+     * Wrapped encoder.
+     */
+    private PasswordEncoder delegate;
+
+    /**
+     * Executor for the encoder.
+     */
+    private ExecutorService executor;
+
+    /**
+     * Default constructor.
+     */
+    public TestBoundedPasswordEncoder() {
+        super();
+    }
+
+    /**
+     * Stops the executor.
+     */
+    @AfterEach
+    public final void cleanUp() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Creates the executor and the wrapped encoder.
+     */
+    @BeforeEach
+    public final void setup() {
+        executor = Executors.newSingleThreadExecutor();
+        delegate = Mockito.mock(PasswordEncoder.class);
+    }
+
+    @Test
+    @DisplayName("Encoding is delegated")
+    public final void testEncode() {
+        final PasswordEncoder encoder;
+
+        Mockito.when(delegate.encode("password"))
+            .thenReturn("encoded");
+
+        encoder = new BoundedPasswordEncoder(delegate, executor, Duration.ofSeconds(5));
+
+        Assertions.assertEquals("encoded", encoder.encode("password"));
+    }
+
+    @Test
+    @DisplayName("Exceptions from the wrapped encoder are thrown as they are")
+    public final void testEncode_Exception() {
+        final PasswordEncoder encoder;
+
+        Mockito.when(delegate.encode("password"))
+            .thenThrow(new IllegalArgumentException());
+
+        encoder = new BoundedPasswordEncoder(delegate, executor, Duration.ofSeconds(5));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> encoder.encode("password"));
+    }
+
+    @Test
+    @DisplayName("Matching is delegated")
+    public final void testMatches() {
+        final PasswordEncoder encoder;
+
+        Mockito.when(delegate.matches("password", "encoded"))
+            .thenReturn(true);
+
+        encoder = new BoundedPasswordEncoder(delegate, executor, Duration.ofSeconds(5));
+
+        Assertions.assertTrue(encoder.matches("password", "encoded"));
+        Assertions.assertFalse(encoder.matches("other", "encoded"));
+    }
+
+    @Test
+    @DisplayName("When the executor is saturated the hashing is rejected")
+    public final void testMatches_Saturated() throws InterruptedException, ExecutionException, TimeoutException {
+        final PasswordEncoder                  encoder;
+        final CountDownLatch                   started;
+        final CountDownLatch                   release;
+        final ExecutorService                  caller;
+        final Future<Boolean>                  blocking;
+        final PasswordHashingRejectedException exception;
+
+        started = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        Mockito.when(delegate.matches("blocking", "encoded"))
+            .thenAnswer(i -> {
+                started.countDown();
+                release.await();
+                return true;
+            });
+
+        // Single thread and no queue
+        executor.shutdown();
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(),
+            Executors.defaultThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        encoder = new BoundedPasswordEncoder(delegate, executor, Duration.ofSeconds(5));
+
+        // Takes the only thread
+        caller = Executors.newSingleThreadExecutor();
+        try {
+            blocking = caller.submit(() -> encoder.matches("blocking", "encoded"));
+            started.await();
+
+            try {
+                exception = Assertions.assertThrows(PasswordHashingRejectedException.class,
+                    () -> encoder.matches("password", "encoded"));
+                Assertions.assertEquals(Duration.ofSeconds(5), exception.getRetryAfter());
+            } finally {
+                release.countDown();
+            }
+
+            // The blocked hashing finishes normally once released
+            Assertions.assertTrue(blocking.get(5, TimeUnit.SECONDS));
+        } finally {
+            caller.shutdownNow();
+        }
+    }
+
+}
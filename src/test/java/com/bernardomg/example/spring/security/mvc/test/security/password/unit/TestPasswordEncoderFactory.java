@@ -0,0 +1,149 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.password.unit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.bernardomg.example.spring.security.mvc.security.password.PasswordEncoderFactory;
+import com.bernardomg.example.spring.security.mvc.security.property.PasswordEncodingProperties;
+
+/**
+ * Unit tests for the password encoder factory, verifying the supported hash formats.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@DisplayName("Password encoder factory")
+public final class TestPasswordEncoderFactory {
+
+    /**
+     * Password to encode.
+     */
+    private static final String PASSWORD = "1111";
+
+    /**
+     * Default constructor.
+     */
+    public TestPasswordEncoderFactory() {
+        super();
+    }
+
+    @Test
+    @DisplayName("Argon2 hashes are upgraded when the encoder is BCrypt")
+    public final void testArgon2_UpgradedToBcrypt() {
+        final PasswordEncodingProperties properties;
+        final String                     encoded;
+        final PasswordEncoder            encoder;
+
+        properties = getProperties();
+        properties.setEncoder(PasswordEncoderFactory.ARGON2);
+        encoded = PasswordEncoderFactory.getPasswordEncoder(properties)
+            .encode(PASSWORD);
+
+        encoder = PasswordEncoderFactory.getPasswordEncoder(getProperties());
+
+        Assertions.assertTrue(encoded.startsWith("{argon2}"));
+        Assertions.assertTrue(encoder.matches(PASSWORD, encoded));
+        Assertions.assertTrue(encoder.upgradeEncoding(encoded));
+    }
+
+    @Test
+    @DisplayName("Hashes with the current format and strength are not upgraded")
+    public final void testBcrypt_Current_NotUpgraded() {
+        final PasswordEncoder encoder;
+        final String          encoded;
+
+        encoder = PasswordEncoderFactory.getPasswordEncoder(getProperties());
+        encoded = encoder.encode(PASSWORD);
+
+        Assertions.assertTrue(encoded.startsWith("{bcrypt}"));
+        Assertions.assertTrue(encoder.matches(PASSWORD, encoded));
+        Assertions.assertFalse(encoder.upgradeEncoding(encoded));
+    }
+
+    @Test
+    @DisplayName("BCrypt hashes with a lower strength are upgraded")
+    public final void testBcrypt_LowerStrength_Upgraded() {
+        final PasswordEncodingProperties properties;
+        final String                     encoded;
+        final PasswordEncoder            encoder;
+
+        properties = getProperties();
+        encoded = PasswordEncoderFactory.getPasswordEncoder(properties)
+            .encode(PASSWORD);
+
+        properties.setBcryptStrength(properties.getBcryptStrength() + 1);
+        encoder = PasswordEncoderFactory.getPasswordEncoder(properties);
+
+        Assertions.assertTrue(encoder.matches(PASSWORD, encoded));
+        Assertions.assertTrue(encoder.upgradeEncoding(encoded));
+    }
+
+    @Test
+    @DisplayName("Hashes without prefix are read as BCrypt, and upgraded")
+    public final void testLegacy_Upgraded() {
+        final PasswordEncoder encoder;
+        final String          encoded;
+
+        encoder = PasswordEncoderFactory.getPasswordEncoder(getProperties());
+        encoded = new BCryptPasswordEncoder(4).encode(PASSWORD);
+
+        Assertions.assertTrue(encoder.matches(PASSWORD, encoded));
+        Assertions.assertTrue(encoder.upgradeEncoding(encoded));
+    }
+
+    @Test
+    @DisplayName("An unknown encoder is rejected")
+    public final void testUnknownEncoder() {
+        final PasswordEncodingProperties properties;
+
+        properties = getProperties();
+        properties.setEncoder("abc");
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> PasswordEncoderFactory.getPasswordEncoder(properties));
+    }
+
+    /**
+     * Returns properties with low costs, to keep the tests fast.
+     *
+     * @return properties for the tests
+     */
+    private final PasswordEncodingProperties getProperties() {
+        final PasswordEncodingProperties properties;
+
+        properties = new PasswordEncodingProperties();
+        properties.setBcryptStrength(4);
+        properties.setArgon2Memory(1024);
+        properties.setArgon2Iterations(1);
+
+        return properties;
+    }
+
+}
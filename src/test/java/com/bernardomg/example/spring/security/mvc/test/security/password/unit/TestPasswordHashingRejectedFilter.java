@@ -0,0 +1,84 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.password.unit;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.bernardomg.example.spring.security.mvc.security.password.PasswordHashingRejectedException;
+import com.bernardomg.example.spring.security.mvc.security.password.PasswordHashingRejectedFilter;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Unit tests for the filter answering rejected password hashing.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@DisplayName("Password hashing rejected filter")
+public final class TestPasswordHashingRejectedFilter {
+
+    /**
+     * Default constructor.
+     */
+    public TestPasswordHashingRejectedFilter() {
+        super();
+    }
+
+    @Test
+    @DisplayName("Requests are passed along the chain")
+    public final void testFilter() throws Exception {
+        final MockHttpServletResponse response;
+
+        response = new MockHttpServletResponse();
+
+        new PasswordHashingRejectedFilter().doFilter(new MockHttpServletRequest(), response, new MockFilterChain());
+
+        Assertions.assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+    }
+
+    @Test
+    @DisplayName("Rejected hashing is answered with a 503 and the time to retry")
+    public final void testFilter_Rejected() throws Exception {
+        final MockHttpServletResponse response;
+
+        response = new MockHttpServletResponse();
+
+        new PasswordHashingRejectedFilter().doFilter(new MockHttpServletRequest(), response, (req, res) -> {
+            throw new PasswordHashingRejectedException(Duration.ofSeconds(5));
+        });
+
+        Assertions.assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, response.getStatus());
+        Assertions.assertEquals("5", response.getHeader("Retry-After"));
+    }
+
+}
@@ -0,0 +1,113 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.rememberme.integration;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.bernardomg.example.spring.security.mvc.security.rememberme.ExpiredTokenReaper;
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.IntegrationTest;
+
+/**
+ * Integration tests for the expired remember-me tokens reaper.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@IntegrationTest
+@DisplayName("Expired token reaper")
+public class ITExpiredTokenReaper {
+
+    /**
+     * JDBC template, to set up and check the stored tokens.
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Default constructor.
+     */
+    public ITExpiredTokenReaper() {
+        super();
+    }
+
+    @Test
+    @DisplayName("All the expired tokens are deleted, in several batches, and the valid ones are kept")
+    public final void testPurge() {
+        final ExpiredTokenReaper reaper;
+        final long               purged;
+
+        for (int i = 0; i < 25; i++) {
+            insertToken("expired" + i, Instant.now()
+                .minus(Duration.ofDays(2)));
+        }
+        insertToken("valid", Instant.now());
+
+        reaper = new ExpiredTokenReaper(jdbcTemplate, Duration.ofDays(1), 10);
+        purged = reaper.purge();
+
+        Assertions.assertEquals(25, purged);
+        Assertions.assertEquals(25, reaper.getLastPurged());
+        Assertions.assertEquals(25, reaper.getTotalPurged());
+        Assertions.assertEquals(1, reaper.getRuns());
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM persistent_logins",
+            Integer.class));
+    }
+
+    @Test
+    @DisplayName("With no expired tokens nothing is deleted")
+    public final void testPurge_NoExpired() {
+        final ExpiredTokenReaper reaper;
+
+        insertToken("valid", Instant.now());
+
+        reaper = new ExpiredTokenReaper(jdbcTemplate, Duration.ofDays(1), 10);
+
+        Assertions.assertEquals(0, reaper.purge());
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM persistent_logins",
+            Integer.class));
+    }
+
+    /**
+     * Stores a token directly in the database.
+     *
+     * @param series
+     *            token series
+     * @param lastUsed
+     *            last time the token was used
+     */
+    private final void insertToken(final String series, final Instant lastUsed) {
+        jdbcTemplate.update("INSERT INTO persistent_logins (username, series, token, last_used) VALUES (?, ?, ?, ?)",
+            "admin", series, "token", Timestamp.from(lastUsed));
+    }
+
+}
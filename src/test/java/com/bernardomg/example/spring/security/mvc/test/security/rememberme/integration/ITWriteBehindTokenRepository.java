@@ -0,0 +1,258 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.rememberme.integration;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.web.authentication.rememberme.PersistentRememberMeToken;
+
+import com.bernardomg.example.spring.security.mvc.security.rememberme.WriteBehindTokenRepository;
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.IntegrationTest;
+
+/**
+ * Integration tests for the write-behind token repository.
+ * <p>
+ * The repository is created for each test, and it is never started. So the writes only happen when the tests flush
+ * it, inside the test transaction.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@IntegrationTest
+@DisplayName("Write-behind token repository")
+public class ITWriteBehindTokenRepository {
+
+    /**
+     * JDBC template, to check the stored tokens.
+     */
+    @Autowired
+    private JdbcTemplate               jdbcTemplate;
+
+    /**
+     * Repository being tested.
+     */
+    private WriteBehindTokenRepository repository;
+
+    /**
+     * Default constructor.
+     */
+    public ITWriteBehindTokenRepository() {
+        super();
+    }
+
+    /**
+     * Creates the repository.
+     */
+    @BeforeEach
+    public final void setup() {
+        repository = getRepository();
+    }
+
+    @Test
+    @DisplayName("Concurrent updates for the same series end with the same token in memory and in the database")
+    public final void testConcurrentUpdates() throws InterruptedException {
+        final ExecutorService executor;
+        final String          token;
+
+        repository.createNewToken(new PersistentRememberMeToken("admin", "series", "token", new Date()));
+
+        executor = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 1000; i++) {
+            final String value;
+
+            value = "token" + i;
+            executor.execute(() -> repository.updateToken("series", value, new Date()));
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        repository.flush();
+
+        token = repository.getTokenForSeries("series")
+            .getTokenValue();
+        Assertions.assertEquals(token, readToken("series"));
+        Assertions.assertEquals(0, repository.getPendingUpdates());
+    }
+
+    @Test
+    @DisplayName("Bursts of concurrent updates for the same series, each followed by a flush, leave the database matching the index")
+    public final void testConcurrentUpdates_Bursts() throws InterruptedException {
+        final ExecutorService executor;
+        final int             threads;
+        CountDownLatch        start;
+        CountDownLatch        done;
+
+        repository.createNewToken(new PersistentRememberMeToken("admin", "series", "token", new Date()));
+
+        threads = 8;
+        executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 200; round++) {
+                start = new CountDownLatch(1);
+                done = new CountDownLatch(threads);
+                for (int i = 0; i < threads; i++) {
+                    final String         value;
+                    final CountDownLatch roundStart;
+                    final CountDownLatch roundDone;
+
+                    value = "token" + round + "-" + i;
+                    roundStart = start;
+                    roundDone = done;
+                    executor.execute(() -> {
+                        try {
+                            roundStart.await();
+                            repository.updateToken("series", value, new Date());
+                        } catch (final InterruptedException e) {
+                            Thread.currentThread()
+                                .interrupt();
+                        } finally {
+                            roundDone.countDown();
+                        }
+                    });
+                }
+                start.countDown();
+                Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+
+                repository.flush();
+
+                Assertions.assertEquals(repository.getTokenForSeries("series")
+                    .getTokenValue(), readToken("series"), "Round " + round);
+                Assertions.assertEquals(0, repository.getPendingUpdates());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("A new token is written at once, and can be read")
+    public final void testCreateNewToken() {
+        repository.createNewToken(new PersistentRememberMeToken("admin", "series", "token", new Date()));
+
+        Assertions.assertEquals("token", repository.getTokenForSeries("series")
+            .getTokenValue());
+        Assertions.assertEquals("token", readToken("series"));
+    }
+
+    @Test
+    @DisplayName("Loading reads the tokens which haven't expired")
+    public final void testLoad() {
+        final WriteBehindTokenRepository loaded;
+
+        insertToken("series", Instant.now());
+        insertToken("expired", Instant.now()
+            .minus(Duration.ofDays(2)));
+
+        loaded = getRepository();
+        loaded.load();
+
+        Assertions.assertEquals(1, loaded.getActiveTokens());
+        Assertions.assertEquals("token", loaded.getTokenForSeries("series")
+            .getTokenValue());
+        Assertions.assertNull(loaded.getTokenForSeries("expired"));
+    }
+
+    @Test
+    @DisplayName("Removing the tokens for a user discards them, along their pending updates")
+    public final void testRemoveUserTokens() {
+        repository.createNewToken(new PersistentRememberMeToken("admin", "series", "token", new Date()));
+        repository.updateToken("series", "updated", new Date());
+
+        repository.removeUserTokens("admin");
+        repository.flush();
+
+        Assertions.assertNull(repository.getTokenForSeries("series"));
+        Assertions.assertEquals(0, repository.getPendingUpdates());
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM persistent_logins",
+            Integer.class));
+    }
+
+    @Test
+    @DisplayName("Updates are coalesced, and only the last one is written on flush")
+    public final void testUpdateToken() {
+        repository.createNewToken(new PersistentRememberMeToken("admin", "series", "token", new Date()));
+
+        repository.updateToken("series", "token1", new Date());
+        repository.updateToken("series", "token2", new Date());
+
+        Assertions.assertEquals("token2", repository.getTokenForSeries("series")
+            .getTokenValue());
+        Assertions.assertEquals("token", readToken("series"));
+        Assertions.assertEquals(1, repository.getPendingUpdates());
+
+        repository.flush();
+
+        Assertions.assertEquals("token2", readToken("series"));
+        Assertions.assertEquals(0, repository.getPendingUpdates());
+    }
+
+    /**
+     * Returns a repository with tokens valid for one day.
+     *
+     * @return a repository for the tests
+     */
+    private final WriteBehindTokenRepository getRepository() {
+        return new WriteBehindTokenRepository(jdbcTemplate, Duration.ofDays(1), Duration.ofSeconds(1));
+    }
+
+    /**
+     * Stores a token directly in the database.
+     *
+     * @param series
+     *            token series
+     * @param lastUsed
+     *            last time the token was used
+     */
+    private final void insertToken(final String series, final Instant lastUsed) {
+        jdbcTemplate.update("INSERT INTO persistent_logins (username, series, token, last_used) VALUES (?, ?, ?, ?)",
+            "admin", series, "token", Timestamp.from(lastUsed));
+    }
+
+    /**
+     * Reads the token value stored in the database.
+     *
+     * @param series
+     *            token series
+     * @return the stored token value
+     */
+    private final String readToken(final String series) {
+        return jdbcTemplate.queryForObject("SELECT token FROM persistent_logins WHERE series = ?", String.class,
+            series);
+    }
+
+}
@@ -0,0 +1,119 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.throttle.integration;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.unauthenticated;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.MvcIntegrationTest;
+
+/**
+ * Integration tests for the login throttling, verifying that logins are rejected after too many failures.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@MvcIntegrationTest
+@TestPropertySource(properties = { "security.login.throttle.enabled=true",
+        "security.login.throttle.username-threshold=2" })
+@Sql({ "/db/queries/user/single.sql", "/db/queries/security/default_role.sql" })
+@DisplayName("Login throttling")
+public final class ITLoginThrottling {
+
+    /**
+     * Mock MVC for the requests.
+     */
+    private MockMvc               mockMvc;
+
+    /**
+     * Web application context.
+     */
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    /**
+     * Default constructor.
+     */
+    public ITLoginThrottling() {
+        super();
+    }
+
+    /**
+     * Sets up the mock MVC.
+     */
+    @BeforeEach
+    public final void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+            .apply(springSecurity())
+            .build();
+    }
+
+    @Test
+    @DisplayName("Logins are rejected with a 429 after too many failures, even with the right password")
+    public final void testLogin_Throttled() throws Exception {
+        mockMvc.perform(formLogin().user("throttled")
+            .password("abc"))
+            .andExpect(unauthenticated());
+        mockMvc.perform(formLogin().user("throttled")
+            .password("abc"))
+            .andExpect(unauthenticated());
+
+        mockMvc.perform(formLogin().user("throttled")
+            .password("abc"))
+            .andExpect(MockMvcResultMatchers.status()
+                .isTooManyRequests())
+            .andExpect(MockMvcResultMatchers.header()
+                .string("Retry-After", "900"));
+    }
+
+    @Test
+    @DisplayName("Failures for a username don't throttle other usernames")
+    public final void testLogin_OtherUser() throws Exception {
+        mockMvc.perform(formLogin().user("throttled-other")
+            .password("abc"))
+            .andExpect(unauthenticated());
+        mockMvc.perform(formLogin().user("throttled-other")
+            .password("abc"))
+            .andExpect(unauthenticated());
+
+        mockMvc.perform(formLogin().user("admin")
+            .password("1234"))
+            .andExpect(MockMvcResultMatchers.status()
+                .is3xxRedirection());
+    }
+
+}
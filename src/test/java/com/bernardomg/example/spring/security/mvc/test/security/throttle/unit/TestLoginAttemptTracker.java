@@ -0,0 +1,135 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.throttle.unit;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import com.bernardomg.example.spring.security.mvc.security.throttle.LoginAttemptTracker;
+
+/**
+ * Unit tests for the login attempt tracker.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@DisplayName("Login attempt tracker")
+public final class TestLoginAttemptTracker {
+
+    /**
+     * Default constructor.
+     */
+    public TestLoginAttemptTracker() {
+        super();
+    }
+
+    @Test
+    @DisplayName("An address is throttled after too many failures, for any username")
+    public final void testIsThrottled_Address() {
+        final LoginAttemptTracker tracker;
+
+        tracker = new LoginAttemptTracker(10, 2, Duration.ofMinutes(1), 100);
+
+        tracker.onFailure(getFailure("user1", "10.0.0.1"));
+        tracker.onFailure(getFailure("user2", "10.0.0.1"));
+
+        Assertions.assertTrue(tracker.isThrottled("user3", "10.0.0.1"));
+        Assertions.assertFalse(tracker.isThrottled("user3", "10.0.0.2"));
+    }
+
+    @Test
+    @DisplayName("Logins below the thresholds are not throttled")
+    public final void testIsThrottled_BelowThreshold() {
+        final LoginAttemptTracker tracker;
+
+        tracker = new LoginAttemptTracker(2, 2, Duration.ofMinutes(1), 100);
+
+        tracker.onFailure(getFailure("admin", "10.0.0.1"));
+
+        Assertions.assertFalse(tracker.isThrottled("admin", "10.0.0.1"));
+        Assertions.assertEquals(0, tracker.getThrottledLogins());
+    }
+
+    @Test
+    @DisplayName("A successful login clears the failures for its username")
+    public final void testIsThrottled_Success() {
+        final LoginAttemptTracker tracker;
+
+        tracker = new LoginAttemptTracker(2, 10, Duration.ofMinutes(1), 100);
+
+        tracker.onFailure(getFailure("admin", "10.0.0.1"));
+        tracker.onFailure(getFailure("admin", "10.0.0.1"));
+        tracker.onSuccess(new AuthenticationSuccessEvent(new UsernamePasswordAuthenticationToken("admin", "")));
+
+        Assertions.assertFalse(tracker.isThrottled("admin", "10.0.0.2"));
+    }
+
+    @Test
+    @DisplayName("A username is throttled after too many failures, from any address")
+    public final void testIsThrottled_Username() {
+        final LoginAttemptTracker tracker;
+
+        tracker = new LoginAttemptTracker(2, 10, Duration.ofMinutes(1), 100);
+
+        tracker.onFailure(getFailure("admin", "10.0.0.1"));
+        tracker.onFailure(getFailure("ADMIN", "10.0.0.2"));
+
+        Assertions.assertTrue(tracker.isThrottled("Admin", "10.0.0.3"));
+        Assertions.assertFalse(tracker.isThrottled("user", "10.0.0.3"));
+        Assertions.assertEquals(1, tracker.getThrottledLogins());
+    }
+
+    /**
+     * Returns a bad credentials event for the received username and address.
+     *
+     * @param username
+     *            username which failed
+     * @param address
+     *            address the login came from
+     * @return a bad credentials event
+     */
+    private final AuthenticationFailureBadCredentialsEvent getFailure(final String username, final String address) {
+        final MockHttpServletRequest              request;
+        final UsernamePasswordAuthenticationToken authentication;
+
+        request = new MockHttpServletRequest();
+        request.setRemoteAddr(address);
+
+        authentication = new UsernamePasswordAuthenticationToken(username, "");
+        authentication.setDetails(new WebAuthenticationDetails(request));
+
+        return new AuthenticationFailureBadCredentialsEvent(authentication, new BadCredentialsException("Bad"));
+    }
+
+}
@@ -0,0 +1,104 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.throttle.unit;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.bernardomg.example.spring.security.mvc.security.throttle.SlidingWindowCounter;
+
+/**
+ * Unit tests for the sliding window counter.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@DisplayName("Sliding window counter")
+public final class TestSlidingWindowCounter {
+
+    /**
+     * Default constructor.
+     */
+    public TestSlidingWindowCounter() {
+        super();
+    }
+
+    @Test
+    @DisplayName("Events inside the window are counted")
+    public final void testIncrement() {
+        final SlidingWindowCounter counter;
+
+        counter = new SlidingWindowCounter(Duration.ofSeconds(10), 10);
+
+        counter.increment(100_000);
+        counter.increment(103_000);
+
+        Assertions.assertEquals(3, counter.increment(109_000));
+    }
+
+    @Test
+    @DisplayName("Events move out of the window as time passes")
+    public final void testIncrement_Expired() {
+        final SlidingWindowCounter counter;
+
+        counter = new SlidingWindowCounter(Duration.ofSeconds(10), 10);
+
+        counter.increment(100_000);
+        counter.increment(105_000);
+
+        Assertions.assertEquals(1, counter.getCount(110_000));
+        Assertions.assertEquals(0, counter.getCount(115_000));
+    }
+
+    @Test
+    @DisplayName("A bucket from an old slice is reused")
+    public final void testIncrement_ReusedBucket() {
+        final SlidingWindowCounter counter;
+
+        counter = new SlidingWindowCounter(Duration.ofSeconds(10), 10);
+
+        counter.increment(100_000);
+        counter.increment(100_000);
+
+        Assertions.assertEquals(1, counter.increment(120_000));
+    }
+
+    @Test
+    @DisplayName("Resetting removes all the events")
+    public final void testReset() {
+        final SlidingWindowCounter counter;
+
+        counter = new SlidingWindowCounter(Duration.ofSeconds(10), 10);
+
+        counter.increment(100_000);
+        counter.reset();
+
+        Assertions.assertEquals(0, counter.getCount(100_000));
+    }
+
+}
@@ -0,0 +1,162 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.user.repository.integration;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentRole;
+import com.bernardomg.example.spring.security.mvc.security.user.repository.RoleRepository;
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.IntegrationTest;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Integration tests for the role repository, verifying that roles are read from the second-level cache.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@IntegrationTest
+@TestPropertySource(properties = { "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true" })
+@Sql({ "/db/queries/user/single.sql", "/db/queries/security/default_role.sql" })
+@DisplayName("Role repository cache")
+public class ITRoleRepositoryCache {
+
+    /**
+     * Entity manager, cleared so the entities are not read from the session.
+     */
+    @Autowired
+    private EntityManager        entityManager;
+
+    /**
+     * Entity manager factory, used to access the cache and the statistics.
+     */
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Repository being tested.
+     */
+    @Autowired
+    private RoleRepository       repository;
+
+    /**
+     * Hibernate statistics.
+     */
+    private Statistics           statistics;
+
+    /**
+     * Default constructor.
+     */
+    public ITRoleRepositoryCache() {
+        super();
+    }
+
+    /**
+     * Empties the cache, as the data is reset between tests, and resets the statistics.
+     */
+    @BeforeEach
+    public final void setup() {
+        final SessionFactory sessionFactory;
+
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache()
+            .evictAll();
+        sessionFactory.getCache()
+            .evictQueryRegions();
+
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Reading all the roles again takes no queries")
+    public final void testFindAll_Cached() {
+        final List<PersistentRole> roles;
+
+        repository.findAll();
+        entityManager.clear();
+        roles = repository.findAll();
+
+        Assertions.assertEquals(1, roles.size());
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("Reading a role by name again takes no queries")
+    public final void testFindByName_Cached() {
+        repository.findByName("ADMIN");
+        entityManager.clear();
+
+        Assertions.assertTrue(repository.findByName("ADMIN")
+            .isPresent());
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("Changing the user roles keeps the roles cached")
+    public final void testFindByName_UserRolesChanged() {
+        repository.findByName("ADMIN");
+        repository.unregisterAllForUser(1L, List.of(1L));
+        entityManager.clear();
+
+        repository.findByName("ADMIN");
+
+        Assertions.assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("Storing a role evicts the cached queries")
+    public final void testFindByName_RoleSaved() {
+        final PersistentRole role;
+
+        repository.findByName("ADMIN");
+
+        role = new PersistentRole();
+        role.setName("USER");
+        repository.save(role);
+        entityManager.flush();
+        entityManager.clear();
+
+        repository.findByName("ADMIN");
+
+        Assertions.assertEquals(0, statistics.getQueryCacheHitCount());
+    }
+
+}
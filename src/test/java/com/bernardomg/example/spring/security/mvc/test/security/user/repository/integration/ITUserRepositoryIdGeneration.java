@@ -0,0 +1,181 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.user.repository.integration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bernardomg.example.spring.security.mvc.security.user.model.PersistentUser;
+import com.bernardomg.example.spring.security.mvc.security.user.repository.UserRepository;
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.IntegrationTest;
+
+/**
+ * Integration tests for the user repository, verifying how ids are generated.
+ * <p>
+ * These tests run without a wrapping transaction, as each insert should run in its own one, like concurrent requests
+ * would.
+ *
+ * @author Bernardo Mart&iacute;nez Garrido
+ *
+ */
+@IntegrationTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("User repository id generation")
+public class ITUserRepositoryIdGeneration {
+
+    /**
+     * Number of users to insert.
+     */
+    private static final int USERS   = 200;
+
+    /**
+     * Number of concurrent threads.
+     */
+    private static final int THREADS = 16;
+
+    /**
+     * JDBC template to read the sequence.
+     */
+    @Autowired
+    private JdbcTemplate     jdbcTemplate;
+
+    /**
+     * User repository.
+     */
+    @Autowired
+    private UserRepository   repository;
+
+    /**
+     * Default constructor.
+     */
+    public ITUserRepositoryIdGeneration() {
+        super();
+    }
+
+    /**
+     * Removes the inserted users.
+     */
+    @AfterEach
+    public final void cleanUp() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Concurrent inserts receive unique ids, reading blocks of ids from the sequence")
+    public final void testSave_Concurrent() throws Exception {
+        final ExecutorService            executor;
+        final Collection<Callable<Long>> tasks;
+        final Collection<Long>           ids;
+        final long                       increment;
+        final long                       before;
+        final long                       after;
+
+        increment = getIncrement();
+        before = getSequenceValue();
+
+        tasks = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            final int index = i;
+            tasks.add(() -> repository.save(getUser(index))
+                .getId());
+        }
+
+        executor = Executors.newFixedThreadPool(THREADS);
+        ids = new ArrayList<>();
+        try {
+            for (final Future<Long> id : executor.invokeAll(tasks)) {
+                ids.add(id.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        after = getSequenceValue();
+
+        Assertions.assertEquals(USERS, repository.count());
+        Assertions.assertEquals(USERS, ids.stream()
+            .distinct()
+            .count());
+        // The sequence is called once per block, not once per user
+        // There may be an additional call, if a previous block was already started
+        Assertions.assertTrue(((after - before) / increment) <= ((USERS / increment) + 1));
+    }
+
+    /**
+     * Returns the users sequence increment, which is the block size.
+     *
+     * @return the users sequence increment
+     */
+    private final long getIncrement() {
+        return jdbcTemplate.queryForObject(
+            "SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'SEQ_USERS_ID'", Long.class);
+    }
+
+    /**
+     * Returns the current value for the users sequence.
+     *
+     * @return the current value for the users sequence
+     */
+    private final long getSequenceValue() {
+        return jdbcTemplate.queryForObject(
+            "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'SEQ_USERS_ID'", Long.class);
+    }
+
+    /**
+     * Returns a user to insert.
+     *
+     * @param index
+     *            index of the user, to generate unique values
+     * @return a user to insert
+     */
+    private final PersistentUser getUser(final int index) {
+        final PersistentUser user;
+
+        user = new PersistentUser();
+        user.setUsername("user" + index);
+        user.setName("user" + index);
+        user.setEmail("user" + index + "@somewhere.com");
+        user.setPassword("");
+        user.setCredentialsExpired(false);
+        user.setEnabled(true);
+        user.setExpired(false);
+        user.setLocked(false);
+
+        return user;
+    }
+
+}
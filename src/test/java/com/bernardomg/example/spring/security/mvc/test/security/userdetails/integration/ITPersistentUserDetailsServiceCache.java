@@ -0,0 +1,162 @@
+/**
+ * The MIT License (MIT)
+ * <p>
+ * Copyright (c) 2017-2023 the original author or authors.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.bernardomg.example.spring.security.mvc.test.security.userdetails.integration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+
+import com.bernardomg.example.spring.security.mvc.domain.user.model.form.DefaultUserForm;
+import com.bernardomg.example.spring.security.mvc.domain.user.service.UserService;
+import com.bernardomg.example.spring.security.mvc.security.userdetails.CaffeineUserCache;
+import com.bernardomg.example.spring.security.mvc.test.configuration.annotation.IntegrationTest;
+
+@IntegrationTest
+@TestPropertySource(properties = { "security.user.cache.enabled=true" })
+@Sql({ "/db/queries/user/single.sql", "/db/queries/security/default_role.sql" })
+@DisplayName("Persistent user details service cache")
+public class ITPersistentUserDetailsServiceCache {
+
+    /**
+     * User cache.
+     */
+    private CaffeineUserCache  cache;
+
+    /**
+     * User details service being tested.
+     */
+    @Autowired
+    private UserDetailsService service;
+
+    /**
+     * User service, to modify users.
+     */
+    @Autowired
+    private UserService        userService;
+
+    /**
+     * Default constructor.
+     */
+    public ITPersistentUserDetailsServiceCache() {
+        super();
+    }
+
+    /**
+     * Clears the cache.
+     *
+     * @param userCache
+     *            user cache
+     */
+    @BeforeEach
+    public final void setup(@Autowired final UserCache userCache) {
+        cache = (CaffeineUserCache) userCache;
+        cache.clear();
+    }
+
+    @Test
+    @DisplayName("Erasing the credentials of a loaded user doesn't affect the cache")
+    public final void testGetUser_ErasedCredentials() {
+        final UserDetails user;
+
+        ((CredentialsContainer) service.loadUserByUsername("admin")).eraseCredentials();
+
+        user = service.loadUserByUsername("admin");
+
+        Assertions.assertNotNull(user.getPassword());
+    }
+
+    @Test
+    @DisplayName("The first read is a cache miss")
+    public final void testGetUser_Miss() {
+        final long misses;
+
+        misses = cache.getMissCount();
+
+        service.loadUserByUsername("admin");
+
+        Assertions.assertEquals(misses + 1, cache.getMissCount());
+    }
+
+    @Test
+    @DisplayName("The username is normalized when reading from the cache")
+    public final void testGetUser_NormalizedUsername() {
+        final long hits;
+
+        service.loadUserByUsername("admin");
+
+        hits = cache.getHitCount();
+
+        service.loadUserByUsername("ADMIN");
+
+        Assertions.assertEquals(hits + 1, cache.getHitCount());
+    }
+
+    @Test
+    @DisplayName("Repeated reads are taken from the cache")
+    public final void testGetUser_Repeated() {
+        final long        hits;
+        final UserDetails user;
+
+        service.loadUserByUsername("admin");
+
+        hits = cache.getHitCount();
+
+        user = service.loadUserByUsername("admin");
+
+        Assertions.assertEquals("admin", user.getUsername());
+        Assertions.assertEquals(hits + 1, cache.getHitCount());
+    }
+
+    @Test
+    @WithMockUser(username = "test", authorities = { "UPDATE_DATA" })
+    @DisplayName("Updating a user removes it from the cache")
+    public final void testGetUser_Updated() {
+        final DefaultUserForm form;
+        final UserDetails     user;
+
+        service.loadUserByUsername("admin");
+
+        form = new DefaultUserForm();
+        form.setUsername("admin");
+        form.setPassword("password");
+        form.setEnabled(false);
+
+        userService.update(form);
+
+        user = service.loadUserByUsername("admin");
+
+        Assertions.assertFalse(user.isEnabled());
+    }
+
+}
@@ -0,0 +1,7 @@
+INSERT INTO AUDIT_EVENTS (event_date, principal, type, data) VALUES
+   ('2020-01-01 10:00:00', 'audit-query', 'AUTHENTICATION_SUCCESS', '{}'),
+   ('2020-01-01 11:00:00', 'audit-query', 'AUTHENTICATION_FAILURE', '{"type":"BadCredentialsException"}'),
+   ('2020-01-01 12:00:00', 'audit-query', 'AUTHENTICATION_FAILURE', '{"type":"BadCredentialsException"}'),
+   ('2020-01-01 12:00:00', 'audit-query', 'AUTHENTICATION_SUCCESS', '{}'),
+   ('2020-01-01 13:00:00', 'audit-query-other', 'AUTHENTICATION_FAILURE', '{"type":"BadCredentialsException"}'),
+   ('2021-01-01 10:00:00', 'audit-session', 'AUTHENTICATION_SUCCESS', '{"details":{"remoteAddress":"127.0.0.1","sessionId":"ABCDEF0123456789"}}');
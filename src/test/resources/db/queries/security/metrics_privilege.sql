@@ -0,0 +1,7 @@
+-- Metrics privilege
+INSERT INTO privileges (id, name) VALUES
+   (5, 'READ_METRICS');
+
+-- Set privilege into default role
+INSERT INTO role_privileges (role_id, privilege_id) VALUES
+   (1, 5);
\ No newline at end of file
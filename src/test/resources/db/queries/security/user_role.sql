@@ -0,0 +1,7 @@
+-- User role
+INSERT INTO roles (id, name) VALUES
+   (2, 'USER');
+
+-- Set privileges into user role
+INSERT INTO role_privileges (role_id, privilege_id) VALUES
+   (2, 2);
\ No newline at end of file
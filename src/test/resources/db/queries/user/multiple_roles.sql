@@ -0,0 +1,30 @@
+INSERT INTO USERS (id, name, email, username, password, enabled, locked, expired, credentials_expired) VALUES
+   (1, 'admin',    'admin@somewhere.com',    'admin',    '$2a$04$gV.k/KKIqr3oPySzs..bx.8absYRTpNe8AbHmPP90.ErW0ICGOsVW', true,  false, false, false),
+   (2, 'user',     'user@somewhere.com',     'user',     '$2a$04$gV.k/KKIqr3oPySzs..bx.8absYRTpNe8AbHmPP90.ErW0ICGOsVW', true,  false, false, false),
+   (3, 'noroles',  'noroles@somewhere.com',  'noroles',  '$2a$04$gV.k/KKIqr3oPySzs..bx.8absYRTpNe8AbHmPP90.ErW0ICGOsVW', true,  false, false, false);
+
+INSERT INTO ROLES (id, name) VALUES
+   (1, 'ADMIN'),
+   (2, 'USER'),
+   (3, 'READER');
+
+INSERT INTO PRIVILEGES (id, name) VALUES
+   (1, 'CREATE_DATA'),
+   (2, 'READ_DATA'),
+   (3, 'UPDATE_DATA'),
+   (4, 'DELETE_DATA');
+
+INSERT INTO ROLE_PRIVILEGES (role_id, privilege_id) VALUES
+   (1, 1),
+   (1, 2),
+   (1, 3),
+   (1, 4),
+   (2, 2),
+   (2, 3),
+   (3, 2);
+
+INSERT INTO USER_ROLES (user_id, role_id) VALUES
+   (1, 1),
+   (1, 2),
+   (2, 2),
+   (2, 3);